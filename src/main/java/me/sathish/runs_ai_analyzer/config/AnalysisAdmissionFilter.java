@@ -0,0 +1,131 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps concurrent synchronous analyses ({@code POST /analyze}, {@code /analyze/single}
+ * and the streamed {@code /analyze/bulk}).
+ *
+ * <p>With {@code spring.threads.virtual.enabled} Tomcat no longer runs out of worker
+ * threads, so the old implicit bound of {@code server.tomcat.threads.max} in-flight
+ * analyses is gone. This permit pool restores an explicit one: the LLM providers are
+ * protected by {@code LlmAdmissionScheduler}, and this keeps the number of requests
+ * queued behind it, and competing for the Hikari pool on the cache lookup and RAG
+ * write, bounded. Requests that find no permit within
+ * {@code analysis.admission.max-wait-ms} get a 503 with {@code Retry-After}. A bulk
+ * request holds its permit until its result stream ends, not just until the handler
+ * returns.
+ */
+@Component
+@Slf4j
+public class AnalysisAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> GUARDED_PATHS = Set.of(
+            "/api/v1/analysis/analyze",
+            "/api/v1/analysis/analyze/single",
+            "/api/v1/analysis/analyze/bulk");
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    @Value("${analysis.admission.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    @Value("${analysis.admission.retry-after-seconds:15}")
+    private int retryAfterSeconds;
+
+    public AnalysisAdmissionFilter(@Value("${analysis.admission.max-in-flight:256}") int maxInFlight,
+                                   MeterRegistry meterRegistry) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight, true);
+        meterRegistry.gauge("analysis.admission.in.flight", permits, p -> maxInFlight - p.availablePermits());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !GUARDED_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("Rejecting {}: {} analyses already in flight", request.getRequestURI(), maxInFlight);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.getWriter().write("""
+                    {"title":"Analysis Capacity Exhausted","status":503,"detail":"Too many analyses in flight; retry later"}""");
+            return;
+        }
+        boolean streaming = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+                streaming = true;
+            }
+        } finally {
+            if (!streaming) {
+                permits.release();
+            }
+        }
+    }
+
+    /** Releases the permit of an async response once, however the response ends. */
+    private class ReleaseOnCompletion implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.service.GarminEventListener;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional athlete-affinity layout for Garmin event consumption
+ * ({@code rabbitmq.sharding.enabled=true}).
+ *
+ * <p>With several listener threads and replicas, one athlete's events are spread over
+ * every consumer, so per-athlete batching and ordering need cross-node coordination.
+ * With sharding on, {@code AthleteShardRouter} consumes the shared eventstracker queue
+ * and republishes each event to one of {@code rabbitmq.sharding.shards} analyzer-owned
+ * queues, picked by hashing the athlete key. Each shard queue is declared with
+ * {@code x-single-active-consumer} and consumed by exactly one thread per replica, so
+ * exactly one consumer in the cluster sees all of a shard's athletes, in order. The
+ * other replicas stand by and take over if it goes away.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rabbitmq.sharding.enabled", havingValue = "true")
+@Slf4j
+public class AthleteShardingConfiguration {
+
+    public static final String SHARD_EXCHANGE = "x.sathishprojects.garmin.ops.shards";
+    public static final String SHARD_QUEUE_PREFIX = "q.sathishprojects.garmin.ops.events.shard.";
+    public static final String SHARD_ROUTING_KEY_PREFIX = "shard.";
+
+    @Value("${rabbitmq.sharding.shards:4}")
+    private int shards;
+
+    @Value("${rabbitmq.listener.batch-size:50}")
+    private int batchSize;
+
+    @Value("${rabbitmq.listener.receive-timeout-ms:1000}")
+    private long receiveTimeoutMs;
+
+    @Bean
+    public Declarables athleteShardTopology() {
+        DirectExchange exchange = new DirectExchange(SHARD_EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(exchange);
+        for (int shard = 0; shard < shards; shard++) {
+            Queue queue = QueueBuilder.durable(SHARD_QUEUE_PREFIX + shard)
+                    .singleActiveConsumer()
+                    .deadLetterExchange(RabbitMQListenerConfiguration.GARMIN_DLX_EXCHANGE)
+                    .deadLetterRoutingKey(RabbitMQListenerConfiguration.GARMIN_OPS_ROUTING_KEY)
+                    .build();
+            Binding binding = BindingBuilder.bind(queue).to(exchange).with(SHARD_ROUTING_KEY_PREFIX + shard);
+            declarables.add(queue);
+            declarables.add(binding);
+        }
+        log.info("Athlete sharding enabled: {} shard queues on {}", shards, SHARD_EXCHANGE);
+        return new Declarables(declarables);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory shardListenerContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setPrefetchCount(batchSize);
+        // One consumer per shard queue: the shard's events are handled serially
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        return factory;
+    }
+
+    @Bean
+    public RabbitListenerConfigurer athleteShardListeners(SimpleRabbitListenerContainerFactory shardListenerContainerFactory,
+                                                         GarminEventListener garminEventListener) {
+        return registrar -> {
+            for (int shard = 0; shard < shards; shard++) {
+                SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+                endpoint.setId("garmin-athlete-shard-" + shard);
+                endpoint.setQueueNames(SHARD_QUEUE_PREFIX + shard);
+                endpoint.setMessageListener((BatchMessageListener) garminEventListener::handleGarminRunMessages);
+                registrar.registerEndpoint(endpoint, shardListenerContainerFactory);
+            }
+        };
+    }
+}
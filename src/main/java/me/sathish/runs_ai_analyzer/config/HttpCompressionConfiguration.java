@@ -0,0 +1,36 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.server.servlet.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Gzip for JSON responses above {@code server.compression.min-response-size}.
+ *
+ * <p>Analysis documents are mostly LLM prose and compress several-fold. Only
+ * {@code application/json} is compressed: the SSE ({@code text/event-stream}) and
+ * NDJSON streams must reach the client event by event, and Tomcat's gzip would
+ * buffer them. Runs after Boot's own customizer, so these defaults win unless the
+ * {@code server.compression.*} properties override them.
+ */
+@Configuration
+public class HttpCompressionConfiguration {
+
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> jsonCompressionCustomizer(
+            @Value("${server.compression.enabled:true}") boolean enabled,
+            @Value("${server.compression.mime-types:application/json}") String[] mimeTypes,
+            @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        return factory -> {
+            Compression compression = new Compression();
+            compression.setEnabled(enabled);
+            compression.setMimeTypes(mimeTypes);
+            compression.setMinResponseSize(minResponseSize);
+            factory.setCompression(compression);
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rabbitmq.backpressure")
+public class ListenerBackpressureProperties {
+
+    /**
+     * Whether the Garmin listeners are throttled by downstream pressure.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often the pressure signals are sampled.
+     */
+    private long intervalMs = 5000;
+
+    /**
+     * Pending-analysis backlog at or below which consumption may scale back up and a
+     * paused listener resumes.
+     */
+    private long backlogLowWater = 500;
+
+    /**
+     * Pending-analysis backlog at which consumption pauses; further events wait on the broker.
+     */
+    private long backlogHighWater = 5000;
+
+    /**
+     * LLM admission wait above which consumption scales down.
+     */
+    private long llmQueueWaitHighMs = 30_000;
+
+    /**
+     * Share of failed batch analyses per sample above which consumption scales down.
+     */
+    private double errorRateHigh = 0.25;
+
+    /**
+     * Upper bound for prefetch when scaling up. The lower bound is the listener batch size.
+     */
+    private int maxPrefetch = 200;
+}
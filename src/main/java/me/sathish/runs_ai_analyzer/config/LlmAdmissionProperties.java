@@ -0,0 +1,59 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "llm.admission")
+public class LlmAdmissionProperties {
+
+    /**
+     * Longest a call may wait for admission before it fails with AiAnalysisException.
+     */
+    private int maxWaitSeconds = 300;
+
+    /**
+     * Back-off applied to a provider after a rate-limit error without a retry-after header.
+     */
+    private int defaultRetryAfterSeconds = 30;
+
+    /**
+     * Output tokens assumed per call when debiting the tokens-per-minute bucket up front.
+     * The bucket is corrected with the reported usage once the call returns.
+     */
+    private int estimatedOutputTokens = 1500;
+
+    private ProviderLimits anthropic = new ProviderLimits(4, 50, 40_000);
+
+    private ProviderLimits ollama = new ProviderLimits(1, 0, 0);
+
+    @Data
+    public static class ProviderLimits {
+
+        /**
+         * Maximum calls in flight to this provider.
+         */
+        private int maxConcurrency;
+
+        /**
+         * Requests-per-minute budget; 0 disables the limit.
+         */
+        private int requestsPerMinute;
+
+        /**
+         * Tokens-per-minute budget; 0 disables the limit.
+         */
+        private int tokensPerMinute;
+
+        public ProviderLimits() {
+        }
+
+        public ProviderLimits(int maxConcurrency, int requestsPerMinute, int tokensPerMinute) {
+            this.maxConcurrency = maxConcurrency;
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+        }
+    }
+}
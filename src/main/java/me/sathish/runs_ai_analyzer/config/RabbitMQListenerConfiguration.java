@@ -31,6 +31,12 @@ public class RabbitMQListenerConfiguration {
     @Value("${rabbitmq.listener.max-concurrency:5}")
     private int maxConcurrency;
 
+    @Value("${rabbitmq.listener.batch-size:50}")
+    private int batchSize;
+
+    @Value("${rabbitmq.listener.receive-timeout-ms:1000}")
+    private long receiveTimeoutMs;
+
     // No need to create queues - eventstracker already provisions them
     // We just consume from the existing GARMIN_OPS_EVENTS_QUEUE
 
@@ -42,13 +48,21 @@ public class RabbitMQListenerConfiguration {
         factory.setConnectionFactory(connectionFactory);
 
         factory.setMessageConverter(new JacksonJsonMessageConverter());
-        factory.setPrefetchCount(prefetchCount);
+        // Prefetch below the batch size would cap every batch at the prefetch count
+        factory.setPrefetchCount(Math.max(prefetchCount, batchSize));
         factory.setConcurrentConsumers(concurrency);
         factory.setMaxConcurrentConsumers(maxConcurrency);
         factory.setDefaultRequeueRejected(false);
+
+        // Listeners receive up to batchSize messages, or whatever arrived within
+        // receiveTimeoutMs, and the whole batch is acked when the listener returns
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
         
-        log.info("RabbitMQ listener factory configured: prefetch={}, concurrency={}-{}", 
-                prefetchCount, concurrency, maxConcurrency);
+        log.info("RabbitMQ listener factory configured: prefetch={}, concurrency={}-{}, batchSize={}, receiveTimeoutMs={}", 
+                Math.max(prefetchCount, batchSize), concurrency, maxConcurrency, batchSize, receiveTimeoutMs);
         
         return factory;
     }
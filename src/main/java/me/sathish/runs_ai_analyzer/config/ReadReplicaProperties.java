@@ -0,0 +1,41 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReadReplicaProperties {
+
+    /**
+     * Whether read-only transactions are routed to the replica pool.
+     * When false the single spring.datasource pool serves everything.
+     */
+    private boolean enabled = false;
+
+    /**
+     * JDBC URL of the streaming read replica.
+     */
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * Maximum size of the replica connection pool.
+     */
+    private int maximumPoolSize = 10;
+
+    /**
+     * Replication lag in seconds above which reads fall back to the primary.
+     */
+    private double maxLagSeconds = 5.0;
+
+    /**
+     * How often the replica's replay lag is sampled, in milliseconds.
+     */
+    private long lagCheckIntervalMs = 5000;
+}
@@ -0,0 +1,74 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Samples the read replica's replay lag and tells {@link ReplicaRoutingDataSource}
+ * whether the replica may serve reads.
+ *
+ * <p>The replica is considered unusable until the first successful check, whenever
+ * the check fails (replica down, pool exhausted), and whenever the lag exceeds
+ * {@code datasource.replica.max-lag-seconds}. In all those cases reads quietly go to
+ * the primary instead.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // An idle primary makes pg_last_xact_replay_timestamp() look old, so a replica
+    // that has replayed everything it received reports zero lag.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() THEN 0
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+
+    private volatile boolean replicaUsable;
+    private volatile double lastLagSeconds = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, double maxLagSeconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        boolean usable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lastLagSeconds = lag != null ? lag : 0;
+            usable = lastLagSeconds <= maxLagSeconds;
+        } catch (Exception e) {
+            lastLagSeconds = -1;
+            usable = false;
+            log.debug("Replica lag check failed: {}", e.getMessage());
+        }
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica available (lag={}s), routing read-only work to it", lastLagSeconds);
+            } else {
+                log.warn("Read replica unavailable or lagging (lag={}s, max={}s), reads fall back to primary",
+                        lastLagSeconds, maxLagSeconds);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public double getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+}
@@ -0,0 +1,22 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read path that may be served by the read replica.
+ *
+ * <p>Only read-only transactions started while an annotated method runs are routed to
+ * the replica (see {@link ReplicaRoutingDataSource}); every other read, including
+ * Spring Data's implicit read-only repository methods, stays on the primary. Use it for
+ * user-facing lookups that tolerate replica lag, never for job, outbox or processing
+ * log reads that must see writes made a moment earlier.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
@@ -0,0 +1,63 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Routes connections for {@code @Transactional(readOnly = true)} work inside a
+ * {@link ReplicaRead} method to the read replica, and everything else to the primary.
+ *
+ * <p>Must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction manager
+ * opens its connection before the read-only flag is published to
+ * {@link TransactionSynchronizationManager}, so the physical connection has to be
+ * fetched lazily on the first statement for the routing decision to see it.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (Boolean.TRUE.equals(REPLICA_READ.get())
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && lagMonitor.isReplicaUsable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Runs {@code invocation} with replica reads allowed on this thread, restoring the
+     * previous setting afterwards.
+     */
+    static Object withReplicaReads(MethodInvocation invocation) throws Throwable {
+        Boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous == null) {
+                REPLICA_READ.remove();
+            } else {
+                REPLICA_READ.set(previous);
+            }
+        }
+    }
+}
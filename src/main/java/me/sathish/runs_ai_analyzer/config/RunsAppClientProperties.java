@@ -0,0 +1,80 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "runs-app")
+public class RunsAppClientProperties {
+
+    /**
+     * Base URL of the runs-app service.
+     */
+    private String baseUrl = "http://localhost:8080";
+
+    /**
+     * TCP connect timeout for new pooled connections.
+     */
+    private long connectTimeoutMs = 10_000;
+
+    /**
+     * Timeout for each individual HTTP call, including reading the body.
+     */
+    private long requestTimeoutMs = 30_000;
+
+    /**
+     * Most ids sent in one {@code /batch?ids=} call.
+     */
+    private int maxIdsPerRequest = 100;
+
+    /**
+     * Most characters in one request URL; chunks are split further to stay below it.
+     */
+    private int maxUrlLength = 2000;
+
+    /**
+     * Chunks of one fetch requested concurrently.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Attempts per call, including the first, for connection errors, timeouts, 429 and 5xx.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Base of the exponential backoff between attempts; each wait is a random value up to
+     * the exponential bound (full jitter).
+     */
+    private long backoffBaseMs = 200;
+
+    /**
+     * Upper bound for a single backoff wait.
+     */
+    private long backoffMaxMs = 5000;
+
+    private final Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether fetched runs are kept in the local run cache.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Most runs kept; the least recently used are evicted first.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * How long a cached run is served without asking runs-app. Older entries are
+         * revalidated with a conditional request. UPDATED Garmin events evict the run
+         * right away on the consuming instance, and batch analysis always revalidates.
+         */
+        private long freshSeconds = 86_400;
+    }
+}
@@ -0,0 +1,64 @@
+package me.sathish.runs_ai_analyzer.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.DeadLetterReplayStatus;
+import me.sathish.runs_ai_analyzer.service.DeadLetterReplayService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/dlq")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Dead-letter Replay", description = "Admin endpoints for replaying dead-lettered Garmin events")
+public class DeadLetterReplayController {
+
+    private final DeadLetterReplayService replayService;
+
+    @PostMapping("/replay")
+    @Operation(
+            summary = "Start a dead-letter replay",
+            description = "Drains the Garmin DLQ back into the analyzer queue at a controlled rate. Events whose run " +
+                    "is already analyzed are dropped. Poll GET /replay for progress."
+    )
+    @ApiResponse(responseCode = "202", description = "Replay started")
+    @ApiResponse(responseCode = "409", description = "A replay is already running")
+    public ResponseEntity<?> startReplay(
+            @RequestParam(required = false) Long maxMessages,
+            @RequestParam(required = false) Double ratePerSecond) {
+        return replayService.startReplay(maxMessages, ratePerSecond)
+                .<ResponseEntity<?>>map(status -> {
+                    replayService.runReplayAsync(status.getReplayId());
+                    log.info("Accepted DLQ replay {} of up to {} message(s)", status.getReplayId(), status.getLimit());
+                    return ResponseEntity.accepted().body(status);
+                })
+                .orElseGet(() -> ResponseEntity.status(409)
+                        .body(Map.of("message", "A dead-letter replay is already running")));
+    }
+
+    @GetMapping("/replay")
+    @Operation(summary = "Progress of the current or last dead-letter replay")
+    @ApiResponse(responseCode = "200", description = "Replay progress returned")
+    @ApiResponse(responseCode = "404", description = "No replay has run on this instance")
+    public ResponseEntity<DeadLetterReplayStatus> getReplay() {
+        return replayService.currentReplay()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/replay")
+    @Operation(summary = "Cancel the running dead-letter replay after its current batch")
+    @ApiResponse(responseCode = "200", description = "Replay cancelled")
+    @ApiResponse(responseCode = "404", description = "No replay is running")
+    public ResponseEntity<DeadLetterReplayStatus> cancelReplay() {
+        return replayService.cancelReplay()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,29 +1,64 @@
 package me.sathish.runs_ai_analyzer.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.dto.RagSearchRequest;
 import me.sathish.runs_ai_analyzer.dto.RagSearchResponse;
 import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
 import me.sathish.runs_ai_analyzer.service.RagStorageService;
 import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Predicate;
 
+/**
+ * RAG document endpoints.
+ *
+ * <p>{@code RunAnalysisDocument} rows never change after insert, so a document is
+ * served with a strong ETag of {@code "<documentId>-<createdAt base36 millis>"} and a
+ * long private, immutable Cache-Control. The ETag for a document id can only ever
+ * have one value, so an {@code If-None-Match} naming the requested id is answered 304
+ * before touching the database, provided it also names the fieldset this request asks
+ * for. List responses change as documents are added or
+ * archived: they get an ETag over their members' ids and timestamps and must be
+ * revalidated, which saves the body but not the query. All GET endpoints accept
+ * {@code fields=} (see {@link SparseFieldsetAdvice}).
+ */
 @RestController
 @RequestMapping("/api/v1/rag")
-@RequiredArgsConstructor
 @Slf4j
 @Tag(name = "RAG Search", description = "Search and retrieve past run analyses using RAG")
 public class RagSearchController {
 
+    static final String NOT_MODIFIED_METRIC = "rag.http.not.modified";
+
     private final RagStorageService ragStorageService;
+    private final MeterRegistry meterRegistry;
+    private final CacheControl documentCacheControl;
+
+    public RagSearchController(RagStorageService ragStorageService, MeterRegistry meterRegistry,
+                               @Value("${rag.http.document-max-age-days:365}") long documentMaxAgeDays) {
+        this.ragStorageService = ragStorageService;
+        this.meterRegistry = meterRegistry;
+        this.documentCacheControl = CacheControl.maxAge(Duration.ofDays(documentMaxAgeDays))
+                .cachePrivate()
+                .immutable();
+    }
 
     @PostMapping("/search")
     @Operation(
@@ -61,10 +96,12 @@ public class RagSearchController {
     )
     @ApiResponse(responseCode = "200", description = "Recent analyses retrieved")
     public ResponseEntity<List<RunAnalysisDocument>> getRecentAnalyses(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(value = SparseFieldsetAdvice.FIELDS_PARAM, required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Fetching {} most recent analyses", limit);
         List<RunAnalysisDocument> recent = ragStorageService.getRecentAnalyses(limit);
-        return ResponseEntity.ok(recent);
+        return conditionalList(recent, fields, ifNoneMatch);
     }
 
     @GetMapping("/document/{documentId}")
@@ -73,12 +110,27 @@ public class RagSearchController {
             description = "Retrieve a specific run analysis by its document ID"
     )
     @ApiResponse(responseCode = "200", description = "Document found")
+    @ApiResponse(responseCode = "304", description = "Client copy is current")
     @ApiResponse(responseCode = "404", description = "Document not found")
     public ResponseEntity<RunAnalysisDocument> getAnalysisByDocumentId(
-            @PathVariable UUID documentId) {
+            @PathVariable UUID documentId,
+            @RequestParam(value = SparseFieldsetAdvice.FIELDS_PARAM, required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String cachedTag = findTag(ifNoneMatch, tag -> isCurrentDocumentTag(tag, documentId, fields));
+        if (cachedTag != null) {
+            recordNotModified("document", "skipped");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cachedTag)
+                    .cacheControl(documentCacheControl)
+                    .build();
+        }
+
         log.info("Fetching analysis document: {}", documentId);
         return ragStorageService.findByDocumentId(documentId)
-                .map(ResponseEntity::ok)
+                .map(document -> ResponseEntity.ok()
+                        .eTag(documentETag(document.getDocumentId(), document.getCreatedAt()))
+                        .cacheControl(documentCacheControl)
+                        .body(document))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -89,10 +141,12 @@ public class RagSearchController {
     )
     @ApiResponse(responseCode = "200", description = "Analyses found")
     public ResponseEntity<List<RunAnalysisDocument>> findByActivityId(
-            @PathVariable String activityId) {
+            @PathVariable String activityId,
+            @RequestParam(value = SparseFieldsetAdvice.FIELDS_PARAM, required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Searching analyses containing activity: {}", activityId);
         List<RunAnalysisDocument> analyses = ragStorageService.findAnalysesByActivityId(activityId);
-        return ResponseEntity.ok(analyses);
+        return conditionalList(analyses, fields, ifNoneMatch);
     }
 
     @GetMapping("/distance")
@@ -102,9 +156,86 @@ public class RagSearchController {
     )
     @ApiResponse(responseCode = "200", description = "Analyses found")
     public ResponseEntity<List<RunAnalysisDocument>> findByMinimumDistance(
-            @RequestParam Double minDistanceKm) {
+            @RequestParam Double minDistanceKm,
+            @RequestParam(value = SparseFieldsetAdvice.FIELDS_PARAM, required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Searching analyses with minimum distance: {} km", minDistanceKm);
         List<RunAnalysisDocument> analyses = ragStorageService.findAnalysesByMinimumDistance(minDistanceKm);
-        return ResponseEntity.ok(analyses);
+        return conditionalList(analyses, fields, ifNoneMatch);
+    }
+
+    private ResponseEntity<List<RunAnalysisDocument>> conditionalList(List<RunAnalysisDocument> documents,
+                                                                      String fields, String ifNoneMatch) {
+        String etag = listETag(documents);
+        CacheControl revalidate = CacheControl.noCache().cachePrivate();
+        String expectedTag = SparseFieldsetAdvice.fieldsetTag(etag, fields);
+        String cachedTag = findTag(ifNoneMatch, expectedTag::equals);
+        if (cachedTag != null) {
+            recordNotModified("list", "read");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cachedTag).cacheControl(revalidate).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(revalidate).body(documents);
+    }
+
+    private void recordNotModified(String resource, String database) {
+        meterRegistry.counter(NOT_MODIFIED_METRIC, "resource", resource, "database", database).increment();
+    }
+
+    static String documentETag(UUID documentId, LocalDateTime createdAt) {
+        return "\"" + documentId + "-" + Long.toString(createdAt.toInstant(ZoneOffset.UTC).toEpochMilli(), 36) + "\"";
+    }
+
+    static String listETag(List<RunAnalysisDocument> documents) {
+        StringBuilder members = new StringBuilder();
+        for (RunAnalysisDocument document : documents) {
+            members.append(document.getDocumentId()).append('@').append(document.getCreatedAt()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(members.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Returns the first entity tag in an {@code If-None-Match} header accepted by
+     * {@code matcher}, or null. Uses the weak comparison RFC 9110 prescribes for
+     * If-None-Match, so a {@code W/} prefix added by an intermediary still matches.
+     */
+    static String findTag(String ifNoneMatch, Predicate<String> matcher) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"") && matcher.test(tag)) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether {@code tag} is the ETag this request would be served with: a document
+     * tag for {@code documentId}, carrying the fieldset suffix for {@code fields} and
+     * nothing else. The createdAt part cannot be checked without a query, but must be
+     * well formed.
+     */
+    static boolean isCurrentDocumentTag(String tag, UUID documentId, String fields) {
+        String base = SparseFieldsetAdvice.baseTag(tag);
+        return documentId.equals(documentIdOf(base)) && tag.equals(SparseFieldsetAdvice.fieldsetTag(base, fields));
+    }
+
+    /** Parses a full-representation document ETag, or returns null if {@code tag} is not one. */
+    static UUID documentIdOf(String tag) {
+        int separator = tag.lastIndexOf('-');
+        if (separator < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        try {
+            Long.parseLong(tag.substring(separator + 1, tag.length() - 1), 36);
+            return UUID.fromString(tag.substring(1, separator));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
@@ -1,23 +1,38 @@
 package me.sathish.runs_ai_analyzer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.BulkRunAnalysisRequest;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisRequest;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
 import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
 import me.sathish.runs_ai_analyzer.service.AnalysisJobService;
+import me.sathish.runs_ai_analyzer.service.RunAnalysisBulkService;
 import me.sathish.runs_ai_analyzer.service.RunAnalysisService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/analysis")
@@ -28,6 +43,17 @@ public class RunAnalysisController {
 
     private final RunAnalysisService runAnalysisService;
     private final AnalysisJobService analysisJobService;
+    private final RunAnalysisBulkService bulkService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${analysis.jobs.events.timeout-ms:300000}")
+    private long jobEventsTimeoutMs;
+
+    @Value("${analysis.bulk.max-items:100}")
+    private int bulkMaxItems;
+
+    @Value("${analysis.bulk.timeout-ms:600000}")
+    private long bulkTimeoutMs;
 
     @PostMapping("/analyze")
     @Operation(
@@ -47,6 +73,60 @@ public class RunAnalysisController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/analyze/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Analyze many run sets in one call",
+            description = "Each item is analyzed independently with bounded parallelism. Results stream back as " +
+                    "NDJSON, one line per item in completion order, tagged with the item's correlationId. " +
+                    "A failed item yields a line with status FAILED and does not affect the others."
+    )
+    @ApiResponse(responseCode = "200", description = "Result stream opened")
+    @ApiResponse(responseCode = "400", description = "Invalid request, too many items or duplicate correlationIds")
+    public ResponseEntity<?> analyzeRunsBulk(@Valid @RequestBody BulkRunAnalysisRequest request) {
+        List<BulkRunAnalysisRequest.Item> items = request.getItems();
+        if (items.size() > bulkMaxItems) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + bulkMaxItems + " items per request, got " + items.size()));
+        }
+        Set<String> correlationIds = items.stream()
+                .map(BulkRunAnalysisRequest.Item::getCorrelationId)
+                .collect(Collectors.toSet());
+        if (correlationIds.size() != items.size()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "correlationId must be unique per item"));
+        }
+
+        log.info("Received bulk analysis request for {} item(s)", items.size());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkTimeoutMs);
+        AtomicBoolean clientGone = new AtomicBoolean();
+        CompletableFuture<Void> analysis = bulkService.analyzeAll(items, result -> {
+            if (clientGone.get()) {
+                return;
+            }
+            try {
+                emitter.send(objectMapper.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Bulk analysis client went away: {}", e.getMessage());
+                clientGone.set(true);
+                // Makes the bulk service drop the items that have not started
+                throw new IllegalStateException("Bulk analysis client went away", e);
+            }
+        });
+        emitter.onTimeout(() -> {
+            clientGone.set(true);
+            analysis.cancel(false);
+        });
+        emitter.onError(error -> {
+            clientGone.set(true);
+            analysis.cancel(false);
+        });
+        analysis.whenComplete((done, error) -> {
+            if (!clientGone.get()) {
+                emitter.complete();
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
     @PostMapping("/check")
     @Operation(
             summary = "Check if data contains running activities",
@@ -72,19 +152,19 @@ public class RunAnalysisController {
     @PostMapping("/analyze/async")
     @Operation(
             summary = "Submit run analysis asynchronously",
-            description = "Immediately returns a jobId. Poll /analyze/status/{jobId} to check progress, then fetch result from /analyze/result/{jobId}."
+            description = "Immediately returns a jobId. Subscribe to /analyze/events/{jobId} to receive the result " +
+                    "as soon as it is ready, or poll /analyze/status/{jobId} and fetch /analyze/result/{jobId}."
     )
     @ApiResponse(responseCode = "202", description = "Analysis job accepted")
     @ApiResponse(responseCode = "400", description = "Invalid request data")
     public ResponseEntity<Map<String, Object>> analyzeRunsAsync(
             @Valid @RequestBody RunAnalysisRequest request) {
-        AnalysisJob job = analysisJobService.createJob();
+        AnalysisJob job = analysisJobService.createJob(request.getRuns(), request.isForceRefresh());
         log.info("Accepted async analysis job={} for {} run(s)", job.getId(), request.getRuns().size());
-        analysisJobService.runAnalysisAsync(job.getId(), request.getRuns(), request.isForceRefresh());
         return ResponseEntity.accepted().body(Map.of(
                 "jobId", job.getId(),
                 "status", job.getStatus(),
-                "message", "Analysis started. Poll /api/v1/analysis/analyze/status/" + job.getId() + " for progress."
+                "message", "Analysis started. Subscribe to /api/v1/analysis/analyze/events/" + job.getId() + " for the result."
         ));
     }
 
@@ -108,14 +188,20 @@ public class RunAnalysisController {
     }
 
     @GetMapping("/analyze/result/{jobId}")
-    @Operation(summary = "Fetch completed async analysis result")
+    @Operation(
+            summary = "Fetch completed async analysis result",
+            description = "Use fields= (e.g. fields=summary,metrics) to return only some properties. " +
+                    "rawAnalysis is read from the stored analysis document only when requested."
+    )
     @ApiResponse(responseCode = "200", description = "Analysis result returned")
     @ApiResponse(responseCode = "404", description = "Job not found")
     @ApiResponse(responseCode = "409", description = "Job not yet completed")
-    public ResponseEntity<?> getAnalysisResult(@PathVariable UUID jobId) {
+    public ResponseEntity<?> getAnalysisResult(@PathVariable UUID jobId,
+                                               @RequestParam(required = false) String fields) {
+        boolean includeRawAnalysis = SparseFieldsetAdvice.includes(fields, "rawAnalysis");
         return analysisJobService.getJob(jobId)
                 .map(job -> switch (job.getStatus()) {
-                    case DONE -> ResponseEntity.ok(job.getResult());
+                    case DONE -> ResponseEntity.ok(analysisJobService.resolveResult(job, includeRawAnalysis));
                     case FAILED -> ResponseEntity.status(500)
                             .body(Map.of("error", job.getErrorMessage() != null ? job.getErrorMessage() : "Analysis failed"));
                     default -> ResponseEntity.status(409)
@@ -124,6 +210,74 @@ public class RunAnalysisController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/analyze/events/{jobId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream async analysis completion",
+            description = "Server-sent events: a 'status' event on subscribe, then a single 'result' event " +
+                    "(DONE) or 'error' event (FAILED) as soon as the job finishes, after which the stream closes. " +
+                    "If the job is still running when the stream times out, a 'timeout' event is sent; resubscribe."
+    )
+    @ApiResponse(responseCode = "200", description = "Event stream opened")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    public ResponseEntity<SseEmitter> streamAnalysisEvents(@PathVariable UUID jobId,
+                                                           @RequestParam(required = false) String fields) {
+        Optional<AnalysisJob> current = analysisJobService.getJob(jobId);
+        if (current.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(jobEventsTimeoutMs + 5000);
+        AnalysisJob job = current.get();
+        if (job.getStatus().isTerminal()) {
+            sendOutcome(emitter, job, fields);
+            return ResponseEntity.ok(emitter);
+        }
+
+        try {
+            emitter.send(SseEmitter.event().name("status").data(Map.of("jobId", jobId, "status", job.getStatus())));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+        CompletableFuture<AnalysisJob> completion =
+                analysisJobService.awaitCompletion(jobId, Duration.ofMillis(jobEventsTimeoutMs));
+        emitter.onCompletion(() -> completion.cancel(false));
+        emitter.onTimeout(() -> completion.cancel(false));
+        emitter.onError(error -> completion.cancel(false));
+        completion.whenComplete((done, error) -> {
+            if (done != null) {
+                sendOutcome(emitter, done, fields);
+            } else if (error instanceof TimeoutException) {
+                sendAndComplete(emitter, "timeout", Map.of("jobId", jobId, "message", "Job still running, resubscribe"));
+            } else if (!completion.isCancelled()) {
+                log.warn("Failed waiting for jobId={}: {}", jobId, error.getMessage());
+                emitter.completeWithError(error);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void sendOutcome(SseEmitter emitter, AnalysisJob job, String fields) {
+        if (job.getStatus() == AnalysisJob.Status.DONE) {
+            RunAnalysisResponse result = analysisJobService.resolveResult(job,
+                    SparseFieldsetAdvice.includes(fields, "rawAnalysis"));
+            sendAndComplete(emitter, "result", SparseFieldsetAdvice.trim(objectMapper, result, fields));
+        } else {
+            sendAndComplete(emitter, "error", Map.of("jobId", job.getId(),
+                    "error", job.getErrorMessage() != null ? job.getErrorMessage() : "Analysis failed"));
+        }
+    }
+
+    private static void sendAndComplete(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already timed out
+            emitter.completeWithError(e);
+        }
+    }
+
     @PostMapping("/analyze/single")
     @Operation(
             summary = "Analyze a single run",
@@ -1,5 +1,6 @@
 package me.sathish.runs_ai_analyzer.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -7,17 +8,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.ReplicaRead;
 import me.sathish.runs_ai_analyzer.config.RabbitMQConfiguration;
 import me.sathish.runs_ai_analyzer.dto.RunJournalEntryRequest;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent.WireFormat;
 import me.sathish.runs_ai_analyzer.entity.RunJournalEntry;
 import me.sathish.runs_ai_analyzer.repository.RunJournalEntryRepository;
-import org.springframework.amqp.core.Message;
-import org.springframework.amqp.core.MessageBuilder;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import me.sathish.runs_ai_analyzer.service.OutboxService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,7 +39,7 @@ import java.util.Map;
 public class RunJournalController {
 
     private final RunJournalEntryRepository journalRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxService outboxService;
     private final ObjectMapper objectMapper;
 
     @PostMapping
@@ -46,6 +47,7 @@ public class RunJournalController {
             description = "Records a subjective entry. Embedded into the vector store by the next sweep.")
     @ApiResponse(responseCode = "200", description = "Entry created")
     @ApiResponse(responseCode = "400", description = "Invalid request data")
+    @Transactional
     public ResponseEntity<RunJournalEntry> create(@Valid @RequestBody RunJournalEntryRequest request) {
         RunJournalEntry entry = RunJournalEntry.builder()
                 .activityId(request.getActivityId())
@@ -69,6 +71,7 @@ public class RunJournalController {
             description = "Updates an entry and resets it for re-embedding by the next sweep.")
     @ApiResponse(responseCode = "200", description = "Entry updated")
     @ApiResponse(responseCode = "404", description = "Entry not found")
+    @Transactional
     public ResponseEntity<RunJournalEntry> update(@PathVariable Long id,
                                                   @Valid @RequestBody RunJournalEntryRequest request) {
         return journalRepository.findById(id)
@@ -103,6 +106,7 @@ public class RunJournalController {
     @GetMapping("/recent")
     @Operation(summary = "Get recent journal entries", description = "Most recent entries, newest first.")
     @ApiResponse(responseCode = "200", description = "Entries retrieved")
+    @ReplicaRead
     public ResponseEntity<List<RunJournalEntry>> getRecent() {
         return ResponseEntity.ok(journalRepository.findTop20ByOrderByEntryDateDesc());
     }
@@ -111,6 +115,7 @@ public class RunJournalController {
     @Operation(summary = "Get journal entries for a run",
             description = "All entries attached to a given Garmin activity id.")
     @ApiResponse(responseCode = "200", description = "Entries retrieved")
+    @ReplicaRead
     public ResponseEntity<List<RunJournalEntry>> getByActivity(@PathVariable String activityId) {
         return ResponseEntity.ok(journalRepository.findByActivityIdOrderByEntryDateDesc(activityId));
     }
@@ -119,6 +124,7 @@ public class RunJournalController {
     @Operation(summary = "Delete a journal entry")
     @ApiResponse(responseCode = "204", description = "Entry deleted")
     @ApiResponse(responseCode = "404", description = "Entry not found")
+    @Transactional
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         return journalRepository.findById(id)
                 .map(entry -> {
@@ -131,28 +137,23 @@ public class RunJournalController {
     }
 
     /**
-     * Publishes a journal event to the Garmin API exchange so EventsTracker
-     * picks it up from q.sathishprojects.garmin.api.events for auditing.
+     * Records a journal event in the outbox, in the same transaction as the entry change.
+     * {@code OutboxRelay} publishes it to the Garmin API exchange so EventsTracker picks
+     * it up from q.sathishprojects.garmin.api.events for auditing.
      */
     private void publishJournalEvent(RunJournalEntry entry, String eventType) {
         try {
             Map<String, Object> payload = buildJournalPayload(entry, eventType);
             publishToGarminApiQueue(payload);
-            log.debug("Published {} event for journal entry id={}", eventType, entry.getId());
-        } catch (Exception e) {
-            log.error("Failed to publish {} event for journal entry id={}: {}",
+            log.debug("Recorded {} event for journal entry id={}", eventType, entry.getId());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize {} event for journal entry id={}: {}",
                     eventType, entry.getId(), e.getMessage());
         }
     }
 
     private void publishDeleteEvent(RunJournalEntry entry) {
-        try {
-            Map<String, Object> payload = buildJournalPayload(entry, "JOURNAL_ENTRY_DELETED");
-            publishToGarminApiQueue(payload);
-            log.debug("Published JOURNAL_ENTRY_DELETED event for id={}", entry.getId());
-        } catch (Exception e) {
-            log.error("Failed to publish JOURNAL_ENTRY_DELETED event for id={}: {}", entry.getId(), e.getMessage());
-        }
+        publishJournalEvent(entry, "JOURNAL_ENTRY_DELETED");
     }
 
     /**
@@ -169,14 +170,16 @@ public class RunJournalController {
      * and fails deserializing it. Confirmed live against eventstracker on 2026-08-17 (same root
      * cause as runs-app's GarminCsvImportService.publishGarminEvent incident); this bypass approach
      * was verified live to land correctly in eventstracker's domain_event table.
+     *
+     * <p>The outbox row is stored as {@link WireFormat#RAW_JSON}, which makes the relay build
+     * exactly that Message from the stored bytes.
      */
-    private void publishToGarminApiQueue(Object payload) throws Exception {
-        byte[] body = objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
-        Message message = MessageBuilder.withBody(body)
-                .setContentType("application/json")
-                .setContentEncoding(StandardCharsets.UTF_8.name())
-                .build();
-        rabbitTemplate.send(RabbitMQConfiguration.GARMIN_EXCHANGE, RabbitMQConfiguration.GARMIN_API_ROUTING_KEY, message);
+    private void publishToGarminApiQueue(Object payload) throws JsonProcessingException {
+        outboxService.append(
+                RabbitMQConfiguration.GARMIN_EXCHANGE,
+                RabbitMQConfiguration.GARMIN_API_ROUTING_KEY,
+                WireFormat.RAW_JSON,
+                objectMapper.writeValueAsString(payload));
     }
 
     private Map<String, Object> buildJournalPayload(RunJournalEntry entry, String eventType) {
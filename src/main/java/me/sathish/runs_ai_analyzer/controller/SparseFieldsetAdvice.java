@@ -0,0 +1,176 @@
+package me.sathish.runs_ai_analyzer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Sparse fieldsets: {@code ?fields=summary,metrics.totalRuns} trims a JSON response to
+ * the listed properties.
+ *
+ * <p>Paths are dot-separated and apply to each element when the body is an array, so
+ * one parameter works for single resources and lists alike. Unknown names are
+ * ignored. Error responses are never trimmed. A trimmed response is a different
+ * representation, so its ETag gets a suffix identifying the fieldset; controllers
+ * answering 304 compare against {@link #fieldsetTag(String, String)} for the request.
+ */
+@RestControllerAdvice(assignableTypes = {RunAnalysisController.class, RagSearchController.class})
+@RequiredArgsConstructor
+public class SparseFieldsetAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String FIELDS_PARAM = "fields";
+    private static final String FIELDSET_TAG_SEPARATOR = ".f";
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || body instanceof String || !MediaType.APPLICATION_JSON.isCompatibleWith(selectedContentType)
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(FIELDS_PARAM);
+        if (fields == null || fields.isBlank()) {
+            return body;
+        }
+        if (response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() >= 300) {
+            return body;
+        }
+
+        Map<String, Object> paths = parse(fields);
+        if (paths.isEmpty()) {
+            return body;
+        }
+        String etag = response.getHeaders().getETag();
+        if (etag != null) {
+            response.getHeaders().set(HttpHeaders.ETAG, fieldsetTag(etag, paths));
+        }
+        return trim(objectMapper, body, paths);
+    }
+
+    /**
+     * Trims {@code body} to {@code fields}, for responses that bypass message
+     * converters such as server-sent events. Returns {@code body} unchanged when no
+     * fields are requested.
+     */
+    static Object trim(ObjectMapper objectMapper, Object body, String fields) {
+        if (body == null || fields == null || fields.isBlank()) {
+            return body;
+        }
+        Map<String, Object> paths = parse(fields);
+        return paths.isEmpty() ? body : trim(objectMapper, body, paths);
+    }
+
+    private static Object trim(ObjectMapper objectMapper, Object body, Map<String, Object> paths) {
+        JsonNode trimmed = retain(objectMapper.valueToTree(body), paths);
+        // Hand plain maps and lists to whichever JSON converter is selected
+        return objectMapper.convertValue(trimmed, Object.class);
+    }
+
+    /**
+     * Whether a response trimmed to {@code fields} would contain {@code property}
+     * (a top-level name). Lets a controller skip loading data nobody asked for.
+     */
+    static boolean includes(String fields, String property) {
+        if (fields == null || fields.isBlank()) {
+            return true;
+        }
+        Map<String, Object> paths = parse(fields);
+        return paths.isEmpty() || paths.containsKey(property);
+    }
+
+    /**
+     * Strips the fieldset suffix this advice appends, giving the ETag of the full
+     * representation.
+     */
+    static String baseTag(String tag) {
+        int suffix = tag.lastIndexOf(FIELDSET_TAG_SEPARATOR);
+        return suffix < 0 ? tag : tag.substring(0, suffix) + "\"";
+    }
+
+    /**
+     * The ETag a response tagged {@code etag} is sent with once trimmed to
+     * {@code fields}: {@code etag} itself when no fields are requested.
+     */
+    static String fieldsetTag(String etag, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return etag;
+        }
+        Map<String, Object> paths = parse(fields);
+        return paths.isEmpty() ? etag : fieldsetTag(etag, paths);
+    }
+
+    /** Parses dotted paths into a tree; an empty subtree means "the whole property". */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parse(String fields) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        for (String path : fields.split(",")) {
+            Map<String, Object> level = root;
+            for (String name : path.trim().split("\\.")) {
+                if (name.isBlank()) {
+                    break;
+                }
+                level = (Map<String, Object>) level.computeIfAbsent(name.trim(), key -> new LinkedHashMap<>());
+            }
+        }
+        return root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static JsonNode retain(JsonNode node, Map<String, Object> paths) {
+        if (paths.isEmpty()) {
+            return node;
+        }
+        if (node instanceof ArrayNode array) {
+            array.forEach(element -> retain(element, paths));
+        } else if (node instanceof ObjectNode object) {
+            object.retain(paths.keySet());
+            for (Map.Entry<String, JsonNode> property : object.properties()) {
+                retain(property.getValue(), (Map<String, Object>) paths.get(property.getKey()));
+            }
+        }
+        return node;
+    }
+
+    private static String fieldsetTag(String etag, Map<String, Object> paths) {
+        CRC32 crc = new CRC32();
+        crc.update(canonical(paths).getBytes(StandardCharsets.UTF_8));
+        String base = etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) : etag;
+        return base + FIELDSET_TAG_SEPARATOR + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String canonical(Map<String, Object> paths) {
+        StringBuilder out = new StringBuilder();
+        for (String name : new TreeSet<>(paths.keySet())) {
+            out.append(name).append('(').append(canonical((Map<String, Object>) paths.get(name))).append(')');
+        }
+        return out.toString();
+    }
+}
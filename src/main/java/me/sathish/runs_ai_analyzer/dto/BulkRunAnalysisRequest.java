@@ -0,0 +1,47 @@
+package me.sathish.runs_ai_analyzer.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRunAnalysisRequest {
+
+    @NotEmpty(message = "At least one item is required")
+    @Valid
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        /**
+         * Client-chosen id echoed on the matching result line. Must be unique within
+         * the request.
+         */
+        @NotBlank(message = "correlationId is required")
+        private String correlationId;
+
+        @NotEmpty(message = "At least one run data entry is required")
+        @Valid
+        private List<GarminRunDataDTO> runs;
+
+        @Builder.Default
+        private Boolean forceRefresh = false;
+
+        public boolean isForceRefresh() {
+            return forceRefresh != null && forceRefresh;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package me.sathish.runs_ai_analyzer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON stream returned by {@code POST /analyze/bulk}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkRunAnalysisResult {
+
+    private String correlationId;
+    private Status status;
+    private RunAnalysisResponse result;
+    private String error;
+    private long durationMs;
+
+    public enum Status {
+        OK, FAILED
+    }
+}
@@ -0,0 +1,37 @@
+package me.sathish.runs_ai_analyzer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayStatus {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private UUID replayId;
+    private State state;
+    private long limit;
+    private double ratePerSecond;
+    private long examined;
+    private long requeued;
+    private long skippedCompleted;
+    private long skippedNotProcessable;
+    private long keptUnreadable;
+    private boolean waitingForBacklog;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String errorMessage;
+}
@@ -44,4 +44,10 @@ public class GarminRunDataDTO {
 
     @Pattern(regexp = "^\\d+$", message = "Calories must be a valid integer")
     private String calories;
+
+    /**
+     * When runs-app last created or changed the run (ISO local date-time). Drives the
+     * reconciliation sync watermark; absent from older runs-app versions.
+     */
+    private String updatedAt;
 }
@@ -5,11 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -36,6 +38,17 @@ public class AnalysisJob {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "result", columnDefinition = "jsonb")
     private RunAnalysisResponse result;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "request_payload", columnDefinition = "jsonb")
+    private List<GarminRunDataDTO> runs;
+    @Column(name = "force_refresh", nullable = false)
+    private boolean forceRefresh;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
 
     @PrePersist
     protected void onCreate() {
@@ -50,6 +63,10 @@ public class AnalysisJob {
     }
 
     public enum Status {
-        PENDING, PROCESSING, DONE, FAILED
+        PENDING, PROCESSING, DONE, FAILED;
+
+        public boolean isTerminal() {
+            return this == DONE || this == FAILED;
+        }
     }
 }
@@ -5,12 +5,20 @@ import lombok.*;
 
 import java.time.LocalDateTime;
 
+/**
+ * Idempotency and reconciliation record for one Garmin event.
+ *
+ * <p>In Postgres the table is range-partitioned by {@code created_at} month
+ * (migration V002); {@code ProcessingLogPartitionService} keeps partitions ahead
+ * of the clock and drops expired ones. Uniqueness of (activityId, databaseId) is kept
+ * by {@code analysis_processing_log_key} (migration V010), see {@code insertAll}.
+ */
 @Entity
 @Table(name = "analysis_processing_log", 
        indexes = {
-           @Index(name = "idx_activity_id", columnList = "activityId"),
-           @Index(name = "idx_processing_status", columnList = "processingStatus"),
-           @Index(name = "idx_created_at", columnList = "createdAt")
+           @Index(name = "idx_processing_log_activity_id", columnList = "activityId"),
+           @Index(name = "idx_processing_log_status_created_at", columnList = "processingStatus, createdAt"),
+           @Index(name = "idx_processing_log_created_at", columnList = "createdAt")
        })
 @Getter
 @Setter
@@ -0,0 +1,59 @@
+package me.sathish.runs_ai_analyzer.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbound RabbitMQ message, written in the same transaction as the change it
+ * announces and published later by {@code OutboxRelay} (migration V006).
+ */
+@Entity
+@Table(name = "outbox_event")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private WireFormat wireFormat;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    public enum WireFormat {
+        /** Payload JSON is the message body, byte for byte. */
+        RAW_JSON,
+        /** Payload string is handed to RabbitTemplate's message converter. */
+        CONVERTED
+    }
+}
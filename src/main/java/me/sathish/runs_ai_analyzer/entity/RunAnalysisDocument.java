@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import me.sathish.runs_ai_analyzer.dto.AiStructuredAnalysis;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse.PerformanceMetrics;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -46,6 +48,17 @@ public class RunAnalysisDocument {
     @Column(name = "total_distance_km")
     private Double totalDistanceKm;
 
+    /**
+     * Parsed AI output, stored as typed JSONB so a cache hit maps it back without coercion.
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "structured_analysis", columnDefinition = "jsonb")
+    private AiStructuredAnalysis structuredAnalysis;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "performance_metrics", columnDefinition = "jsonb")
+    private PerformanceMetrics performanceMetrics;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "metadata", columnDefinition = "jsonb")
     private Map<String, Object> metadata;
@@ -0,0 +1,80 @@
+package me.sathish.runs_ai_analyzer.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.sathish.runs_ai_analyzer.dto.AiStructuredAnalysis;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse.PerformanceMetrics;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cold-tier copy of a {@link RunAnalysisDocument} that has aged past the RAG cache TTL.
+ *
+ * <p>Keeps the original {@code id} and {@code documentId} so references held elsewhere
+ * (processing logs, job results) still resolve. The two large text columns are stored
+ * deflate-compressed; {@code AnalysisArchiveService} inflates them on read.
+ */
+@Entity
+@Table(name = "run_analysis_document_archive")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunAnalysisDocumentArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "document_id", nullable = false, unique = true)
+    private UUID documentId;
+
+    @Column(name = "activity_ids", nullable = false, columnDefinition = "TEXT")
+    private String activityIds;
+
+    @Column(name = "query_text_compressed", nullable = false)
+    private byte[] queryTextCompressed;
+
+    @Column(name = "analysis_content_compressed", nullable = false)
+    private byte[] analysisContentCompressed;
+
+    @Column(name = "summary", columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "total_runs")
+    private Integer totalRuns;
+
+    @Column(name = "total_distance_km")
+    private Double totalDistanceKm;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "structured_analysis", columnDefinition = "jsonb")
+    private AiStructuredAnalysis structuredAnalysis;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "performance_metrics", columnDefinition = "jsonb")
+    private PerformanceMetrics performanceMetrics;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "metadata", columnDefinition = "jsonb")
+    private Map<String, Object> metadata;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (archivedAt == null) {
+            archivedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package me.sathish.runs_ai_analyzer.exception;
+
+public class RunsAppClientException extends RuntimeException {
+
+    public RunsAppClientException(String message) {
+        super(message);
+    }
+
+    public RunsAppClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
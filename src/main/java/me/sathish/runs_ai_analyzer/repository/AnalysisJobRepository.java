@@ -1,9 +1,77 @@
 package me.sathish.runs_ai_analyzer.repository;
 
+import jakarta.persistence.LockModeType;
 import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, UUID> {
+
+    /**
+     * Locks the oldest PENDING jobs. Rows locked by another worker are skipped, so
+     * instances never claim the same job.
+     */
+    @Query(value = """
+            SELECT *
+            FROM analysis_job
+            WHERE status = 'PENDING'
+            ORDER BY created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<AnalysisJob> lockPendingBatch(@Param("limit") int limit);
+
+    /**
+     * Locks PROCESSING jobs whose lease ran out without being renewed.
+     */
+    @Query(value = """
+            SELECT *
+            FROM analysis_job
+            WHERE status = 'PROCESSING'
+              AND lease_expires_at < :now
+            ORDER BY lease_expires_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<AnalysisJob> lockExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Locks PROCESSING jobs leased by an earlier run of this instance, which cannot
+     * still be working on them. {@code starts_with} rather than {@code LIKE}, so the
+     * instance id needs no escaping.
+     */
+    @Query(value = """
+            SELECT *
+            FROM analysis_job
+            WHERE status = 'PROCESSING'
+              AND starts_with(lease_owner, :ownerPrefix)
+              AND lease_owner <> :currentOwner
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<AnalysisJob> lockLeasedByInstanceBatch(@Param("ownerPrefix") String ownerPrefix,
+                                                @Param("currentOwner") String currentOwner,
+                                                @Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM AnalysisJob j WHERE j.id = :id")
+    Optional<AnalysisJob> lockById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("""
+            UPDATE AnalysisJob j SET j.leaseExpiresAt = :leaseExpiresAt
+            WHERE j.id IN :ids AND j.leaseOwner = :owner AND j.status = me.sathish.runs_ai_analyzer.entity.AnalysisJob.Status.PROCESSING
+            """)
+    int renewLeases(@Param("ids") Collection<UUID> ids,
+                    @Param("owner") String owner,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
 }
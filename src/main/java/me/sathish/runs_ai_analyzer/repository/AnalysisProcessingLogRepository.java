@@ -12,23 +12,32 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AnalysisProcessingLogRepository extends JpaRepository<AnalysisProcessingLog, Long> {
+public interface AnalysisProcessingLogRepository extends JpaRepository<AnalysisProcessingLog, Long>,
+        AnalysisProcessingLogRepositoryCustom {
 
     Optional<AnalysisProcessingLog> findByActivityIdAndDatabaseId(String activityId, Long databaseId);
 
     List<AnalysisProcessingLog> findByProcessingStatusOrderByCreatedAtAsc(ProcessingStatus status);
 
+    /**
+     * The {@code createdAfter} bound lets Postgres prune the monthly partitions
+     * of {@code analysis_processing_log} down to the recent ones.
+     */
     @Query("SELECT a FROM AnalysisProcessingLog a WHERE a.processingStatus = :status " +
+           "AND a.createdAt >= :createdAfter " +
            "AND a.retryCount < :maxRetries " +
            "AND (a.lastRetryAt IS NULL OR a.lastRetryAt < :retryThreshold) " +
            "ORDER BY a.createdAt ASC")
     List<AnalysisProcessingLog> findRetryableFailed(
             @Param("status") ProcessingStatus status,
             @Param("maxRetries") int maxRetries,
-            @Param("retryThreshold") LocalDateTime retryThreshold);
+            @Param("retryThreshold") LocalDateTime retryThreshold,
+            @Param("createdAfter") LocalDateTime createdAfter);
 
-    @Query("SELECT COUNT(a) FROM AnalysisProcessingLog a WHERE a.processingStatus = :status")
-    long countByStatus(@Param("status") ProcessingStatus status);
+    @Query("SELECT COUNT(a) FROM AnalysisProcessingLog a WHERE a.processingStatus = :status " +
+           "AND a.createdAt >= :createdAfter")
+    long countByStatus(@Param("status") ProcessingStatus status,
+                       @Param("createdAfter") LocalDateTime createdAfter);
 
     List<AnalysisProcessingLog> findByActivityIdIn(List<String> activityIds);
 }
@@ -0,0 +1,17 @@
+package me.sathish.runs_ai_analyzer.repository;
+
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+
+import java.util.List;
+
+public interface AnalysisProcessingLogRepositoryCustom {
+
+    /**
+     * Inserts all logs in one statement, skipping logs whose activity id and database
+     * id already have a log, including one inserted concurrently by another consumer.
+     * Generated ids are not written back to the entities.
+     *
+     * @return the logs actually inserted, in input order
+     */
+    List<AnalysisProcessingLog> insertAll(List<AnalysisProcessingLog> logs);
+}
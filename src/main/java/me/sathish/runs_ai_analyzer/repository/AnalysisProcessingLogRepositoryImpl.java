@@ -0,0 +1,77 @@
+package me.sathish.runs_ai_analyzer.repository;
+
+import lombok.RequiredArgsConstructor;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC batch insert for processing logs. The entity uses IDENTITY ids, which makes
+ * Hibernate insert row by row, so {@code saveAll} cannot batch them.
+ *
+ * <p>All rows go in one statement, passed as arrays and joined with {@code unnest}.
+ * Each row first claims its (activity id, database id) in
+ * {@code analysis_processing_log_key} (migration V010); a row whose key already exists
+ * is skipped, so concurrent consumers and redeliveries cannot insert duplicates, and
+ * the keys actually inserted come back from {@code RETURNING}.
+ */
+@RequiredArgsConstructor
+class AnalysisProcessingLogRepositoryImpl implements AnalysisProcessingLogRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            WITH input AS (
+                SELECT DISTINCT ON (activity_id, database_id) *
+                FROM unnest(?::text[], ?::bigint[], ?::text[], ?::text[], ?::int[], ?::timestamp[])
+                    AS i(activity_id, database_id, event_type, processing_status, retry_count, created_at)),
+            claimed AS (
+                INSERT INTO analysis_processing_log_key (activity_id, database_id, created_at)
+                SELECT activity_id, database_id, created_at
+                FROM input
+                ON CONFLICT (activity_id, database_id) DO NOTHING
+                RETURNING activity_id, database_id)
+            INSERT INTO analysis_processing_log
+                (activity_id, database_id, event_type, processing_status, retry_count, created_at)
+            SELECT i.activity_id, i.database_id, i.event_type, i.processing_status, i.retry_count, i.created_at
+            FROM claimed c
+            JOIN input i ON i.activity_id = c.activity_id AND i.database_id = c.database_id
+            RETURNING activity_id, database_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<AnalysisProcessingLog> insertAll(List<AnalysisProcessingLog> logs) {
+        if (logs.isEmpty()) {
+            return List.of();
+        }
+        Set<String> inserted = new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+            ps.setArray(1, connection.createArrayOf("text",
+                    logs.stream().map(AnalysisProcessingLog::getActivityId).toArray()));
+            ps.setArray(2, connection.createArrayOf("bigint",
+                    logs.stream().map(AnalysisProcessingLog::getDatabaseId).toArray()));
+            ps.setArray(3, connection.createArrayOf("text",
+                    logs.stream().map(AnalysisProcessingLog::getEventType).toArray()));
+            ps.setArray(4, connection.createArrayOf("text",
+                    logs.stream().map(log -> log.getProcessingStatus().name()).toArray()));
+            ps.setArray(5, connection.createArrayOf("int",
+                    logs.stream().map(log -> log.getRetryCount() != null ? log.getRetryCount() : 0).toArray()));
+            ps.setArray(6, connection.createArrayOf("timestamp",
+                    logs.stream().map(log -> Timestamp.valueOf(log.getCreatedAt())).toArray()));
+            return ps;
+        }, (rs, rowNum) -> key(rs.getString("activity_id"), rs.getLong("database_id"))));
+        // remove() so a key repeated in the input is reported once
+        return logs.stream()
+                .filter(log -> inserted.remove(key(log.getActivityId(), log.getDatabaseId())))
+                .toList();
+    }
+
+    private static String key(String activityId, Long databaseId) {
+        return activityId + ":" + databaseId;
+    }
+}
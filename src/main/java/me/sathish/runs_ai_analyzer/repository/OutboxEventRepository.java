@@ -0,0 +1,37 @@
+package me.sathish.runs_ai_analyzer.repository;
+
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest due, unsent events. Rows locked by another relay instance are
+     * skipped, so instances never publish the same row concurrently.
+     */
+    @Query(value = """
+            SELECT *
+            FROM outbox_event
+            WHERE sent_at IS NULL
+              AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.sentAt IS NULL")
+    long countUnsent();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.sentAt < :sentBefore")
+    int deleteSentBefore(@Param("sentBefore") LocalDateTime sentBefore);
+}
@@ -0,0 +1,20 @@
+package me.sathish.runs_ai_analyzer.repository;
+
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocumentArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RunAnalysisDocumentArchiveRepository extends JpaRepository<RunAnalysisDocumentArchive, Long> {
+
+    Optional<RunAnalysisDocumentArchive> findByDocumentId(UUID documentId);
+
+    @Query("SELECT r FROM RunAnalysisDocumentArchive r WHERE r.activityIds LIKE %:activityId% ORDER BY r.createdAt DESC")
+    List<RunAnalysisDocumentArchive> findByActivityIdContaining(@Param("activityId") String activityId);
+}
@@ -1,6 +1,7 @@
 package me.sathish.runs_ai_analyzer.repository;
 
 import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +21,34 @@ public interface RunAnalysisDocumentRepository extends JpaRepository<RunAnalysis
 
     List<RunAnalysisDocument> findTop10ByOrderByCreatedAtDesc();
 
+    /**
+     * Oldest-first slice of documents past the cache TTL, for the archiver.
+     */
+    List<RunAnalysisDocument> findByCreatedAtBeforeOrderByCreatedAtAsc(LocalDateTime before, Pageable pageable);
+
+    /**
+     * Cache lookup in one round-trip: nearest pgvector neighbour by cosine distance,
+     * restricted to documents newer than {@code createdAfter}, joined to its row.
+     * Stale documents are filtered before ranking, so they can never shadow a fresh
+     * second-best match. Relies on Spring AI's default {@code vector_store} table,
+     * whose {@code id} is the analysis {@code document_id}.
+     *
+     * @param embedding   query embedding in pgvector text form, e.g. {@code [0.1,0.2]}
+     * @param maxDistance cosine distance cut-off, i.e. {@code 1 - similarityThreshold}
+     */
+    @Query(value = """
+            SELECT d.*
+            FROM run_analysis_document d
+            JOIN vector_store v ON v.id = d.document_id
+            WHERE d.created_at >= :createdAfter
+              AND (v.embedding <=> CAST(:embedding AS vector)) <= :maxDistance
+            ORDER BY v.embedding <=> CAST(:embedding AS vector)
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<RunAnalysisDocument> findMostSimilarFresh(@Param("embedding") String embedding,
+                                                       @Param("maxDistance") double maxDistance,
+                                                       @Param("createdAfter") LocalDateTime createdAfter);
+
     @Query("SELECT r FROM RunAnalysisDocument r WHERE r.activityIds LIKE %:activityId%")
     List<RunAnalysisDocument> findByActivityIdContaining(@Param("activityId") String activityId);
 
@@ -3,6 +3,7 @@ package me.sathish.runs_ai_analyzer.repository;
 import me.sathish.runs_ai_analyzer.entity.RunJournalEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -17,10 +18,12 @@ public interface RunJournalEntryRepository extends JpaRepository<RunJournalEntry
     /**
      * All entries attached to a given run, most recent first.
      */
+    @Transactional(readOnly = true)
     List<RunJournalEntry> findByActivityIdOrderByEntryDateDesc(String activityId);
 
     /**
      * Recent entries for a list view.
      */
+    @Transactional(readOnly = true)
     List<RunJournalEntry> findTop20ByOrderByEntryDateDesc();
 }
@@ -0,0 +1,170 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.RagCacheProperties;
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocumentArchive;
+import me.sathish.runs_ai_analyzer.repository.RunAnalysisDocumentArchiveRepository;
+import me.sathish.runs_ai_analyzer.repository.RunAnalysisDocumentRepository;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Moves analyses older than {@code rag.cache.ttl-days} out of the hot
+ * {@code run_analysis_document} table and the pgvector index.
+ *
+ * <p>Aged analyses are never served from the RAG cache again, yet they kept the hot
+ * table, its indexes and the ANN index growing. The archiver copies each one to
+ * {@code run_analysis_document_archive} with the query text and analysis content
+ * deflate-compressed, deletes the hot row, and removes its vector. Reads by document
+ * id or activity id fall through to the archive via {@code RagStorageService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalysisArchiveService {
+
+    private final RunAnalysisDocumentRepository documentRepository;
+    private final RunAnalysisDocumentArchiveRepository archiveRepository;
+    private final VectorStore vectorStore;
+    private final RagCacheProperties cacheProperties;
+
+    @Value("${rag.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${rag.archive.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(cron = "${rag.archive.cron:0 15 * * * *}")
+    @Transactional
+    public void archiveAgedDocuments() {
+        if (!archiveEnabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(cacheProperties.getTtlDays());
+        List<RunAnalysisDocument> aged = documentRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(
+                cutoff, PageRequest.of(0, batchSize));
+        if (aged.isEmpty()) {
+            return;
+        }
+
+        archiveRepository.saveAll(aged.stream().map(AnalysisArchiveService::toArchive).toList());
+        documentRepository.deleteAll(aged);
+        documentRepository.flush();
+
+        List<String> vectorIds = aged.stream()
+                .map(doc -> doc.getDocumentId().toString())
+                .toList();
+        try {
+            vectorStore.delete(vectorIds);
+        } catch (Exception e) {
+            // A leftover vector only costs index space: the cache lookup ignores
+            // vectors whose document is no longer in the hot table.
+            log.warn("Archived {} documents but failed to delete their vectors: {}", aged.size(), e.getMessage());
+        }
+
+        log.info("Archived {} analysis documents created before {}", aged.size(), cutoff);
+    }
+
+    public Optional<RunAnalysisDocument> findByDocumentId(UUID documentId) {
+        return archiveRepository.findByDocumentId(documentId).map(AnalysisArchiveService::fromArchive);
+    }
+
+    public List<RunAnalysisDocument> findByActivityId(String activityId) {
+        return archiveRepository.findByActivityIdContaining(activityId).stream()
+                .map(AnalysisArchiveService::fromArchive)
+                .toList();
+    }
+
+    static RunAnalysisDocumentArchive toArchive(RunAnalysisDocument document) {
+        return RunAnalysisDocumentArchive.builder()
+                .id(document.getId())
+                .documentId(document.getDocumentId())
+                .activityIds(document.getActivityIds())
+                .queryTextCompressed(compress(document.getQueryText()))
+                .analysisContentCompressed(compress(document.getAnalysisContent()))
+                .summary(document.getSummary())
+                .totalRuns(document.getTotalRuns())
+                .totalDistanceKm(document.getTotalDistanceKm())
+                .structuredAnalysis(document.getStructuredAnalysis())
+                .performanceMetrics(document.getPerformanceMetrics())
+                .metadata(document.getMetadata())
+                .createdAt(document.getCreatedAt())
+                .archivedAt(LocalDateTime.now())
+                .build();
+    }
+
+    static RunAnalysisDocument fromArchive(RunAnalysisDocumentArchive archive) {
+        return RunAnalysisDocument.builder()
+                .id(archive.getId())
+                .documentId(archive.getDocumentId())
+                .activityIds(archive.getActivityIds())
+                .queryText(decompress(archive.getQueryTextCompressed()))
+                .analysisContent(decompress(archive.getAnalysisContentCompressed()))
+                .summary(archive.getSummary())
+                .totalRuns(archive.getTotalRuns())
+                .totalDistanceKm(archive.getTotalDistanceKm())
+                .structuredAnalysis(archive.getStructuredAnalysis())
+                .performanceMetrics(archive.getPerformanceMetrics())
+                .metadata(archive.getMetadata())
+                .createdAt(archive.getCreatedAt())
+                .build();
+    }
+
+    static byte[] compress(String text) {
+        byte[] input = (text != null ? text : "").getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decompress(byte[] compressed) {
+        if (compressed == null || compressed.length == 0) {
+            return "";
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && !inflater.finished() && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated archive payload");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wakes callers waiting for an {@code AnalysisJob} to reach DONE or FAILED.
+ *
+ * <p>{@link AnalysisJobWorker} calls {@link #jobCompleted} after the outcome commits.
+ * Waiters on this instance are signalled directly. With
+ * {@code analysis.jobs.notify.postgres.enabled=true} the completion is also sent as a
+ * Postgres {@code NOTIFY} on {@value #CHANNEL}, which
+ * {@link AnalysisJobNotificationListener} on every replica turns back into
+ * {@link #signal} calls, so a client may wait on any replica.
+ *
+ * <p>A signal only says "look again": waiters re-read the job, so a duplicate or
+ * spurious signal is harmless.
+ */
+@Service
+@Slf4j
+public class AnalysisJobCompletionNotifier {
+
+    static final String CHANNEL = "analysis_job_done";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<UUID, Set<CompletableFuture<UUID>>> waiters = new ConcurrentHashMap<>();
+
+    @Value("${analysis.jobs.notify.postgres.enabled:false}")
+    private boolean postgresNotifyEnabled;
+
+    public AnalysisJobCompletionNotifier(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registers interest in {@code jobId}. Register before reading the job's status so
+     * that a completion between the read and the registration is not missed. Cancel the
+     * returned future to deregister.
+     */
+    public CompletableFuture<UUID> register(UUID jobId) {
+        CompletableFuture<UUID> signal = new CompletableFuture<>();
+        // Add inside compute so it cannot interleave with signal() removing the set
+        waiters.compute(jobId, (id, signals) -> {
+            Set<CompletableFuture<UUID>> set = signals != null ? signals : ConcurrentHashMap.newKeySet();
+            set.add(signal);
+            return set;
+        });
+        signal.whenComplete((id, error) -> waiters.computeIfPresent(jobId, (key, set) -> {
+            set.remove(signal);
+            return set.isEmpty() ? null : set;
+        }));
+        return signal;
+    }
+
+    public void jobCompleted(UUID jobId) {
+        signal(jobId);
+        if (postgresNotifyEnabled) {
+            try {
+                // UUID.toString() is safe to inline; NOTIFY does not take bind parameters
+                jdbcTemplate.execute("NOTIFY " + CHANNEL + ", '" + jobId + "'");
+            } catch (Exception e) {
+                // Remote waiters fall back to their periodic recheck
+                log.warn("Failed to NOTIFY completion of jobId={}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    void signal(UUID jobId) {
+        Set<CompletableFuture<UUID>> signals = waiters.remove(jobId);
+        if (signals != null) {
+            signals.forEach(signal -> signal.complete(jobId));
+        }
+    }
+
+    int waiting() {
+        return waiters.values().stream().mapToInt(Set::size).sum();
+    }
+}
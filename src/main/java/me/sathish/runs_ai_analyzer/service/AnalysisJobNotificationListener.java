@@ -0,0 +1,97 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Receives {@code analysis_job_done} notifications from Postgres and forwards them to
+ * {@link AnalysisJobCompletionNotifier}, so a job finished on one replica wakes clients
+ * waiting on another.
+ *
+ * <p>LISTEN needs a connection that stays open for the life of the application, so it
+ * uses its own connection outside the Hikari pool rather than pinning a pooled one.
+ * The connection is re-established after errors; notifications missed meanwhile are
+ * covered by the waiters' periodic recheck.
+ */
+@Component
+@ConditionalOnProperty(prefix = "analysis.jobs.notify.postgres", name = "enabled", havingValue = "true")
+@Slf4j
+public class AnalysisJobNotificationListener {
+
+    private static final int POLL_TIMEOUT_MS = 5000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final AnalysisJobCompletionNotifier notifier;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public AnalysisJobNotificationListener(DataSourceProperties dataSourceProperties,
+                                           AnalysisJobCompletionNotifier notifier) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.notifier = notifier;
+    }
+
+    @PostConstruct
+    void start() {
+        thread = Thread.ofPlatform().name("analysis-job-listen").daemon().start(this::listenLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + AnalysisJobCompletionNotifier.CHANNEL);
+                }
+                log.info("Listening for analysis job completions on {}", AnalysisJobCompletionNotifier.CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Analysis job LISTEN connection failed, reconnecting in {}ms: {}",
+                        RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            notifier.signal(UUID.fromString(payload));
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed job notification '{}'", payload);
+        }
+    }
+}
@@ -1,70 +1,143 @@
 package me.sathish.runs_ai_analyzer.service;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
 import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
 import me.sathish.runs_ai_analyzer.repository.AnalysisJobRepository;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Async analysis jobs. A job is persisted PENDING together with its runs and picked
+ * up by {@link AnalysisJobWorker} on any instance, so it survives restarts.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AnalysisJobService {
 
     private final AnalysisJobRepository jobRepository;
-    private final RunAnalysisService runAnalysisService;
+    private final AnalysisJobCompletionNotifier completionNotifier;
+    private final RagStorageService ragStorageService;
+    // Re-reads after a signal block on JDBC; keep them off the signalling thread
+    private final ExecutorService reloadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${analysis.jobs.events.recheck-ms:30000}")
+    private long recheckMs;
+
+    public AnalysisJobService(AnalysisJobRepository jobRepository,
+                              AnalysisJobCompletionNotifier completionNotifier,
+                              RagStorageService ragStorageService) {
+        this.jobRepository = jobRepository;
+        this.completionNotifier = completionNotifier;
+        this.ragStorageService = ragStorageService;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
 
     @Transactional
-    public AnalysisJob createJob() {
+    public AnalysisJob createJob(List<GarminRunDataDTO> runs, boolean forceRefresh) {
         AnalysisJob job = AnalysisJob.builder()
                 .id(UUID.randomUUID())
                 .status(AnalysisJob.Status.PENDING)
+                .runs(runs)
+                .forceRefresh(forceRefresh)
                 .createdAt(LocalDateTime.now())
                 .build();
         return jobRepository.save(job);
     }
 
-    @Async
-    @Transactional
-    public void runAnalysisAsync(UUID jobId, List<GarminRunDataDTO> runs, boolean forceRefresh) {
-        log.info("Starting async analysis for jobId={}", jobId);
+    public Optional<AnalysisJob> getJob(UUID jobId) {
+        return jobRepository.findById(jobId);
+    }
 
-        AnalysisJob job = jobRepository.findById(jobId)
-                .orElseThrow(() -> new IllegalArgumentException("Job not found: " + jobId));
+    /**
+     * The job's result. Results are normally stored without rawAnalysis (see
+     * {@code analysis.jobs.result.store-raw-analysis}); when the caller wants it, it is
+     * read back from the referenced RunAnalysisDocument.
+     */
+    public RunAnalysisResponse resolveResult(AnalysisJob job, boolean includeRawAnalysis) {
+        RunAnalysisResponse result = job.getResult();
+        if (result == null || !includeRawAnalysis || result.getRawAnalysis() != null
+                || result.getDocumentId() == null) {
+            return result;
+        }
+        ragStorageService.findByDocumentId(result.getDocumentId())
+                .ifPresent(document -> result.setRawAnalysis(document.getAnalysisContent()));
+        return result;
+    }
 
-        job.setStatus(AnalysisJob.Status.PROCESSING);
-        job.setUpdatedAt(LocalDateTime.now());
-        jobRepository.save(job);
+    /**
+     * Completes with the job once it is DONE or FAILED, or exceptionally with a
+     * {@link TimeoutException} after {@code timeout}. The job is read once up front and
+     * again only when {@link AnalysisJobCompletionNotifier} signals it, plus a
+     * safety-net recheck every {@code analysis.jobs.events.recheck-ms} in case a
+     * cross-replica notification was lost. Cancelling the returned future stops waiting.
+     */
+    public CompletableFuture<AnalysisJob> awaitCompletion(UUID jobId, Duration timeout) {
+        CompletableFuture<AnalysisJob> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<UUID>> currentSignal = new AtomicReference<>();
+        result.whenComplete((job, error) -> {
+            CompletableFuture<UUID> signal = currentSignal.get();
+            if (signal != null) {
+                signal.cancel(false);
+            }
+        });
+        long deadline = System.nanoTime() + timeout.toNanos();
+        reloadExecutor.execute(() -> awaitStep(jobId, deadline, result, currentSignal));
+        return result;
+    }
 
+    private void awaitStep(UUID jobId, long deadline, CompletableFuture<AnalysisJob> result,
+                           AtomicReference<CompletableFuture<UUID>> currentSignal) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<UUID> signal = completionNotifier.register(jobId);
+        currentSignal.set(signal);
+        // result may have completed before the hook could see this signal
+        if (result.isDone()) {
+            signal.cancel(false);
+            return;
+        }
         try {
-            RunAnalysisResponse result = runAnalysisService.analyzeRuns(runs, forceRefresh);
-
-            job.setStatus(AnalysisJob.Status.DONE);
-            job.setResult(result);
-            job.setCompletedAt(LocalDateTime.now());
-            job.setUpdatedAt(LocalDateTime.now());
-            jobRepository.save(job);
-
-            log.info("Async analysis completed for jobId={}", jobId);
+            Optional<AnalysisJob> job = jobRepository.findById(jobId);
+            if (job.isEmpty()) {
+                result.completeExceptionally(new IllegalArgumentException("Unknown jobId " + jobId));
+                return;
+            }
+            if (job.get().getStatus().isTerminal()) {
+                result.complete(job.get());
+                return;
+            }
         } catch (Exception e) {
-            log.error("Async analysis failed for jobId={}: {}", jobId, e.getMessage(), e);
-            job.setStatus(AnalysisJob.Status.FAILED);
-            job.setErrorMessage(e.getMessage());
-            job.setUpdatedAt(LocalDateTime.now());
-            jobRepository.save(job);
+            result.completeExceptionally(e);
+            return;
         }
-    }
 
-    public Optional<AnalysisJob> getJob(UUID jobId) {
-        return jobRepository.findById(jobId);
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0) {
+            result.completeExceptionally(new TimeoutException("Job " + jobId + " still running"));
+            return;
+        }
+        signal.completeOnTimeout(jobId, Math.min(recheckMs, remainingMs), TimeUnit.MILLISECONDS)
+                .thenRunAsync(() -> awaitStep(jobId, deadline, result, currentSignal), reloadExecutor);
     }
 }
@@ -0,0 +1,236 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob.Status;
+import me.sathish.runs_ai_analyzer.repository.AnalysisJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs persisted {@link AnalysisJob}s.
+ *
+ * <p>Jobs used to be {@code @Async} invocations holding a transaction, and so a JDBC
+ * connection, across the whole LLM call, and a restart left them stuck forever. Now
+ * each poll claims PENDING jobs with {@code FOR UPDATE SKIP LOCKED} in a short
+ * transaction, stamping a lease owned by this instance. The LLM call runs with no
+ * transaction open, and the result is written in a second short transaction only if
+ * this instance still holds the lease.
+ *
+ * <p>Running jobs have their lease renewed every heartbeat. A job whose lease expires
+ * (its instance died) goes back to PENDING, or to FAILED after
+ * {@code analysis.jobs.max-attempts}. A lease owner is
+ * {@code <instance id>/<random per-process id>}. When {@code analysis.jobs.instance-id}
+ * names an identity that is unique per process and stable across restarts (a
+ * StatefulSet pod name, say), the first poll after startup also recovers jobs leased by
+ * earlier runs of that instance straight away. Without it, the instance id defaults to
+ * the host name, which several processes may share, so only lease expiry recovers jobs.
+ */
+@Component
+@Slf4j
+public class AnalysisJobWorker {
+
+    private static final int RECOVERY_BATCH = 100;
+
+    private final AnalysisJobRepository jobRepository;
+    private final RunAnalysisService runAnalysisService;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalysisJobCompletionNotifier completionNotifier;
+    private final String instanceId;
+    private final String owner;
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+    private volatile boolean recoveredOnStartup;
+
+    @Value("${analysis.jobs.workers:4}")
+    private int workers;
+
+    @Value("${analysis.jobs.lease-seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${analysis.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${analysis.jobs.result.store-raw-analysis:false}")
+    private boolean storeRawAnalysis;
+
+    public AnalysisJobWorker(AnalysisJobRepository jobRepository, RunAnalysisService runAnalysisService,
+                             TransactionTemplate transactionTemplate,
+                             AnalysisJobCompletionNotifier completionNotifier,
+                             @Value("${analysis.jobs.instance-id:}") String instanceId) {
+        this.jobRepository = jobRepository;
+        this.runAnalysisService = runAnalysisService;
+        this.transactionTemplate = transactionTemplate;
+        this.completionNotifier = completionNotifier;
+        this.instanceId = instanceId.isBlank() ? null : instanceId;
+        this.owner = (this.instanceId != null ? this.instanceId : resolveHostName()) + "/" + UUID.randomUUID();
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(workers, r -> new Thread(r, "analysis-job"));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Unfinished jobs are recovered by this instance's next start or by lease expiry
+            executor.shutdownNow();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.jobs.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        try {
+            if (!recoveredOnStartup) {
+                recoverOrphans(true);
+                recoveredOnStartup = true;
+            }
+            claimAndDispatch();
+        } catch (Exception e) {
+            log.error("Analysis job poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.jobs.heartbeat-ms:30000}")
+    public void heartbeat() {
+        try {
+            List<UUID> ids = new ArrayList<>(running);
+            if (!ids.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        jobRepository.renewLeases(ids, owner, LocalDateTime.now().plusSeconds(leaseSeconds)));
+            }
+            recoverOrphans(false);
+        } catch (Exception e) {
+            log.error("Analysis job heartbeat failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void claimAndDispatch() {
+        int free = workers - running.size();
+        if (free <= 0) {
+            return;
+        }
+        List<AnalysisJob> claimed = transactionTemplate.execute(status -> {
+            List<AnalysisJob> jobs = jobRepository.lockPendingBatch(free);
+            LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(leaseSeconds);
+            for (AnalysisJob job : jobs) {
+                job.setStatus(Status.PROCESSING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLeaseOwner(owner);
+                job.setLeaseExpiresAt(leaseExpiresAt);
+            }
+            return jobs;
+        });
+        if (claimed == null) {
+            return;
+        }
+        for (AnalysisJob job : claimed) {
+            running.add(job.getId());
+            executor.execute(() -> run(job));
+        }
+    }
+
+    void run(AnalysisJob job) {
+        log.info("Starting async analysis for jobId={} (attempt {})", job.getId(), job.getAttempts());
+        try {
+            RunAnalysisResponse result = runAnalysisService.analyzeRuns(job.getRuns(), job.isForceRefresh(),
+                    LlmLane.ASYNC_JOB);
+            finish(job.getId(), Status.DONE, forStorage(result), null);
+            log.info("Async analysis completed for jobId={}", job.getId());
+        } catch (Exception e) {
+            log.error("Async analysis failed for jobId={}: {}", job.getId(), e.getMessage(), e);
+            finish(job.getId(), Status.FAILED, null, e.getMessage());
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    /**
+     * rawAnalysis repeats the referenced RunAnalysisDocument's analysis content, often
+     * most of the result's size. It is dropped unless there is no document to point to;
+     * {@link AnalysisJobService#resolveResult} restores it on read.
+     */
+    private RunAnalysisResponse forStorage(RunAnalysisResponse result) {
+        if (!storeRawAnalysis && result != null && result.getDocumentId() != null) {
+            result.setRawAnalysis(null);
+        }
+        return result;
+    }
+
+    private void finish(UUID jobId, Status outcome, RunAnalysisResponse result, String errorMessage) {
+        Boolean stored = transactionTemplate.execute(status -> jobRepository.lockById(jobId).map(job -> {
+            if (job.getStatus() != Status.PROCESSING || !owner.equals(job.getLeaseOwner())) {
+                log.warn("Lost lease on jobId={} (now {} by {}); discarding outcome {}",
+                        jobId, job.getStatus(), job.getLeaseOwner(), outcome);
+                return false;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(outcome);
+            job.setResult(result);
+            job.setErrorMessage(errorMessage);
+            job.setCompletedAt(now);
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            return true;
+        }).orElse(false));
+        if (Boolean.TRUE.equals(stored)) {
+            completionNotifier.jobCompleted(jobId);
+        }
+    }
+
+    void recoverOrphans(boolean startup) {
+        List<UUID> failed = new ArrayList<>();
+        Integer recovered = transactionTemplate.execute(status -> {
+            List<AnalysisJob> orphans = new ArrayList<>(
+                    jobRepository.lockExpiredBatch(LocalDateTime.now(), RECOVERY_BATCH));
+            if (startup && instanceId != null) {
+                orphans.addAll(jobRepository.lockLeasedByInstanceBatch(instanceId + "/", owner, RECOVERY_BATCH));
+            }
+            for (AnalysisJob job : orphans) {
+                log.warn("Recovering orphaned jobId={} leased by {} (attempt {})",
+                        job.getId(), job.getLeaseOwner(), job.getAttempts());
+                job.setLeaseOwner(null);
+                job.setLeaseExpiresAt(null);
+                if (job.getAttempts() >= maxAttempts) {
+                    job.setStatus(Status.FAILED);
+                    job.setErrorMessage("Abandoned after " + job.getAttempts() + " interrupted attempts");
+                    job.setCompletedAt(LocalDateTime.now());
+                    failed.add(job.getId());
+                } else {
+                    job.setStatus(Status.PENDING);
+                }
+            }
+            return orphans.size();
+        });
+        if (recovered != null && recovered > 0) {
+            log.info("Recovered {} orphaned analysis jobs", recovered);
+        }
+        failed.forEach(completionNotifier::jobCompleted);
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
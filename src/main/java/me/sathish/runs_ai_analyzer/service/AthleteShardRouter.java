@@ -0,0 +1,93 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.AthleteShardingConfiguration;
+import me.sathish.runs_ai_analyzer.config.RabbitMQListenerConfiguration;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingress for the sharded layout (see {@code AthleteShardingConfiguration}). Consumes
+ * the shared Garmin ops queue in batches and republishes each message, body untouched,
+ * to the shard queue owning its athlete. The incoming batch is acked only after the
+ * broker confirmed every republished message.
+ */
+@Component
+@ConditionalOnProperty(name = "rabbitmq.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class AthleteShardRouter {
+
+    public static final String SHARD_ROUTER_LISTENER_ID = "garmin-shard-router";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final GarminEventDecoder eventDecoder;
+
+    @Value("${rabbitmq.sharding.shards:4}")
+    private int shards;
+
+    @Value("${rabbitmq.sharding.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @RabbitListener(id = SHARD_ROUTER_LISTENER_ID, queues = RabbitMQListenerConfiguration.ANALYZER_QUEUE)
+    public void route(List<Message> messages) throws Exception {
+        boolean confirmsEnabled = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        List<CorrelationData> pending = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Message copy = MessageBuilder.withBody(message.getBody())
+                    .copyProperties(message.getMessageProperties())
+                    .build();
+            CorrelationData correlation = new CorrelationData();
+            rabbitTemplate.send(AthleteShardingConfiguration.SHARD_EXCHANGE, routingKeyFor(message), copy, correlation);
+            pending.add(correlation);
+        }
+
+        if (confirmsEnabled) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+            for (CorrelationData correlation : pending) {
+                CorrelationData.Confirm confirm = correlation.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!confirm.ack()) {
+                    throw new IllegalStateException("Shard republish nacked: " + confirm.reason());
+                }
+            }
+        }
+        log.debug("Routed {} Garmin events to athlete shards", messages.size());
+    }
+
+    /**
+     * Shard routing key for a raw Garmin event. Unparseable messages go to shard 0,
+     * where {@link GarminEventListener} logs and drops them as before.
+     */
+    String routingKeyFor(Message message) {
+        String athleteKey;
+        try {
+            GarminRunEvent event = new GarminRunEvent();
+            event.setDatabaseId(eventDecoder.readDatabaseId(message.getBody()));
+            athleteKey = PendingAnalysisQueue.athleteKey(event);
+        } catch (Exception e) {
+            log.warn("Cannot read athlete key from Garmin event, routing to shard 0: {}", e.getMessage());
+            return AthleteShardingConfiguration.SHARD_ROUTING_KEY_PREFIX + 0;
+        }
+        return AthleteShardingConfiguration.SHARD_ROUTING_KEY_PREFIX + shardFor(athleteKey, shards);
+    }
+
+    /**
+     * Stable across JVMs and replicas: {@code String.hashCode} is specified by the JLS.
+     */
+    static int shardFor(String athleteKey, int shards) {
+        return Math.floorMod(athleteKey.hashCode(), shards);
+    }
+}
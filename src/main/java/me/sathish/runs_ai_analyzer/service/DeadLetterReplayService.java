@@ -0,0 +1,357 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.RabbitMQListenerConfiguration;
+import me.sathish.runs_ai_analyzer.dto.DeadLetterReplayStatus;
+import me.sathish.runs_ai_analyzer.dto.DeadLetterReplayStatus.State;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drains {@code dlq.sathishprojects.garmin.ops.events} back into the analyzer queue.
+ *
+ * <p>Events land in the DLQ through the listener's {@code RepublishMessageRecoverer},
+ * typically by the thousand after an outage. A replay pulls them in batches with
+ * manual acks and checks each one against {@code analysis_processing_log}:
+ * <ul>
+ *   <li>events whose run is already COMPLETED are dropped;</li>
+ *   <li>events the listener would ignore anyway (non-SUCCESS/UPDATED) are dropped;</li>
+ *   <li>unreadable messages are moved to the back of the DLQ for manual inspection;</li>
+ *   <li>the rest are sent straight to the analyzer queue.</li>
+ * </ul>
+ * A batch is acked only after the broker confirmed its republished messages, so a
+ * crash mid-batch leaves the messages in the DLQ. Replay is paced to
+ * {@code dlq.replay.rate-per-second} and holds while the pending-analysis backlog is
+ * above {@code dlq.replay.max-pending-backlog}, so recovery reaches the LLM providers
+ * at the same throttled pace as live traffic. One replay runs per instance.
+ */
+@Service
+@Slf4j
+public class DeadLetterReplayService {
+
+    static final String REPLAY_ID_HEADER = "x-dlq-replay-id";
+
+    // Marks a message whose body could not be decoded at all
+    private static final GarminRunEvent UNREADABLE = new GarminRunEvent();
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AnalysisProcessingLogRepository processingLogRepository;
+    private final PendingAnalysisQueue pendingQueue;
+    private final GarminEventDecoder eventDecoder;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final AtomicReference<Replay> current = new AtomicReference<>();
+
+    @Value("${dlq.replay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${dlq.replay.rate-per-second:5}")
+    private double defaultRatePerSecond;
+
+    @Value("${dlq.replay.max-pending-backlog:1000}")
+    private long maxPendingBacklog;
+
+    @Value("${dlq.replay.backlog-poll-ms:5000}")
+    private long backlogPollMs;
+
+    @Value("${dlq.replay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    public DeadLetterReplayService(RabbitTemplate rabbitTemplate,
+                                   AnalysisProcessingLogRepository processingLogRepository,
+                                   PendingAnalysisQueue pendingQueue,
+                                   GarminEventDecoder eventDecoder) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.processingLogRepository = processingLogRepository;
+        this.pendingQueue = pendingQueue;
+        this.eventDecoder = eventDecoder;
+    }
+
+    /**
+     * Registers a new replay of at most {@code maxMessages} (default: the DLQ depth now)
+     * at {@code ratePerSecond} requeued events per second. Empty if one is running.
+     */
+    public Optional<DeadLetterReplayStatus> startReplay(Long maxMessages, Double ratePerSecond) {
+        long depth = dlqDepth();
+        long limit = maxMessages != null ? Math.min(maxMessages, depth) : depth;
+        double rate = ratePerSecond != null && ratePerSecond > 0 ? ratePerSecond : defaultRatePerSecond;
+        Replay replay = new Replay(UUID.randomUUID(), limit, rate);
+        Replay previous = current.get();
+        if (previous != null && previous.state == State.RUNNING) {
+            return Optional.empty();
+        }
+        if (!current.compareAndSet(previous, replay)) {
+            return Optional.empty();
+        }
+        log.info("DLQ replay {} registered: limit={}, ratePerSecond={}", replay.id, limit, rate);
+        return Optional.of(replay.snapshot());
+    }
+
+    @Async
+    public void runReplayAsync(UUID replayId) {
+        Replay replay = current.get();
+        if (replay == null || !replay.id.equals(replayId)) {
+            return;
+        }
+        try {
+            while (replay.state == State.RUNNING && replay.examined < replay.limit) {
+                if (holdForBacklog(replay)) {
+                    continue;
+                }
+                long batchStarted = System.nanoTime();
+                int requested = (int) Math.min(batchSize, replay.limit - replay.examined);
+                BatchResult result = rabbitTemplate.execute(channel -> replayBatch(channel, replay, requested));
+                if (result == null || result.received == 0) {
+                    break;
+                }
+                pace(result.requeued, replay.ratePerSecond, System.nanoTime() - batchStarted);
+            }
+            if (replay.state == State.RUNNING) {
+                replay.state = State.COMPLETED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            replay.fail("Interrupted");
+        } catch (Exception e) {
+            log.error("DLQ replay {} failed: {}", replay.id, e.getMessage(), e);
+            replay.fail(e.getMessage());
+        } finally {
+            replay.waitingForBacklog = false;
+            replay.finishedAt = Instant.now();
+            log.info("DLQ replay {} finished: {}", replay.id, replay.snapshot());
+        }
+    }
+
+    public Optional<DeadLetterReplayStatus> currentReplay() {
+        return Optional.ofNullable(current.get()).map(Replay::snapshot);
+    }
+
+    public Optional<DeadLetterReplayStatus> cancelReplay() {
+        Replay replay = current.get();
+        if (replay == null || replay.state != State.RUNNING) {
+            return Optional.empty();
+        }
+        replay.state = State.CANCELLED;
+        return Optional.of(replay.snapshot());
+    }
+
+    /**
+     * Pulls up to {@code requested} messages with manual acks, republishes them as
+     * classified, waits for confirms, then acks the whole batch. On any failure the
+     * batch is nacked back into the DLQ.
+     */
+    BatchResult replayBatch(Channel channel, Replay replay, int requested) throws IOException {
+        List<GetResponse> batch = new ArrayList<>(requested);
+        for (int i = 0; i < requested; i++) {
+            GetResponse response = channel.basicGet(RabbitMQListenerConfiguration.DLQ_QUEUE, false);
+            if (response == null) {
+                break;
+            }
+            batch.add(response);
+        }
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        long lastTag = batch.get(batch.size() - 1).getEnvelope().getDeliveryTag();
+
+        try {
+            List<Message> messages = new ArrayList<>(batch.size());
+            List<GarminRunEvent> events = new ArrayList<>(batch.size());
+            for (GetResponse response : batch) {
+                Message message = toMessage(response);
+                messages.add(message);
+                events.add(decode(message));
+            }
+            Set<String> completed = completedKeys(events);
+
+            List<CorrelationData> pending = new ArrayList<>();
+            int requeued = 0;
+            int skippedCompleted = 0;
+            int skippedNotProcessable = 0;
+            int keptUnreadable = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                GarminRunEvent event = events.get(i);
+                if (event == UNREADABLE) {
+                    pending.add(republish(RabbitMQListenerConfiguration.DLQ_QUEUE, message, replay.id));
+                    keptUnreadable++;
+                } else if (event == null || event.getDatabaseId() == null) {
+                    skippedNotProcessable++;
+                } else if (completed.contains(key(event.getActivityId(), event.getDatabaseId()))) {
+                    skippedCompleted++;
+                } else {
+                    pending.add(republish(RabbitMQListenerConfiguration.ANALYZER_QUEUE, message, replay.id));
+                    requeued++;
+                }
+            }
+            awaitConfirms(pending);
+            channel.basicAck(lastTag, true);
+
+            replay.examined += batch.size();
+            replay.requeued += requeued;
+            replay.skippedCompleted += skippedCompleted;
+            replay.skippedNotProcessable += skippedNotProcessable;
+            replay.keptUnreadable += keptUnreadable;
+            return new BatchResult(batch.size(), requeued);
+        } catch (Exception e) {
+            channel.basicNack(lastTag, true, true);
+            throw e instanceof IOException io ? io : new IOException("DLQ replay batch failed", e);
+        }
+    }
+
+    /**
+     * The event, null if the listener would skip it, or {@link #UNREADABLE}.
+     */
+    private GarminRunEvent decode(Message message) {
+        try {
+            return eventDecoder.decodeProcessable(message.getBody());
+        } catch (IOException e) {
+            return UNREADABLE;
+        }
+    }
+
+    private Set<String> completedKeys(List<GarminRunEvent> events) {
+        List<String> activityIds = events.stream()
+                .filter(event -> event != null && event != UNREADABLE)
+                .map(GarminRunEvent::getActivityId)
+                .distinct()
+                .toList();
+        Set<String> completed = new HashSet<>();
+        if (activityIds.isEmpty()) {
+            return completed;
+        }
+        for (AnalysisProcessingLog processingLog : processingLogRepository.findByActivityIdIn(activityIds)) {
+            if (processingLog.getProcessingStatus() == ProcessingStatus.COMPLETED) {
+                completed.add(key(processingLog.getActivityId(), processingLog.getDatabaseId()));
+            }
+        }
+        return completed;
+    }
+
+    private CorrelationData republish(String queue, Message message, UUID replayId) {
+        message.getMessageProperties().setHeader(REPLAY_ID_HEADER, replayId.toString());
+        CorrelationData correlation = new CorrelationData();
+        // Default exchange: straight to the queue, without re-notifying other bindings of the Garmin exchange
+        rabbitTemplate.send("", queue, message, correlation);
+        return correlation;
+    }
+
+    private void awaitConfirms(List<CorrelationData> pending) throws Exception {
+        if (pending.isEmpty() || !rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (CorrelationData correlation : pending) {
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.ack()) {
+                throw new IllegalStateException("Replay republish nacked: " + confirm.reason());
+            }
+        }
+    }
+
+    private Message toMessage(GetResponse response) {
+        AMQP.BasicProperties properties = response.getProps();
+        return new Message(response.getBody(), propertiesConverter.toMessageProperties(
+                properties, response.getEnvelope(), StandardCharsets.UTF_8.name()));
+    }
+
+    private boolean holdForBacklog(Replay replay) throws InterruptedException {
+        boolean backlogged = pendingQueue.countPending() >= maxPendingBacklog;
+        replay.waitingForBacklog = backlogged;
+        if (backlogged) {
+            TimeUnit.MILLISECONDS.sleep(backlogPollMs);
+        }
+        return backlogged;
+    }
+
+    private static void pace(int requeued, double ratePerSecond, long elapsedNanos) throws InterruptedException {
+        long budgetNanos = (long) (requeued / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+        if (budgetNanos > elapsedNanos) {
+            TimeUnit.NANOSECONDS.sleep(budgetNanos - elapsedNanos);
+        }
+    }
+
+    private long dlqDepth() {
+        Long depth = rabbitTemplate.execute(channel ->
+                channel.queueDeclarePassive(RabbitMQListenerConfiguration.DLQ_QUEUE).getMessageCount() * 1L);
+        return depth != null ? depth : 0;
+    }
+
+    private static String key(String activityId, Long databaseId) {
+        return activityId + "_" + databaseId;
+    }
+
+    record BatchResult(int received, int requeued) {
+    }
+
+    static final class Replay {
+
+        private final UUID id;
+        private final long limit;
+        private final double ratePerSecond;
+        private final Instant startedAt = Instant.now();
+        private volatile State state = State.RUNNING;
+        private volatile long examined;
+        private volatile long requeued;
+        private volatile long skippedCompleted;
+        private volatile long skippedNotProcessable;
+        private volatile long keptUnreadable;
+        private volatile boolean waitingForBacklog;
+        private volatile Instant finishedAt;
+        private volatile String errorMessage;
+
+        Replay(UUID id, long limit, double ratePerSecond) {
+            this.id = id;
+            this.limit = limit;
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        void fail(String message) {
+            state = State.FAILED;
+            errorMessage = message;
+        }
+
+        DeadLetterReplayStatus snapshot() {
+            return DeadLetterReplayStatus.builder()
+                    .replayId(id)
+                    .state(state)
+                    .limit(limit)
+                    .ratePerSecond(ratePerSecond)
+                    .examined(examined)
+                    .requeued(requeued)
+                    .skippedCompleted(skippedCompleted)
+                    .skippedNotProcessable(skippedNotProcessable)
+                    .keptUnreadable(keptUnreadable)
+                    .waitingForBacklog(waitingForBacklog)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .errorMessage(errorMessage)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Per-athlete windowed batching. Each athlete has an in-memory bucket holding its
+ * first-arrival time and event count. A bucket is flushed as soon as it reaches
+ * {@code batchSize} events or its window deadline passes, whichever comes first.
+ *
+ * <p>Adding events is an O(1) map update. A deadline is scheduled only when a bucket
+ * opens, on a single timer thread backed by the scheduler's delay heap, so idle
+ * periods cost nothing and no polling tick scans the database. Flushes run on a
+ * separate pool, so a slow analysis never delays another athlete's deadline.
+ *
+ * <p>The buckets only trigger flushes. The events themselves stay in
+ * {@link PendingAnalysisQueue} and are claimed from there by the flush callback.
+ */
+@Slf4j
+class DeadlineBatchAggregator {
+
+    static final String FLUSH_LATENCY_METRIC = "analysis.batch.flush.latency";
+
+    private final int batchSize;
+    private final Duration window;
+    private final Consumer<String> flusher;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService flushExecutor;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    DeadlineBatchAggregator(int batchSize, Duration window, int flushThreads,
+                            Consumer<String> flusher, MeterRegistry meterRegistry) {
+        this.batchSize = batchSize;
+        this.window = window;
+        this.flusher = flusher;
+        this.meterRegistry = meterRegistry;
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "batch-deadline-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.flushExecutor = Executors.newFixedThreadPool(flushThreads, r -> new Thread(r, "batch-flush"));
+    }
+
+    void add(String athleteKey, int count) {
+        Bucket full;
+        synchronized (this) {
+            Bucket bucket = buckets.get(athleteKey);
+            if (bucket == null) {
+                Bucket opened = new Bucket(System.nanoTime());
+                opened.deadline = timer.schedule(() -> expire(athleteKey, opened),
+                        window.toNanos(), TimeUnit.NANOSECONDS);
+                buckets.put(athleteKey, opened);
+                bucket = opened;
+            }
+            bucket.count += count;
+            if (bucket.count < batchSize) {
+                return;
+            }
+            buckets.remove(athleteKey);
+            bucket.deadline.cancel(false);
+            full = bucket;
+        }
+        flushExecutor.execute(() -> flush(athleteKey, full, "size"));
+    }
+
+    synchronized int openBuckets() {
+        return buckets.size();
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+        flushExecutor.shutdown();
+    }
+
+    private void expire(String athleteKey, Bucket bucket) {
+        synchronized (this) {
+            if (!buckets.remove(athleteKey, bucket)) {
+                return;
+            }
+        }
+        flushExecutor.execute(() -> flush(athleteKey, bucket, "deadline"));
+    }
+
+    private void flush(String athleteKey, Bucket bucket, String trigger) {
+        try {
+            flusher.accept(athleteKey);
+        } catch (Exception e) {
+            log.error("Batch flush failed for athlete {}: {}", athleteKey, e.getMessage(), e);
+        } finally {
+            Timer.builder(FLUSH_LATENCY_METRIC)
+                    .description("Time from an athlete's first pending event to the end of its batch flush")
+                    .tag("trigger", trigger)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - bucket.firstArrivalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static final class Bucket {
+        private final long firstArrivalNanos;
+        private int count;
+        private ScheduledFuture<?> deadline;
+
+        private Bucket(long firstArrivalNanos) {
+            this.firstArrivalNanos = firstArrivalNanos;
+        }
+    }
+}
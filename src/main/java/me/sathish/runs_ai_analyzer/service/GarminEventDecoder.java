@@ -0,0 +1,108 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Decodes raw Garmin event bodies straight from the AMQP {@code byte[]}.
+ *
+ * <p>The listener used to receive a converted {@code String} and parse it again, so
+ * every message was materialised twice, including those then dropped for their
+ * status. The decoder parses the body once, binding it with a shared
+ * {@link ObjectReader} and dropping events whose status is not SUCCESS or UPDATED.
+ * Pre-scanning for {@code status} and binding again, or buffering the scanned tokens
+ * in a {@code TokenBuffer}, both cost more per accepted event than the binding itself.
+ * Publishers send the event JSON as a JSON string; such bodies are parsed in place
+ * from the unescaped characters.
+ */
+@Component
+class GarminEventDecoder {
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader eventReader;
+
+    GarminEventDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        // Fields runs-app adds later must not turn into poison messages
+        this.eventReader = objectMapper.readerFor(GarminRunEvent.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * @return the bound event, or null if its status is not SUCCESS or UPDATED
+     * @throws IOException if the body is not a JSON object (or a string holding one)
+     */
+    GarminRunEvent decodeProcessable(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return bindIfProcessable(parser);
+            }
+            // Parse the unescaped text in place instead of materialising it as a String
+            try (JsonParser inner = jsonFactory.createParser(
+                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                inner.nextToken();
+                return bindIfProcessable(inner);
+            }
+        }
+    }
+
+    /**
+     * Streams only the top-level {@code databaseId}; null when absent or not an integer.
+     */
+    Long readDatabaseId(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return readTopLevelLong(parser, "databaseId");
+            }
+            try (JsonParser inner = jsonFactory.createParser(
+                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                inner.nextToken();
+                return readTopLevelLong(inner, "databaseId");
+            }
+        }
+    }
+
+    private GarminRunEvent bindIfProcessable(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        GarminRunEvent event = eventReader.readValue(parser);
+        return isProcessable(event.getStatus()) ? event : null;
+    }
+
+    static boolean isProcessable(String status) {
+        return "SUCCESS".equals(status) || "UPDATED".equals(status);
+    }
+
+    private static Long readTopLevelLong(JsonParser parser, String field) throws IOException {
+        return seekTopLevel(parser, field) == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+    }
+
+    /**
+     * Advances a parser positioned on the root token to the value of {@code field},
+     * skipping nested structures. Returns the value token, or null if absent.
+     */
+    private static JsonToken seekTopLevel(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean match = field.equals(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (match) {
+                return value;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
@@ -1,6 +1,5 @@
 package me.sathish.runs_ai_analyzer.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.config.RabbitMQListenerConfiguration;
@@ -8,76 +7,161 @@ import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
 import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
 import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
 import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Consumes Garmin events in batches (see {@code rabbitmq.listener.batch-size} and
+ * {@code rabbitmq.listener.receive-timeout-ms}).
+ *
+ * <p>A CSV bulk import in runs-app publishes thousands of events at once. Each batch
+ * is deduplicated in memory, checked for idempotency with one query, logged with one
+ * batched insert and added to the durable pending queue in the same transaction. The
+ * batch is acked when this method returns.
+ *
+ * <p>Bodies are decoded from the raw message bytes by {@link GarminEventDecoder};
+ * events whose status is not SUCCESS or UPDATED are dropped before full binding.
+ * UPDATED events evict the run from {@link RunDataCache}, even when already analyzed.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class GarminEventListener {
 
+    public static final String GARMIN_EVENTS_LISTENER_ID = "garmin-events";
+
     private final AnalysisProcessingLogRepository processingLogRepository;
     private final RunAnalysisBatchService batchService;
-    private final ObjectMapper objectMapper;
+    private final GarminEventDecoder eventDecoder;
+    private final RunDataCache runDataCache;
 
-    @RabbitListener(queues = RabbitMQListenerConfiguration.ANALYZER_QUEUE)
+    // With athlete sharding on, AthleteShardRouter owns this queue and the shard
+    // listeners call this method directly
+    @RabbitListener(id = GARMIN_EVENTS_LISTENER_ID, queues = RabbitMQListenerConfiguration.ANALYZER_QUEUE,
+            autoStartup = "#{!${rabbitmq.sharding.enabled:false}}")
     @Transactional
-    public void handleGarminRunEvent(@Payload String message) {
-        log.debug("Received Garmin event message: {}", message);
-        
-        GarminRunEvent event;
-        try {
-            event = objectMapper.readValue(message, GarminRunEvent.class);
-        } catch (Exception e) {
-            log.error("Failed to deserialize Garmin event: {}", e.getMessage(), e);
-            return;
-        }
+    public void handleGarminRunMessages(List<Message> messages) {
+        log.debug("Received batch of {} Garmin event messages", messages.size());
 
-        if (!"SUCCESS".equals(event.getStatus()) && !"UPDATED".equals(event.getStatus())) {
-            log.debug("Skipping non-success event: activityId={}, status={}", 
-                    event.getActivityId(), event.getStatus());
+        Map<String, GarminRunEvent> candidates = new LinkedHashMap<>();
+        for (Message message : messages) {
+            GarminRunEvent event = parseProcessableEvent(message.getBody());
+            if (event != null) {
+                if ("UPDATED".equals(event.getStatus())) {
+                    runDataCache.invalidate(event.getDatabaseId(), event.getActivityId());
+                }
+                candidates.put(key(event.getActivityId(), event.getDatabaseId()), event);
+            }
+        }
+        if (candidates.isEmpty()) {
             return;
         }
 
-        if (event.getDatabaseId() == null) {
-            log.warn("Event missing databaseId, cannot process: activityId={}", event.getActivityId());
-            return;
+        Map<String, AnalysisProcessingLog> existingLogs = findExistingLogs(candidates.values());
+
+        candidates.entrySet().removeIf(entry -> {
+            AnalysisProcessingLog existing = existingLogs.get(entry.getKey());
+            if (existing != null && isAlreadyProcessed(existing)) {
+                log.debug("Event already processed (idempotency check): activityId={}, dbId={}",
+                        entry.getValue().getActivityId(), entry.getValue().getDatabaseId());
+                return true;
+            }
+            return false;
+        });
+
+        List<AnalysisProcessingLog> newLogs = new ArrayList<>();
+        candidates.forEach((key, event) -> {
+            if (!existingLogs.containsKey(key)) {
+                newLogs.add(newProcessingLog(event));
+            }
+        });
+
+        // A log claimed concurrently by another consumer is not returned; that consumer queues the event
+        Set<String> claimed = new HashSet<>();
+        for (AnalysisProcessingLog inserted : processingLogRepository.insertAll(newLogs)) {
+            claimed.add(key(inserted.getActivityId(), inserted.getDatabaseId()));
         }
 
-        if (isAlreadyProcessed(event)) {
-            log.debug("Event already processed (idempotency check): activityId={}, dbId={}", 
-                    event.getActivityId(), event.getDatabaseId());
+        List<GarminRunEvent> toQueue = new ArrayList<>();
+        candidates.forEach((key, event) -> {
+            if (existingLogs.containsKey(key) || claimed.contains(key)) {
+                toQueue.add(event);
+            } else {
+                log.debug("Event log claimed by another consumer: activityId={}, dbId={}",
+                        event.getActivityId(), event.getDatabaseId());
+            }
+        });
+        if (toQueue.isEmpty()) {
             return;
         }
 
-        createProcessingLog(event);
-
         try {
-            batchService.queueForAnalysis(event);
-            log.info("Queued Garmin run for analysis: activityId={}, dbId={}", 
-                    event.getActivityId(), event.getDatabaseId());
+            batchService.queueAllForAnalysis(toQueue);
+            log.info("Queued {} Garmin runs for analysis ({} messages received, {} new logs)",
+                    toQueue.size(), messages.size(), claimed.size());
         } catch (Exception e) {
-            log.error("Failed to queue run for analysis: activityId={}, error={}", 
-                    event.getActivityId(), e.getMessage(), e);
-            markProcessingFailed(event, e.getMessage());
+            log.error("Failed to queue {} runs for analysis: {}", toQueue.size(), e.getMessage(), e);
+            markProcessingFailed(toQueue, e.getMessage());
             throw e;
         }
     }
 
-    private boolean isAlreadyProcessed(GarminRunEvent event) {
-        return processingLogRepository
-                .findByActivityIdAndDatabaseId(event.getActivityId(), event.getDatabaseId())
-                .filter(log -> log.getProcessingStatus() == ProcessingStatus.COMPLETED 
-                            || log.getProcessingStatus() == ProcessingStatus.PROCESSING)
-                .isPresent();
+    private GarminRunEvent parseProcessableEvent(byte[] body) {
+        GarminRunEvent event;
+        try {
+            event = eventDecoder.decodeProcessable(body);
+        } catch (IOException e) {
+            log.error("Failed to deserialize Garmin event: {}", e.getMessage(), e);
+            return null;
+        }
+
+        if (event == null) {
+            log.debug("Skipping non-success Garmin event");
+            return null;
+        }
+
+        if (event.getDatabaseId() == null) {
+            log.warn("Event missing databaseId, cannot process: activityId={}", event.getActivityId());
+            return null;
+        }
+        return event;
+    }
+
+    private Map<String, AnalysisProcessingLog> findExistingLogs(Iterable<GarminRunEvent> events) {
+        List<String> activityIds = new ArrayList<>();
+        events.forEach(event -> activityIds.add(event.getActivityId()));
+
+        Map<String, AnalysisProcessingLog> existing = new HashMap<>();
+        for (AnalysisProcessingLog processingLog : processingLogRepository.findByActivityIdIn(activityIds)) {
+            existing.merge(key(processingLog.getActivityId(), processingLog.getDatabaseId()), processingLog,
+                    (a, b) -> isAlreadyProcessed(a) ? a : b);
+        }
+        return existing;
+    }
+
+    private static boolean isAlreadyProcessed(AnalysisProcessingLog processingLog) {
+        return processingLog.getProcessingStatus() == ProcessingStatus.COMPLETED
+                || processingLog.getProcessingStatus() == ProcessingStatus.PROCESSING;
+    }
+
+    private static String key(String activityId, Long databaseId) {
+        return activityId + "_" + databaseId;
     }
 
-    private void createProcessingLog(GarminRunEvent event) {
-        AnalysisProcessingLog log = AnalysisProcessingLog.builder()
+    private AnalysisProcessingLog newProcessingLog(GarminRunEvent event) {
+        return AnalysisProcessingLog.builder()
                 .activityId(event.getActivityId())
                 .databaseId(event.getDatabaseId())
                 .eventType(event.getEventType())
@@ -85,19 +169,19 @@ public class GarminEventListener {
                 .retryCount(0)
                 .createdAt(LocalDateTime.now())
                 .build();
-        
-        processingLogRepository.save(log);
     }
 
-    private void markProcessingFailed(GarminRunEvent event, String errorMessage) {
-        processingLogRepository
-                .findByActivityIdAndDatabaseId(event.getActivityId(), event.getDatabaseId())
-                .ifPresent(log -> {
-                    log.setProcessingStatus(ProcessingStatus.FAILED);
-                    log.setErrorMessage(errorMessage);
-                    log.setRetryCount(log.getRetryCount() != null ? log.getRetryCount() + 1 : 1);
-                    log.setLastRetryAt(LocalDateTime.now());
-                    processingLogRepository.save(log);
-                });
+    private void markProcessingFailed(List<GarminRunEvent> events, String errorMessage) {
+        for (GarminRunEvent event : events) {
+            processingLogRepository
+                    .findByActivityIdAndDatabaseId(event.getActivityId(), event.getDatabaseId())
+                    .ifPresent(log -> {
+                        log.setProcessingStatus(ProcessingStatus.FAILED);
+                        log.setErrorMessage(errorMessage);
+                        log.setRetryCount(log.getRetryCount() != null ? log.getRetryCount() + 1 : 1);
+                        log.setLastRetryAt(LocalDateTime.now());
+                        processingLogRepository.save(log);
+                    });
+        }
     }
 }
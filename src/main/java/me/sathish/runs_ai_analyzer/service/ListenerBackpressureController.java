@@ -0,0 +1,215 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.ListenerBackpressureProperties;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adapts the Garmin ingress listeners to downstream pressure.
+ *
+ * <p>The listeners used to pull at a fixed prefetch and 2 to 5 consumers regardless
+ * of how far behind analysis was, so bursts moved from the broker into the pending
+ * set and the heap while the LLM was throttled. Every {@code rabbitmq.backpressure.interval-ms}
+ * this controller samples:
+ * <ul>
+ *   <li>the pending-analysis backlog,</li>
+ *   <li>the longest LLM admission wait,</li>
+ *   <li>the share of failed batch analyses since the last sample.</li>
+ * </ul>
+ * Healthy signals step consumers and prefetch up; a long LLM wait or a high error rate
+ * steps them down; a backlog at the high-water mark stops the listeners until it
+ * drains to the low-water mark, leaving new events buffered on the broker.
+ *
+ * <p>Prefetch changes apply to consumers started after the change, including those
+ * added by a concurrency step or restarted on resume.
+ */
+@Component
+@ConditionalOnProperty(name = "rabbitmq.backpressure.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ListenerBackpressureController {
+
+    static final List<String> MANAGED_LISTENERS = List.of(
+            GarminEventListener.GARMIN_EVENTS_LISTENER_ID,
+            AthleteShardRouter.SHARD_ROUTER_LISTENER_ID);
+
+    enum Action {
+        PAUSE,
+        RESUME,
+        SCALE_DOWN,
+        SCALE_UP,
+        HOLD
+    }
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final PendingAnalysisQueue pendingQueue;
+    private final LlmAdmissionScheduler admissionScheduler;
+    private final ListenerBackpressureProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicInteger consumerLimit = new AtomicInteger();
+    private final AtomicInteger paused = new AtomicInteger();
+    private final Set<String> pausedListeners = new HashSet<>();
+    private int prefetch;
+    private double lastSuccesses;
+    private double lastFailures;
+
+    @Value("${rabbitmq.listener.prefetch:10}")
+    private int basePrefetch;
+
+    @Value("${rabbitmq.listener.concurrency:2}")
+    private int baseConcurrency;
+
+    @Value("${rabbitmq.listener.max-concurrency:5}")
+    private int maxConcurrency;
+
+    @Value("${rabbitmq.listener.batch-size:50}")
+    private int batchSize;
+
+    public ListenerBackpressureController(RabbitListenerEndpointRegistry listenerRegistry,
+                                          PendingAnalysisQueue pendingQueue,
+                                          LlmAdmissionScheduler admissionScheduler,
+                                          ListenerBackpressureProperties properties,
+                                          MeterRegistry meterRegistry) {
+        this.listenerRegistry = listenerRegistry;
+        this.pendingQueue = pendingQueue;
+        this.admissionScheduler = admissionScheduler;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("listener.backpressure.backlog", backlog);
+        meterRegistry.gauge("listener.backpressure.consumer.limit", consumerLimit);
+        meterRegistry.gauge("listener.backpressure.paused", paused);
+    }
+
+    @PostConstruct
+    void init() {
+        // Start from the limits RabbitMQListenerConfiguration gave the containers
+        consumerLimit.set(maxConcurrency);
+        prefetch = Math.max(basePrefetch, batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${rabbitmq.backpressure.interval-ms:5000}",
+            initialDelayString = "${rabbitmq.backpressure.interval-ms:5000}")
+    public synchronized void adjust() {
+        long pending;
+        try {
+            pending = pendingQueue.countPending();
+        } catch (Exception e) {
+            log.warn("Cannot read pending-analysis backlog, leaving listeners unchanged: {}", e.getMessage());
+            return;
+        }
+        backlog.set(pending);
+
+        Action action = decide(pending, admissionScheduler.longestWait(), sampleErrorRate(), paused.get() == 1);
+        switch (action) {
+            case PAUSE -> pause(pending);
+            case RESUME -> resume(pending);
+            case SCALE_DOWN -> scale(Math.max(1, consumerLimit.get() - 1), Math.max(batchSize, prefetch / 2));
+            case SCALE_UP -> scale(Math.min(maxConcurrency, consumerLimit.get() + 1),
+                    Math.min(Math.max(batchSize, properties.getMaxPrefetch()), prefetch * 2));
+            case HOLD -> {
+            }
+        }
+    }
+
+    Action decide(long pending, Duration llmWait, double errorRate, boolean isPaused) {
+        boolean llmCongested = llmWait.toMillis() >= properties.getLlmQueueWaitHighMs();
+        if (isPaused) {
+            return pending <= properties.getBacklogLowWater() && !llmCongested ? Action.RESUME : Action.HOLD;
+        }
+        if (pending >= properties.getBacklogHighWater()) {
+            return Action.PAUSE;
+        }
+        if (llmCongested || errorRate >= properties.getErrorRateHigh()) {
+            return Action.SCALE_DOWN;
+        }
+        return pending <= properties.getBacklogLowWater() ? Action.SCALE_UP : Action.HOLD;
+    }
+
+    private double sampleErrorRate() {
+        double successes = count("success");
+        double failures = count("failure");
+        double newSuccesses = successes - lastSuccesses;
+        double newFailures = failures - lastFailures;
+        lastSuccesses = successes;
+        lastFailures = failures;
+        double total = newSuccesses + newFailures;
+        return total > 0 ? newFailures / total : 0;
+    }
+
+    private double count(String outcome) {
+        Counter counter = meterRegistry.find(RunAnalysisBatchService.BATCH_CALLS_METRIC).tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private void pause(long pending) {
+        for (SimpleMessageListenerContainer container : managedContainers()) {
+            if (container.isRunning()) {
+                container.stop();
+                pausedListeners.add(container.getListenerId());
+            }
+        }
+        paused.set(1);
+        log.warn("Pending-analysis backlog {} reached high-water mark {}; paused Garmin listeners {}",
+                pending, properties.getBacklogHighWater(), pausedListeners);
+    }
+
+    private void resume(long pending) {
+        // Restart from the lowest step and let healthy samples scale back up
+        scale(1, batchSize);
+        for (SimpleMessageListenerContainer container : managedContainers()) {
+            if (pausedListeners.remove(container.getListenerId())) {
+                container.start();
+            }
+        }
+        paused.set(0);
+        log.info("Pending-analysis backlog drained to {}; resumed Garmin listeners", pending);
+    }
+
+    private void scale(int limit, int newPrefetch) {
+        if (limit == consumerLimit.get() && newPrefetch == prefetch) {
+            return;
+        }
+        boolean shrinking = limit < consumerLimit.get();
+        int concurrent = Math.min(baseConcurrency, limit);
+        for (SimpleMessageListenerContainer container : managedContainers()) {
+            container.setPrefetchCount(newPrefetch);
+            // The container rejects a max below the current minimum, so order the two calls
+            if (shrinking) {
+                container.setConcurrentConsumers(concurrent);
+                container.setMaxConcurrentConsumers(limit);
+            } else {
+                container.setMaxConcurrentConsumers(limit);
+                container.setConcurrentConsumers(concurrent);
+            }
+        }
+        log.info("Garmin listener limits: consumers {}-{} -> {}-{}, prefetch {} -> {}",
+                Math.min(baseConcurrency, consumerLimit.get()), consumerLimit.get(), concurrent, limit, prefetch, newPrefetch);
+        consumerLimit.set(limit);
+        prefetch = newPrefetch;
+    }
+
+    private List<SimpleMessageListenerContainer> managedContainers() {
+        return MANAGED_LISTENERS.stream()
+                .map(listenerRegistry::getListenerContainer)
+                .filter(SimpleMessageListenerContainer.class::isInstance)
+                .map(SimpleMessageListenerContainer.class::cast)
+                .toList();
+    }
+}
@@ -0,0 +1,349 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.LlmAdmissionProperties;
+import me.sathish.runs_ai_analyzer.config.LlmAdmissionProperties.ProviderLimits;
+import me.sathish.runs_ai_analyzer.exception.AiAnalysisException;
+import org.springframework.ai.chat.metadata.RateLimit;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Single admission point for every chat-model call.
+ *
+ * <p>Interactive requests, async jobs, batch flushes and reconciliation used to call
+ * the ChatClients uncoordinated, so a reconciliation burst could starve users and run
+ * into Anthropic 429s. Each provider now has:
+ * <ul>
+ *   <li>a wait queue ordered by {@link LlmLane}, then arrival;</li>
+ *   <li>a concurrency limit;</li>
+ *   <li>requests-per-minute and tokens-per-minute token buckets;</li>
+ *   <li>a back-off window, set from {@code retry-after} on 429s and from the rate-limit
+ *       headers Spring AI exposes on successful responses.</li>
+ * </ul>
+ * Queue wait is recorded per lane and provider as {@code llm.admission.queue.wait}.
+ */
+@Service
+@Slf4j
+public class LlmAdmissionScheduler {
+
+    public enum Provider {
+        ANTHROPIC,
+        OLLAMA
+    }
+
+    private final LlmAdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Provider, ProviderGate> gates = new EnumMap<>(Provider.class);
+
+    public LlmAdmissionScheduler(LlmAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        gates.put(Provider.ANTHROPIC, new ProviderGate(properties.getAnthropic()));
+        gates.put(Provider.OLLAMA, new ProviderGate(properties.getOllama()));
+    }
+
+    /**
+     * Waits for admission on {@code lane}, runs the call, and feeds its rate-limit
+     * metadata or error back into the provider's limits.
+     *
+     * @param promptText system and user prompt, used to estimate the token cost
+     * @throws AiAnalysisException if not admitted within {@code llm.admission.max-wait-seconds}
+     */
+    public ChatResponse execute(Provider provider, LlmLane lane, String promptText, Supplier<ChatResponse> call) {
+        ProviderGate gate = gates.get(provider);
+        long estimatedTokens = estimateTokens(promptText);
+
+        long enqueuedAt = System.nanoTime();
+        gate.admit(lane, estimatedTokens, enqueuedAt + TimeUnit.SECONDS.toNanos(properties.getMaxWaitSeconds()));
+        queueWaitTimer(provider, lane).record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+        try {
+            ChatResponse response = call.get();
+            gate.onResponse(response, estimatedTokens);
+            return response;
+        } catch (RuntimeException e) {
+            Duration backoff = rateLimitBackoff(e);
+            if (backoff != null) {
+                gate.blockFor(backoff);
+                meterRegistry.counter("llm.admission.rate.limited", "provider", provider.name()).increment();
+                log.warn("{} rate limited; pausing admissions for {}s", provider, backoff.toSeconds());
+            }
+            throw e;
+        } finally {
+            gate.release();
+        }
+    }
+
+    long estimateTokens(String promptText) {
+        int promptChars = promptText != null ? promptText.length() : 0;
+        // ~4 characters per token for English prose and JSON
+        return promptChars / 4 + properties.getEstimatedOutputTokens();
+    }
+
+    int waiting(Provider provider) {
+        return gates.get(provider).waitingCount();
+    }
+
+    /**
+     * How long the longest-waiting call has been queued, across all providers and lanes.
+     */
+    public Duration longestWait() {
+        long now = System.nanoTime();
+        long longest = 0;
+        for (ProviderGate gate : gates.values()) {
+            longest = Math.max(longest, gate.longestWaitNanos(now));
+        }
+        return Duration.ofNanos(longest);
+    }
+
+    private Timer queueWaitTimer(Provider provider, LlmLane lane) {
+        return Timer.builder("llm.admission.queue.wait")
+                .description("Time a chat-model call waited for admission")
+                .tag("provider", provider.name())
+                .tag("lane", lane.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Back-off for a rate-limit failure, or null if {@code e} is not one. Uses the
+     * {@code retry-after} header when the HTTP response is still reachable through
+     * the cause chain; Spring AI often wraps it away, so 429s recognised only from
+     * the message get the configured default.
+     */
+    Duration rateLimitBackoff(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException http
+                    && http.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                String retryAfter = http.getResponseHeaders() != null
+                        ? http.getResponseHeaders().getFirst("retry-after") : null;
+                if (retryAfter != null) {
+                    try {
+                        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(Double.parseDouble(retryAfter.trim()))));
+                    } catch (NumberFormatException ignored) {
+                        // HTTP-date form; fall through to the default
+                    }
+                }
+                return Duration.ofSeconds(properties.getDefaultRetryAfterSeconds());
+            }
+            String message = t.getMessage();
+            if (message != null && (message.contains("429") || message.contains("rate_limit_error"))) {
+                return Duration.ofSeconds(properties.getDefaultRetryAfterSeconds());
+            }
+        }
+        return null;
+    }
+
+    private static final class ProviderGate {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+                Comparator.comparing(Ticket::lane).thenComparingLong(Ticket::sequence));
+        private final int maxConcurrency;
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+        private long sequence;
+        private int inFlight;
+        private long blockedUntilNanos;
+
+        private ProviderGate(ProviderLimits limits) {
+            this.maxConcurrency = Math.max(1, limits.getMaxConcurrency());
+            this.requests = new TokenBucket(limits.getRequestsPerMinute());
+            this.tokens = new TokenBucket(limits.getTokensPerMinute());
+        }
+
+        void admit(LlmLane lane, long estimatedTokens, long deadlineNanos) {
+            lock.lock();
+            try {
+                Ticket ticket = new Ticket(lane, sequence++, System.nanoTime());
+                waiting.add(ticket);
+                try {
+                    while (true) {
+                        long now = System.nanoTime();
+                        long delay = waiting.peek() == ticket ? admissionDelay(now, estimatedTokens) : Long.MAX_VALUE;
+                        if (delay == 0) {
+                            waiting.poll();
+                            requests.take(1, now);
+                            tokens.take(estimatedTokens, now);
+                            inFlight++;
+                            return;
+                        }
+                        long remaining = deadlineNanos - now;
+                        if (remaining <= 0) {
+                            throw new AiAnalysisException("Timed out waiting for LLM capacity (lane " + lane + ")");
+                        }
+                        changed.awaitNanos(Math.min(delay, remaining));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AiAnalysisException("Interrupted waiting for LLM capacity", e);
+                } finally {
+                    waiting.remove(ticket);
+                    // The head may have changed, or capacity freed for the next ticket
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Nanoseconds until the head ticket may run; Long.MAX_VALUE means wait for a release. */
+        private long admissionDelay(long now, long estimatedTokens) {
+            if (inFlight >= maxConcurrency) {
+                return Long.MAX_VALUE;
+            }
+            long delay = Math.max(0, blockedUntilNanos - now);
+            delay = Math.max(delay, requests.nanosUntil(1, now));
+            return Math.max(delay, tokens.nanosUntil(estimatedTokens, now));
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void blockFor(Duration backoff) {
+            lock.lock();
+            try {
+                blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + backoff.toNanos());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onResponse(ChatResponse response, long estimatedTokens) {
+            if (response == null || response.getMetadata() == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                Usage usage = response.getMetadata().getUsage();
+                if (usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0) {
+                    tokens.take(usage.getTotalTokens() - estimatedTokens, now);
+                }
+                RateLimit rateLimit = response.getMetadata().getRateLimit();
+                if (rateLimit != null) {
+                    // Providers without rate-limit headers report zero limits; ignore those
+                    if (positive(rateLimit.getRequestsLimit()) && rateLimit.getRequestsRemaining() != null) {
+                        requests.capAt(rateLimit.getRequestsRemaining(), now);
+                        if (rateLimit.getRequestsRemaining() == 0 && rateLimit.getRequestsReset() != null) {
+                            blockedUntilNanos = Math.max(blockedUntilNanos, now + rateLimit.getRequestsReset().toNanos());
+                        }
+                    }
+                    if (positive(rateLimit.getTokensLimit()) && rateLimit.getTokensRemaining() != null) {
+                        tokens.capAt(rateLimit.getTokensRemaining(), now);
+                        if (rateLimit.getTokensRemaining() == 0 && rateLimit.getTokensReset() != null) {
+                            blockedUntilNanos = Math.max(blockedUntilNanos, now + rateLimit.getTokensReset().toNanos());
+                        }
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int waitingCount() {
+            lock.lock();
+            try {
+                return waiting.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long longestWaitNanos(long now) {
+            lock.lock();
+            try {
+                long longest = 0;
+                for (Ticket ticket : waiting) {
+                    longest = Math.max(longest, now - ticket.enqueuedNanos());
+                }
+                return longest;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static boolean positive(Long value) {
+            return value != null && value > 0;
+        }
+    }
+
+    private record Ticket(LlmLane lane, long sequence, long enqueuedNanos) {
+    }
+
+    /**
+     * Per-minute budget refilled continuously. A zero rate means unlimited. The level
+     * may go negative when actual usage exceeds the estimate; later calls then wait
+     * for the debt to refill.
+     */
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefillNanos;
+
+        TokenBucket(long perMinute) {
+            this.capacity = perMinute;
+            this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        long nanosUntil(long amount, long now) {
+            if (capacity <= 0) {
+                return 0;
+            }
+            refill(now);
+            // A single call larger than the whole budget waits for a full bucket
+            double needed = Math.min(amount, capacity);
+            return available >= needed ? 0 : (long) Math.ceil((needed - available) / refillPerNano);
+        }
+
+        void take(long amount, long now) {
+            if (capacity <= 0) {
+                return;
+            }
+            refill(now);
+            available -= amount;
+        }
+
+        void capAt(long remaining, long now) {
+            if (capacity <= 0) {
+                return;
+            }
+            refill(now);
+            available = Math.min(available, remaining);
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package me.sathish.runs_ai_analyzer.service;
+
+/**
+ * Priority lanes of {@link LlmAdmissionScheduler}, highest priority first. A waiting
+ * call is only admitted when no call from a higher lane is waiting for the same
+ * provider.
+ */
+public enum LlmLane {
+    /** A user waiting on a synchronous {@code /analyze} response. */
+    INTERACTIVE,
+    /** Async analysis jobs polled by the client. */
+    ASYNC_JOB,
+    /** Per-athlete batch flushes of Garmin events. */
+    BATCH,
+    /** Scheduled reconciliation retries and catch-up. */
+    RECONCILIATION
+}
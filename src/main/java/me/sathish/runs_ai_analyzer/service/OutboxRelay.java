@@ -0,0 +1,190 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent;
+import me.sathish.runs_ai_analyzer.repository.OutboxEventRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@code outbox_event} rows to RabbitMQ.
+ *
+ * <p>Each poll locks a batch of due rows with {@code FOR UPDATE SKIP LOCKED}, sends
+ * them all, waits once for their publisher confirms, and marks the acked rows sent
+ * in the same transaction. Nacked, unconfirmed and failed sends stay unsent and are
+ * retried with exponential backoff, so nothing is lost while the broker is down.
+ * Delivery is at-least-once: every message carries {@code outbox-<id>} as its
+ * message id so consumers can deduplicate.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer confirmLatency;
+    private final Counter nacks;
+    private final Counter timeouts;
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${outbox.relay.max-backoff-seconds:300}")
+    private long maxBackoffSeconds;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository, RabbitTemplate rabbitTemplate,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        meterRegistry.gauge("outbox.relay.backlog", backlog);
+        this.confirmLatency = Timer.builder("outbox.relay.confirm.latency")
+                .description("Time from send to broker confirm")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.nacks = meterRegistry.counter("outbox.relay.nacks");
+        this.timeouts = meterRegistry.counter("outbox.relay.confirm.timeouts");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        try {
+            // Keep draining while batches come back full
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch()))) {
+                log.debug("Outbox batch full, draining next batch");
+            }
+            backlog.set(outboxRepository.countUnsent());
+        } catch (Exception e) {
+            log.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup.cron:0 45 3 * * *}")
+    public void purgeSent() {
+        int deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Purged {} sent outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    /**
+     * Publishes one batch inside the caller's transaction.
+     *
+     * @return true if the batch was full and there may be more due rows
+     */
+    boolean relayBatch() {
+        List<OutboxEvent> batch = outboxRepository.lockDueBatch(LocalDateTime.now(), batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        boolean confirmsEnabled = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        List<InFlight> inFlight = new ArrayList<>(batch.size());
+        int sent = 0;
+        for (OutboxEvent event : batch) {
+            CorrelationData correlation = new CorrelationData("outbox-" + event.getId() + ":" + event.getAttempts());
+            try {
+                send(event, correlation);
+                if (confirmsEnabled) {
+                    inFlight.add(new InFlight(event, correlation, System.nanoTime()));
+                } else {
+                    // Without confirms a successful send is the best evidence available
+                    event.setSentAt(LocalDateTime.now());
+                    sent++;
+                }
+            } catch (Exception e) {
+                markFailed(event, "send failed: " + e.getMessage());
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (InFlight pending : inFlight) {
+            try {
+                CorrelationData.Confirm confirm = pending.correlation().getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                confirmLatency.record(System.nanoTime() - pending.sentAtNanos(), TimeUnit.NANOSECONDS);
+                if (confirm.ack()) {
+                    pending.event().setSentAt(LocalDateTime.now());
+                    sent++;
+                } else {
+                    nacks.increment();
+                    markFailed(pending.event(), "nack: " + confirm.reason());
+                }
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                markFailed(pending.event(), "confirm timeout");
+            } catch (ExecutionException e) {
+                markFailed(pending.event(), "confirm failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                markFailed(pending.event(), "interrupted");
+            }
+        }
+
+        log.debug("Relayed {}/{} outbox events", sent, batch.size());
+        return batch.size() == batchSize && sent == batch.size();
+    }
+
+    private void send(OutboxEvent event, CorrelationData correlation) {
+        String messageId = "outbox-" + event.getId();
+        switch (event.getWireFormat()) {
+            case RAW_JSON -> {
+                // Bypasses the message converter; see RunJournalController for why
+                // eventstracker needs the exact single-encoded JSON bytes
+                Message message = MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                        .setContentType("application/json")
+                        .setContentEncoding(StandardCharsets.UTF_8.name())
+                        .setMessageId(messageId)
+                        .build();
+                rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), message, correlation);
+            }
+            case CONVERTED -> rabbitTemplate.convertAndSend(event.getExchange(), event.getRoutingKey(),
+                    (Object) event.getPayload(), message -> {
+                        message.getMessageProperties().setMessageId(messageId);
+                        return message;
+                    }, correlation);
+        }
+    }
+
+    private void markFailed(OutboxEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        long backoffSeconds = Math.min(maxBackoffSeconds, 1L << Math.min(attempts, 20));
+        event.setAttempts(attempts);
+        event.setLastError(error);
+        event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofSeconds(backoffSeconds)));
+        log.warn("Outbox event id={} not confirmed (attempt {}): {}", event.getId(), attempts, error);
+    }
+
+    private record InFlight(OutboxEvent event, CorrelationData correlation, long sentAtNanos) {
+    }
+}
@@ -0,0 +1,39 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent.WireFormat;
+import me.sathish.runs_ai_analyzer.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records outbound events in {@code outbox_event}. Joins the caller's transaction, so
+ * the event commits or rolls back together with the change it describes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxRepository;
+
+    @Transactional
+    public OutboxEvent append(String exchange, String routingKey, WireFormat wireFormat, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent event = outboxRepository.save(OutboxEvent.builder()
+                .exchange(exchange)
+                .routingKey(routingKey)
+                .wireFormat(wireFormat)
+                .payload(payload)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+        log.debug("Appended outbox event id={}, routingKey={}", event.getId(), routingKey);
+        return event;
+    }
+}
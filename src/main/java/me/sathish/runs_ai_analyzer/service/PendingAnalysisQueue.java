@@ -0,0 +1,132 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Postgres-backed pending set of Garmin events waiting to be analyzed, grouped by
+ * athlete (migration V005).
+ *
+ * <p>Every replica enqueues into and flushes from the same table, so an athlete's
+ * events accumulate in one batch no matter which replica consumed them. A flush leases
+ * an athlete's rows in a short transaction (migration V011), analyzes them with no
+ * transaction open, and then {@link #complete deletes} the leased rows together with
+ * the outcome. Rows of a flush that crashed become claimable again when the lease
+ * expires.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PendingAnalysisQueue {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds events to the pending set. Events already pending are ignored.
+     */
+    public void enqueue(List<GarminRunEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO pending_analysis_event (athlete_key, activity_id, database_id, event_type, enqueued_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (activity_id, database_id) DO NOTHING
+                """, events, events.size(), (ps, event) -> {
+            ps.setString(1, athleteKey(event));
+            ps.setString(2, event.getActivityId());
+            ps.setLong(3, event.getDatabaseId());
+            ps.setString(4, event.getEventType());
+            ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+        });
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pending_analysis_event", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Athletes with at least {@code batchSize} pending events, or whose oldest pending
+     * event was enqueued before {@code windowStart}.
+     */
+    public List<String> findReadyAthletes(int batchSize, LocalDateTime windowStart) {
+        return jdbcTemplate.queryForList("""
+                SELECT athlete_key
+                FROM pending_analysis_event
+                WHERE lease_expires_at IS NULL OR lease_expires_at < NOW()
+                GROUP BY athlete_key
+                HAVING COUNT(*) >= ? OR MIN(enqueued_at) < ?
+                ORDER BY MIN(enqueued_at)
+                """, String.class, batchSize, Timestamp.valueOf(windowStart));
+    }
+
+    /**
+     * Leases up to {@code limit} of the athlete's oldest pending events to
+     * {@code leaseOwner} until {@code leaseExpiresAt}. Returns nothing if another flush
+     * of this athlete is running here or on another replica. Commit the claim before
+     * analyzing; rows stay in the table until {@link #complete}.
+     */
+    public List<GarminRunEvent> claim(String athleteKey, int limit, String leaseOwner, LocalDateTime leaseExpiresAt) {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('pending_analysis_event'), hashtext(?))",
+                Boolean.class, athleteKey);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Athlete {} is being claimed by another instance", athleteKey);
+            return List.of();
+        }
+        return jdbcTemplate.query("""
+                UPDATE pending_analysis_event
+                SET lease_owner = ?, lease_expires_at = ?
+                WHERE id IN (SELECT id
+                             FROM pending_analysis_event
+                             WHERE athlete_key = ?
+                               AND (lease_expires_at IS NULL OR lease_expires_at < NOW())
+                             ORDER BY enqueued_at
+                             LIMIT ?
+                             FOR UPDATE SKIP LOCKED)
+                  AND NOT EXISTS (SELECT 1
+                                  FROM pending_analysis_event active
+                                  WHERE active.athlete_key = ?
+                                    AND active.lease_expires_at >= NOW())
+                RETURNING activity_id, database_id, event_type
+                """, (rs, rowNum) -> {
+            GarminRunEvent event = new GarminRunEvent();
+            event.setActivityId(rs.getString("activity_id"));
+            event.setDatabaseId(rs.getLong("database_id"));
+            event.setEventType(rs.getString("event_type"));
+            return event;
+        }, leaseOwner, Timestamp.valueOf(leaseExpiresAt), athleteKey, limit, athleteKey);
+    }
+
+    /**
+     * Deletes the rows leased to {@code leaseOwner}. Run it in the transaction that
+     * records the flush outcome.
+     *
+     * @return the number of rows deleted; 0 means the lease expired and the rows were
+     *         claimed by another flush
+     */
+    public int complete(String leaseOwner) {
+        return jdbcTemplate.update("DELETE FROM pending_analysis_event WHERE lease_owner = ?", leaseOwner);
+    }
+
+    /**
+     * Batching key for an event. Garmin events do not carry an athlete id yet, so the
+     * runs-app database id stands in, which matches the previous in-memory grouping.
+     */
+    static String athleteKey(GarminRunEvent event) {
+        return String.valueOf(event.getDatabaseId());
+    }
+
+    static String athleteKey(GarminRunDataDTO run) {
+        return String.valueOf(run.getId());
+    }
+}
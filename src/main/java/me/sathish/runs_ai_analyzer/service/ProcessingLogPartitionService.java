@@ -0,0 +1,124 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the monthly range partitions of {@code analysis_processing_log}.
+ *
+ * <p>The table is partitioned by {@code created_at} month (migration V002). This
+ * service keeps a few future partitions ahead of the clock so inserts never fall
+ * into the default partition, and implements retention by detaching and dropping
+ * whole partitions -- no row deletes, no index bloat, no vacuum debt.
+ *
+ * <p>Partition names follow {@code analysis_processing_log_pYYYY_MM}, the format
+ * produced by the {@code create_analysis_processing_log_partition} SQL function.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessingLogPartitionService {
+
+    static final String PARENT_TABLE = "analysis_processing_log";
+    static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${processing-log.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    @Scheduled(cron = "${processing-log.partition.cron:0 30 0 * * *}")
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void ensureFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        try {
+            for (int i = 0; i <= monthsAhead; i++) {
+                String name = jdbcTemplate.queryForObject(
+                        "SELECT create_analysis_processing_log_partition(?)",
+                        String.class,
+                        current.plusMonths(i).atDay(1));
+                log.debug("Ensured processing log partition {}", name);
+            }
+        } catch (Exception e) {
+            log.error("Failed to create future processing log partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Detaches and drops every monthly partition whose entire range ends on or before
+     * {@code cutoff}. A partition still holding rows newer than the cutoff is kept.
+     *
+     * @return names of the partitions that were dropped
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<String> dropPartitionsBefore(LocalDateTime cutoff) {
+        List<String> dropped = new ArrayList<>();
+        for (String partition : listPartitions()) {
+            YearMonth month = parseMonth(partition);
+            if (month == null || month.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            dropped.add(partition);
+            log.info("Dropped processing log partition {} (cutoff={})", partition, cutoff);
+        }
+        if (!dropped.isEmpty()) {
+            releaseDroppedKeys(cutoff);
+        }
+        return dropped;
+    }
+
+    /**
+     * Deletes idempotency keys (migration V010) whose log rows no longer exist, so a run
+     * whose log aged out can be logged again.
+     */
+    private void releaseDroppedKeys(LocalDateTime cutoff) {
+        int released = jdbcTemplate.update("""
+                DELETE FROM analysis_processing_log_key k
+                WHERE k.created_at < ?
+                  AND NOT EXISTS (SELECT 1
+                                  FROM analysis_processing_log l
+                                  WHERE l.activity_id = k.activity_id
+                                    AND l.database_id = k.database_id)
+                """, Timestamp.valueOf(cutoff));
+        log.info("Released {} processing log keys older than {}", released, cutoff);
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT child.relname
+                FROM pg_inherits i
+                JOIN pg_class parent ON parent.oid = i.inhparent
+                JOIN pg_class child ON child.oid = i.inhrelid
+                WHERE parent.relname = ?
+                ORDER BY child.relname
+                """, String.class, PARENT_TABLE);
+    }
+
+    static YearMonth parseMonth(String partitionName) {
+        if (partitionName == null || !partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
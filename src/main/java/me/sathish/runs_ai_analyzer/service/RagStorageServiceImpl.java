@@ -1,20 +1,24 @@
 package me.sathish.runs_ai_analyzer.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.config.RagCacheProperties;
+import me.sathish.runs_ai_analyzer.config.ReplicaRead;
+import me.sathish.runs_ai_analyzer.dto.AiStructuredAnalysis;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
 import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
 import me.sathish.runs_ai_analyzer.repository.RunAnalysisDocumentRepository;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,10 +32,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RagStorageServiceImpl implements RagStorageService {
 
+    private static final Comparator<RunAnalysisDocument> NEWEST_FIRST = Comparator
+            .comparing(RunAnalysisDocument::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(RunAnalysisDocument::getDocumentId, Comparator.nullsLast(Comparator.naturalOrder()));
+
     private final RunAnalysisDocumentRepository documentRepository;
     private final VectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
     private final RagCacheProperties cacheProperties;
-    private final ObjectMapper objectMapper;
+    private final AnalysisArchiveService archiveService;
 
     @Override
     @Transactional
@@ -44,7 +53,7 @@ public class RagStorageServiceImpl implements RagStorageService {
                 .map(GarminRunDataDTO::getActivityId)
                 .collect(Collectors.joining(","));
 
-        Map<String, Object> metadata = buildMetadata(runs, response, documentId);
+        Map<String, Object> metadata = buildMetadata(runs, documentId);
 
         RunAnalysisDocument document = RunAnalysisDocument.builder()
                 .documentId(documentId)
@@ -54,6 +63,8 @@ public class RagStorageServiceImpl implements RagStorageService {
                 .summary(response.getSummary())
                 .totalRuns(response.getMetrics() != null ? response.getMetrics().getTotalRuns() : runs.size())
                 .totalDistanceKm(response.getMetrics() != null ? response.getMetrics().getTotalDistanceKm() : null)
+                .structuredAnalysis(toStructuredAnalysis(response))
+                .performanceMetrics(response.getMetrics())
                 .metadata(metadata)
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -104,28 +115,11 @@ public class RagStorageServiceImpl implements RagStorageService {
         return content.toString();
     }
 
-    private Map<String, Object> buildMetadata(List<GarminRunDataDTO> runs, RunAnalysisResponse response, UUID documentId) {
+    private Map<String, Object> buildMetadata(List<GarminRunDataDTO> runs, UUID documentId) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put("documentId", documentId.toString());
         metadata.put("runCount", runs.size());
 
-        if (response.getMetrics() != null) {
-            metadata.put("totalRuns", response.getMetrics().getTotalRuns());
-            metadata.put("totalDistanceKm", response.getMetrics().getTotalDistanceKm());
-            metadata.put("totalDuration", response.getMetrics().getTotalDuration());
-            metadata.put("averagePace", response.getMetrics().getAveragePaceMinPerKm());
-            metadata.put("averageHeartRate", response.getMetrics().getAverageHeartRate());
-            metadata.put("totalCalories", response.getMetrics().getTotalCalories());
-        }
-
-        metadata.put("structuredSummary", response.getSummary());
-        metadata.put("recommendations", defaultList(response.getRecommendations()));
-        metadata.put("riskFlags", defaultList(response.getRiskFlags()));
-        metadata.put("confidenceScore", response.getConfidenceScore());
-        metadata.put("insights", objectMapper.convertValue(
-                response.getInsights() != null ? response.getInsights() : List.of(),
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Map.class)));
-
         List<String> activityDates = runs.stream()
                 .map(GarminRunDataDTO::getActivityDate)
                 .filter(Objects::nonNull)
@@ -138,11 +132,23 @@ public class RagStorageServiceImpl implements RagStorageService {
         return metadata;
     }
 
+    private AiStructuredAnalysis toStructuredAnalysis(RunAnalysisResponse response) {
+        return AiStructuredAnalysis.builder()
+                .summary(response.getSummary())
+                .insights(response.getInsights() != null ? response.getInsights() : List.of())
+                .recommendations(defaultList(response.getRecommendations()))
+                .riskFlags(defaultList(response.getRiskFlags()))
+                .confidenceScore(response.getConfidenceScore())
+                .build();
+    }
+
     private List<String> defaultList(List<String> value) {
         return value != null ? value : List.of();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public List<Document> searchSimilarAnalyses(String query, int topK) {
         log.debug("Searching for similar analyses with query: '{}', topK: {}", query, topK);
         try {
@@ -161,6 +167,8 @@ public class RagStorageServiceImpl implements RagStorageService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public Optional<RunAnalysisDocument> findCachedAnalysis(String queryText) {
         if (!cacheProperties.isEnabled()) {
             log.debug("RAG cache is disabled, skipping cache lookup");
@@ -171,46 +179,18 @@ public class RagStorageServiceImpl implements RagStorageService {
                 cacheProperties.getSimilarityThreshold());
 
         try {
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(queryText)
-                    .topK(1)
-                    .similarityThreshold(cacheProperties.getSimilarityThreshold())
-                    .build();
-
-            List<Document> results = vectorStore.similaritySearch(searchRequest);
-
-            if (results.isEmpty()) {
-                log.debug("No cached analysis found above similarity threshold");
-                return Optional.empty();
-            }
-
-            Document topResult = results.getFirst();
-            String documentIdStr = (String) topResult.getMetadata().get("documentId");
-            
-            if (documentIdStr == null) {
-                log.warn("Found similar document but missing documentId in metadata");
-                return Optional.empty();
-            }
+            String embedding = toVectorLiteral(embeddingModel.embed(queryText));
+            LocalDateTime staleThreshold = LocalDateTime.now().minusDays(cacheProperties.getTtlDays());
 
-            UUID documentId = UUID.fromString(documentIdStr);
-            Optional<RunAnalysisDocument> cachedDoc = documentRepository.findByDocumentId(documentId);
+            Optional<RunAnalysisDocument> cachedDoc = documentRepository.findMostSimilarFresh(
+                    embedding, 1.0 - cacheProperties.getSimilarityThreshold(), staleThreshold);
 
             if (cachedDoc.isEmpty()) {
-                log.warn("Document ID {} found in vector store but not in database", documentId);
-                return Optional.empty();
-            }
-
-            RunAnalysisDocument document = cachedDoc.get();
-            
-            // Check if document is stale
-            LocalDateTime staleThreshold = LocalDateTime.now().minusDays(cacheProperties.getTtlDays());
-            if (document.getCreatedAt().isBefore(staleThreshold)) {
-                log.debug("Cached analysis is stale (created: {}, threshold: {})", 
-                        document.getCreatedAt(), staleThreshold);
+                log.debug("No fresh cached analysis found above similarity threshold");
                 return Optional.empty();
             }
 
-            log.info("Found valid cached analysis with document ID: {}", documentId);
+            log.info("Found valid cached analysis with document ID: {}", cachedDoc.get().getDocumentId());
             return cachedDoc;
 
         } catch (Exception e) {
@@ -219,12 +199,27 @@ public class RagStorageServiceImpl implements RagStorageService {
         }
     }
 
+    private static String toVectorLiteral(float[] embedding) {
+        StringBuilder sb = new StringBuilder(embedding.length * 10).append('[');
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(embedding[i]);
+        }
+        return sb.append(']').toString();
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public Optional<RunAnalysisDocument> findByDocumentId(UUID documentId) {
-        return documentRepository.findByDocumentId(documentId);
+        Optional<RunAnalysisDocument> hot = documentRepository.findByDocumentId(documentId);
+        return hot.isPresent() ? hot : archiveService.findByDocumentId(documentId);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public List<RunAnalysisDocument> getRecentAnalyses(int limit) {
         if (limit <= 10) {
             return documentRepository.findTop10ByOrderByCreatedAtDesc();
@@ -235,11 +230,20 @@ public class RagStorageServiceImpl implements RagStorageService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public List<RunAnalysisDocument> findAnalysesByActivityId(String activityId) {
-        return documentRepository.findByActivityIdContaining(activityId);
+        List<RunAnalysisDocument> combined = new ArrayList<>(documentRepository.findByActivityIdContaining(activityId));
+        combined.addAll(archiveService.findByActivityId(activityId));
+        // Newest first, whether a document is hot or archived, so archiving a document
+        // does not reorder the list (or change its ETag)
+        combined.sort(NEWEST_FIRST);
+        return combined;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public List<RunAnalysisDocument> findAnalysesByMinimumDistance(Double minDistanceKm) {
         return documentRepository.findByMinimumDistance(minDistanceKm);
     }
@@ -0,0 +1,202 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Postgres-backed checkpoint of reconciliation catch-up chunks (migration V008).
+ *
+ * <p>Every method is a single statement; callers choose the transaction. Claims use
+ * {@code FOR UPDATE SKIP LOCKED} and a lease, so several replicas can work through
+ * the same plan, and a chunk whose lease expired (its instance died mid-call) is
+ * claimed again until {@code maxAttempts}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationCheckpointStore {
+
+    static final String PLAN_LOCK = "reconciliation_chunk_plan";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes the transaction-scoped advisory lock guarding planning, so two replicas
+     * starting a pass together do not plan the same runs twice.
+     */
+    public boolean tryLockPlanning() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext(?))", Boolean.class, PLAN_LOCK));
+    }
+
+    /**
+     * Of {@code runs}, those with no COMPLETED analysis log that are not yet planned
+     * into a chunk. The candidates are joined as an {@code unnest} of two arrays, so
+     * the statement stays the same size however many runs a sync page holds.
+     */
+    public List<MissedRun> findMissed(List<GarminRunDataDTO> runs) {
+        if (runs.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("""
+                SELECT r.activity_id,
+                       r.database_id,
+                       EXISTS (SELECT 1
+                               FROM analysis_processing_log l
+                               WHERE l.activity_id = r.activity_id
+                                 AND l.database_id = r.database_id) AS logged
+                FROM unnest(?::text[], ?::bigint[]) AS r(activity_id, database_id)
+                WHERE NOT EXISTS (SELECT 1
+                                  FROM analysis_processing_log l
+                                  WHERE l.activity_id = r.activity_id
+                                    AND l.processing_status = 'COMPLETED')
+                  AND NOT EXISTS (SELECT 1
+                                  FROM reconciliation_chunk c
+                                  WHERE c.database_ids @> ARRAY [r.database_id])
+                """, (rs, rowNum) -> new MissedRun(rs.getString("activity_id"), rs.getLong("database_id"),
+                        rs.getBoolean("logged")),
+                toArrayLiteral(runs.stream().map(GarminRunDataDTO::getActivityId).toList()),
+                toArrayLiteral(runs.stream().map(GarminRunDataDTO::getId).toList()));
+    }
+
+    public void insertChunks(List<PlannedChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO reconciliation_chunk (athlete_key, week_start, database_ids, activity_ids, status)
+                VALUES (?, ?, ?::bigint[], ?::text[], 'PENDING')
+                """, chunks, chunks.size(), (ps, chunk) -> {
+            ps.setString(1, chunk.athleteKey());
+            ps.setObject(2, chunk.weekStart());
+            ps.setString(3, toArrayLiteral(chunk.databaseIds()));
+            ps.setString(4, toArrayLiteral(chunk.activityIds()));
+        });
+    }
+
+    /**
+     * Fails PROCESSING chunks whose lease expired after {@code maxAttempts} attempts.
+     *
+     * @return the abandoned chunks
+     */
+    public List<Chunk> failAbandoned(int maxAttempts) {
+        return jdbcTemplate.query("""
+                UPDATE reconciliation_chunk
+                SET status = 'FAILED', lease_owner = NULL, lease_expires_at = NULL,
+                    error_message = 'Abandoned after ' || attempts || ' interrupted attempts', updated_at = NOW()
+                WHERE status = 'PROCESSING' AND lease_expires_at < NOW() AND attempts >= ?
+                RETURNING id, athlete_key, week_start, database_ids, activity_ids, attempts
+                """, ReconciliationCheckpointStore::mapChunk, maxAttempts);
+    }
+
+    /**
+     * Leases up to {@code limit} PENDING chunks, and PROCESSING chunks whose lease
+     * expired, oldest week first. Chunks in {@code excludeIds} (already attempted in
+     * this pass) are left for a later pass.
+     */
+    public List<Chunk> claim(int limit, String owner, LocalDateTime leaseExpiresAt, Collection<Long> excludeIds) {
+        return jdbcTemplate.query("""
+                UPDATE reconciliation_chunk
+                SET status = 'PROCESSING', attempts = attempts + 1, lease_owner = ?, lease_expires_at = ?,
+                    updated_at = NOW()
+                WHERE id IN (SELECT id
+                             FROM reconciliation_chunk
+                             WHERE (status = 'PENDING'
+                                 OR (status = 'PROCESSING' AND lease_expires_at < NOW()))
+                               AND NOT (id = ANY (?::bigint[]))
+                             ORDER BY week_start, id
+                             LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING id, athlete_key, week_start, database_ids, activity_ids, attempts
+                """, ReconciliationCheckpointStore::mapChunk, owner, Timestamp.valueOf(leaseExpiresAt),
+                toArrayLiteral(excludeIds), limit);
+    }
+
+    /**
+     * Marks a leased chunk COMPLETED.
+     *
+     * @return false if {@code owner} no longer holds the lease
+     */
+    public boolean complete(long chunkId, String owner, String documentId) {
+        return jdbcTemplate.update("""
+                UPDATE reconciliation_chunk
+                SET status = 'COMPLETED', document_id = ?, error_message = NULL,
+                    lease_owner = NULL, lease_expires_at = NULL, updated_at = NOW()
+                WHERE id = ? AND status = 'PROCESSING' AND lease_owner = ?
+                """, documentId, chunkId, owner) == 1;
+    }
+
+    /**
+     * Returns a leased chunk to PENDING after a failed attempt, or FAILED once it has
+     * had {@code maxAttempts} attempts.
+     *
+     * @return the chunk's new status, or null if {@code owner} no longer holds the lease
+     */
+    public String release(long chunkId, String owner, String errorMessage, int maxAttempts) {
+        List<String> status = jdbcTemplate.queryForList("""
+                UPDATE reconciliation_chunk
+                SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END,
+                    error_message = ?, lease_owner = NULL, lease_expires_at = NULL, updated_at = NOW()
+                WHERE id = ? AND status = 'PROCESSING' AND lease_owner = ?
+                RETURNING status
+                """, String.class, maxAttempts, errorMessage, chunkId, owner);
+        return status.isEmpty() ? null : status.getFirst();
+    }
+
+    /**
+     * Deletes finished chunks last touched before {@code cutoff}. Their runs are
+     * outside the catch-up lookback by then and cannot be planned again.
+     */
+    public int deleteFinishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("""
+                DELETE FROM reconciliation_chunk
+                WHERE status IN ('COMPLETED', 'FAILED') AND updated_at < ?
+                """, Timestamp.valueOf(cutoff));
+    }
+
+    static String toArrayLiteral(Collection<?> values) {
+        return values.stream()
+                .map(value -> value instanceof String text
+                        ? '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"'
+                        : String.valueOf(value))
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static Chunk mapChunk(ResultSet rs, int rowNum) throws SQLException {
+        return new Chunk(
+                rs.getLong("id"),
+                rs.getString("athlete_key"),
+                rs.getObject("week_start", LocalDate.class),
+                Arrays.asList((Long[]) arrayOf(rs.getArray("database_ids"))),
+                Arrays.asList((String[]) arrayOf(rs.getArray("activity_ids"))),
+                rs.getInt("attempts"));
+    }
+
+    private static Object[] arrayOf(Array array) throws SQLException {
+        return (Object[]) array.getArray();
+    }
+
+    public record MissedRun(String activityId, long databaseId, boolean logged) {
+    }
+
+    public record PlannedChunk(String athleteKey, LocalDate weekStart, List<Long> databaseIds,
+                               List<String> activityIds) {
+    }
+
+    public record Chunk(long id, String athleteKey, LocalDate weekStart, List<Long> databaseIds,
+                        List<String> activityIds, int attempts) {
+    }
+}
@@ -1,5 +1,7 @@
 package me.sathish.runs_ai_analyzer.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
@@ -10,24 +12,50 @@ import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.net.InetAddress;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * Periodically repairs analyses the event pipeline missed: retries failed events,
+ * catches up runs-app runs that were never analyzed, and applies log retention.
+ *
+ * <p>Catch-up follows runs-app incrementally from a persisted
+ * {@link SyncWatermarkStore watermark} and is split into chunks of one athlete and one week (at most
+ * {@code reconciliation.chunk.max-runs} runs each) persisted by
+ * {@link ReconciliationCheckpointStore}. Chunks are leased and analyzed with bounded
+ * parallelism outside any transaction, and each outcome is committed on its own, so a
+ * crash mid-pass resumes at the first unfinished chunk instead of re-analyzing
+ * everything in one oversized call.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReconciliationService {
 
+    static final String SYNC_WATERMARK = "runs-app-runs";
+
     private final AnalysisProcessingLogRepository processingLogRepository;
+    private final ProcessingLogPartitionService partitionService;
     private final RunAnalysisService analysisService;
-    private final RestTemplate restTemplate;
-
-    @Value("${runs-app.base-url:http://localhost:8080}")
-    private String runsAppBaseUrl;
+    private final RunsAppClient runsAppClient;
+    private final ReconciliationCheckpointStore checkpointStore;
+    private final SyncWatermarkStore watermarkStore;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner = resolveHostName() + "/" + UUID.randomUUID();
+    private final ReentrantLock passLock = new ReentrantLock();
+    private ExecutorService chunkExecutor;
 
     @Value("${reconciliation.enabled:true}")
     private boolean reconciliationEnabled;
@@ -41,20 +69,60 @@ public class ReconciliationService {
     @Value("${reconciliation.lookback-days:7}")
     private int lookbackDays;
 
+    @Value("${reconciliation.sync.page-size:500}")
+    private int syncPageSize;
+
+    @Value("${reconciliation.sync.max-pages:20}")
+    private int syncMaxPages;
+
+    @Value("${reconciliation.chunk.max-runs:20}")
+    private int maxRunsPerChunk;
+
+    @Value("${reconciliation.chunk.parallelism:2}")
+    private int chunkParallelism;
+
+    @Value("${reconciliation.chunk.lease-seconds:900}")
+    private long leaseSeconds;
+
+    @Value("${reconciliation.chunk.max-per-pass:100}")
+    private int maxChunksPerPass;
+
+    @PostConstruct
+    void start() {
+        chunkExecutor = Executors.newFixedThreadPool(chunkParallelism, r -> new Thread(r, "reconciliation-chunk"));
+    }
+
+    @PreDestroy
+    void stop() {
+        // Interrupted chunks are resumed by the next pass once their lease expires
+        chunkExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs a reconciliation pass. There is deliberately no transaction around the pass:
+     * each step below commits its own short transactions, and no connection is held
+     * across runs-app or LLM calls. A pass that starts while another one is still
+     * running in this instance is skipped.
+     */
     @Scheduled(cron = "${reconciliation.cron:0 0 */6 * * *}")
-    @Transactional
     public void reconcileMissedEvents() {
         if (!reconciliationEnabled) {
             log.debug("Reconciliation is disabled");
             return;
         }
+        if (!passLock.tryLock()) {
+            log.info("Reconciliation pass already running; skipping");
+            return;
+        }
 
         log.info("Starting reconciliation process for missed events");
 
         try {
             retryFailedEvents();
             
-            catchUpMissedRuns();
+            planCatchUp();
+
+            processChunks();
             
             cleanupOldLogs();
             
@@ -62,14 +130,20 @@ public class ReconciliationService {
             
         } catch (Exception e) {
             log.error("Reconciliation process failed: {}", e.getMessage(), e);
+        } finally {
+            passLock.unlock();
         }
     }
 
     private void retryFailedEvents() {
         LocalDateTime retryThreshold = LocalDateTime.now().minusMinutes(retryDelayMinutes);
         
+        // Anything older than the lookback window has been through catch-up planning,
+        // so retries only need to scan the recent partitions.
+        LocalDateTime createdAfter = LocalDateTime.now().minusDays(lookbackDays);
+
         List<AnalysisProcessingLog> failedLogs = processingLogRepository.findRetryableFailed(
-                ProcessingStatus.FAILED, maxRetries, retryThreshold);
+                ProcessingStatus.FAILED, maxRetries, retryThreshold, createdAfter);
 
         if (failedLogs.isEmpty()) {
             log.debug("No failed events to retry");
@@ -90,7 +164,7 @@ public class ReconciliationService {
                     .collect(Collectors.toList());
 
             try {
-                List<GarminRunDataDTO> runs = fetchRunsFromRunsApp(dbIds);
+                List<GarminRunDataDTO> runs = runsAppClient.fetchRuns(dbIds);
                 
                 if (runs.isEmpty()) {
                     logs.forEach(log -> markAsSkipped(log, "No data found in runs-app"));
@@ -112,7 +186,7 @@ public class ReconciliationService {
                     processingLogRepository.save(log);
                 });
 
-                RunAnalysisResponse response = analysisService.analyzeRuns(runningActivities, false);
+                RunAnalysisResponse response = analysisService.analyzeRuns(runningActivities, false, LlmLane.RECONCILIATION);
 
                 logs.forEach(log -> markAsCompleted(log, response.getDocumentId()));
 
@@ -126,104 +200,300 @@ public class ReconciliationService {
         }
     }
 
-    private void catchUpMissedRuns() {
+    /**
+     * Pages through runs-app runs changed since the persisted sync watermark and plans
+     * the ones with no completed analysis into checkpointed chunks. Each page is
+     * planned and the watermark advanced past it in one short transaction, so network
+     * and diff cost scale with what changed, and a crash resumes at the last page.
+     * Only runs dated inside the lookback window are planned.
+     */
+    void planCatchUp() {
         try {
-            LocalDateTime since = LocalDateTime.now().minusDays(lookbackDays);
-            
-            String url = runsAppBaseUrl + "/api/garminRuns/recent?since=" + since;
-            log.debug("Fetching recent runs from runs-app: {}", url);
-            
-            GarminRunDataDTO[] recentRuns = restTemplate.getForObject(url, GarminRunDataDTO[].class);
-            
-            if (recentRuns == null || recentRuns.length == 0) {
-                log.debug("No recent runs found in runs-app");
-                return;
+            LocalDate windowStart = LocalDate.now().minusDays(lookbackDays);
+            SyncWatermarkStore.Watermark watermark = watermarkStore.find(SYNC_WATERMARK)
+                    .orElseGet(() -> new SyncWatermarkStore.Watermark(windowStart.atStartOfDay(), 0));
+
+            for (int page = 1; page <= syncMaxPages; page++) {
+                List<GarminRunDataDTO> runs = runsAppClient.fetchRecentRuns(
+                        watermark.since(), watermark.lastId(), syncPageSize);
+                Optional<SyncWatermarkStore.Watermark> next = advance(watermark, runs);
+                boolean planned = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    if (!checkpointStore.tryLockPlanning()) {
+                        log.debug("Another instance is planning reconciliation chunks");
+                        return false;
+                    }
+                    planPage(runs, windowStart);
+                    next.ifPresent(advanced -> watermarkStore.save(SYNC_WATERMARK, advanced));
+                    return true;
+                }));
+                if (!planned) {
+                    return;
+                }
+                // Without updatedAt nothing is persisted and the next pass scans the
+                // whole lookback window again; this pass still pages through it by id
+                SyncWatermarkStore.Watermark following = next.isPresent() ? next.get() : afterLastId(watermark, runs);
+                log.debug("Synced page {} of runs-app changes: {} runs, {} {}", page, runs.size(),
+                        next.isPresent() ? "watermark now" : "no watermark, next page after", following);
+                // A short page is the last one, a longer one means runs-app ignored the limit
+                // and sent everything, and a keyset that did not move means it cannot page
+                if (runs.size() != syncPageSize || following.equals(watermark)) {
+                    return;
+                }
+                watermark = following;
             }
+            log.info("Stopped runs-app sync after {} pages; the next pass continues from the watermark, if there is one",
+                    syncMaxPages);
+
+        } catch (Exception e) {
+            log.error("Catch-up planning failed: {}", e.getMessage(), e);
+        }
+    }
 
-            log.info("Found {} recent runs in runs-app, checking for missed analyses", recentRuns.length);
+    private void planPage(List<GarminRunDataDTO> runs, LocalDate windowStart) {
+        // The watermark follows updatedAt, so a page can hold old runs edited recently
+        Map<Long, GarminRunDataDTO> runningRuns = runs.stream()
+                .filter(run -> "running".equalsIgnoreCase(run.getActivityType()))
+                .filter(run -> run.getId() != null && run.getActivityId() != null)
+                .filter(run -> activityDay(run).map(day -> !day.isBefore(windowStart)).orElse(true))
+                .collect(Collectors.toMap(GarminRunDataDTO::getId, run -> run, (first, second) -> second,
+                        LinkedHashMap::new));
+        List<ReconciliationCheckpointStore.MissedRun> missed =
+                checkpointStore.findMissed(new ArrayList<>(runningRuns.values()));
+        if (missed.isEmpty()) {
+            return;
+        }
 
-            List<String> activityIds = Arrays.stream(recentRuns)
-                    .map(GarminRunDataDTO::getActivityId)
-                    .collect(Collectors.toList());
+        List<GarminRunDataDTO> missedRuns = missed.stream()
+                .map(run -> runningRuns.get(run.databaseId()))
+                .filter(Objects::nonNull)
+                .toList();
+        List<ReconciliationCheckpointStore.PlannedChunk> chunks = planChunks(missedRuns, maxRunsPerChunk);
+        LocalDateTime now = LocalDateTime.now();
+        processingLogRepository.insertAll(missed.stream()
+                .filter(run -> !run.logged())
+                .map(run -> AnalysisProcessingLog.builder()
+                        .activityId(run.activityId())
+                        .databaseId(run.databaseId())
+                        .eventType("RECONCILIATION_CATCHUP")
+                        .processingStatus(ProcessingStatus.PENDING)
+                        .retryCount(0)
+                        .createdAt(now)
+                        .build())
+                .toList());
+        checkpointStore.insertChunks(chunks);
+        log.info("Planned {} missed runs into {} reconciliation chunks", missedRuns.size(), chunks.size());
+    }
 
-            List<AnalysisProcessingLog> existingLogs = 
-                    processingLogRepository.findByActivityIdIn(activityIds);
+    /**
+     * The keyset after {@code runs}: the latest ({@code updatedAt}, id) in the page.
+     * Empty when runs-app does not report {@code updatedAt}; such versions cannot be
+     * paged by keyset, so no watermark may be persisted for them.
+     */
+    static Optional<SyncWatermarkStore.Watermark> advance(SyncWatermarkStore.Watermark current,
+                                                          List<GarminRunDataDTO> runs) {
+        SyncWatermarkStore.Watermark latest = current;
+        for (GarminRunDataDTO run : runs) {
+            LocalDateTime updatedAt = parseUpdatedAt(run.getUpdatedAt());
+            if (updatedAt == null || run.getId() == null) {
+                return Optional.empty();
+            }
+            if (updatedAt.isAfter(latest.since())
+                    || (updatedAt.isEqual(latest.since()) && run.getId() > latest.lastId())) {
+                latest = new SyncWatermarkStore.Watermark(updatedAt, run.getId());
+            }
+        }
+        return Optional.of(latest);
+    }
 
-            Set<String> processedActivityIds = existingLogs.stream()
-                    .filter(log -> log.getProcessingStatus() == ProcessingStatus.COMPLETED)
-                    .map(AnalysisProcessingLog::getActivityId)
-                    .collect(Collectors.toSet());
+    /** Keyset for runs-app versions without {@code updatedAt}: same {@code since}, after the highest id. */
+    private static SyncWatermarkStore.Watermark afterLastId(SyncWatermarkStore.Watermark current,
+                                                            List<GarminRunDataDTO> runs) {
+        long lastId = runs.stream()
+                .map(GarminRunDataDTO::getId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(current.lastId());
+        return lastId > current.lastId() ? new SyncWatermarkStore.Watermark(current.since(), lastId) : current;
+    }
 
-            List<GarminRunDataDTO> missedRuns = Arrays.stream(recentRuns)
-                    .filter(run -> !processedActivityIds.contains(run.getActivityId()))
-                    .filter(run -> "running".equalsIgnoreCase(run.getActivityType()))
-                    .collect(Collectors.toList());
+    private static LocalDateTime parseUpdatedAt(String updatedAt) {
+        if (updatedAt == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(updatedAt);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 
-            if (missedRuns.isEmpty()) {
-                log.info("No missed runs detected");
-                return;
+    /**
+     * Works through planned chunks, at most {@code reconciliation.chunk.parallelism} at
+     * a time and {@code reconciliation.chunk.max-per-pass} per pass. Chunks left over,
+     * or interrupted by a crash, are picked up by the next pass on any instance.
+     */
+    private void processChunks() {
+        try {
+            List<ReconciliationCheckpointStore.Chunk> abandoned =
+                    transactionTemplate.execute(status -> {
+                        List<ReconciliationCheckpointStore.Chunk> chunks = checkpointStore.failAbandoned(maxRetries);
+                        chunks.forEach(chunk -> updateLogs(chunk, ProcessingStatus.FAILED, null,
+                                "Reconciliation abandoned after " + chunk.attempts() + " interrupted attempts"));
+                        return chunks;
+                    });
+            if (abandoned != null && !abandoned.isEmpty()) {
+                log.warn("Abandoned {} interrupted reconciliation chunks", abandoned.size());
             }
 
-            log.info("Detected {} missed runs, creating analysis", missedRuns.size());
-
-            missedRuns.forEach(run -> {
-                AnalysisProcessingLog log = AnalysisProcessingLog.builder()
-                        .activityId(run.getActivityId())
-                        .databaseId(run.getId())
-                        .eventType("RECONCILIATION_CATCHUP")
-                        .processingStatus(ProcessingStatus.PROCESSING)
-                        .retryCount(0)
-                        .createdAt(LocalDateTime.now())
-                        .build();
-                processingLogRepository.save(log);
-            });
+            Set<Long> attempted = new HashSet<>();
+            while (attempted.size() < maxChunksPerPass) {
+                int limit = Math.min(chunkParallelism, maxChunksPerPass - attempted.size());
+                List<ReconciliationCheckpointStore.Chunk> claimed = transactionTemplate.execute(status ->
+                        checkpointStore.claim(limit, owner, LocalDateTime.now().plusSeconds(leaseSeconds), attempted));
+                if (claimed == null || claimed.isEmpty()) {
+                    break;
+                }
+                claimed.forEach(chunk -> attempted.add(chunk.id()));
+                CompletableFuture.allOf(claimed.stream()
+                                .map(chunk -> CompletableFuture.runAsync(() -> processChunk(chunk), chunkExecutor))
+                                .toArray(CompletableFuture[]::new))
+                        .join();
+            }
+            if (!attempted.isEmpty()) {
+                log.info("Processed {} reconciliation chunks", attempted.size());
+            }
+        } catch (Exception e) {
+            log.error("Catch-up processing failed: {}", e.getMessage(), e);
+        }
+    }
 
-            RunAnalysisResponse response = analysisService.analyzeRuns(missedRuns, false);
+    void processChunk(ReconciliationCheckpointStore.Chunk chunk) {
+        try {
+            List<GarminRunDataDTO> runs = runsAppClient.fetchRuns(chunk.databaseIds()).stream()
+                    .filter(run -> "running".equalsIgnoreCase(run.getActivityType()))
+                    .toList();
+            if (runs.isEmpty()) {
+                finishChunk(chunk, null, ProcessingStatus.SKIPPED, "No running activities");
+                return;
+            }
 
-            missedRuns.forEach(run -> {
-                processingLogRepository.findByActivityIdAndDatabaseId(run.getActivityId(), run.getId())
-                        .ifPresent(log -> markAsCompleted(log, response.getDocumentId()));
+            RunAnalysisResponse response = analysisService.analyzeRuns(runs, false, LlmLane.RECONCILIATION);
+            String documentId = response.getDocumentId() != null ? response.getDocumentId().toString() : null;
+            finishChunk(chunk, documentId, ProcessingStatus.COMPLETED, null);
+            log.info("Catch-up chunk completed: athlete={}, week={}, runs={}, documentId={}",
+                    chunk.athleteKey(), chunk.weekStart(), runs.size(), documentId);
+        } catch (Exception e) {
+            log.error("Catch-up chunk {} failed (attempt {}): {}", chunk.id(), chunk.attempts(), e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> {
+                String outcome = checkpointStore.release(chunk.id(), owner, e.getMessage(), maxRetries);
+                if ("FAILED".equals(outcome)) {
+                    updateLogs(chunk, ProcessingStatus.FAILED, null, e.getMessage());
+                }
             });
+        }
+    }
 
-            log.info("Catch-up analysis completed: runs={}, documentId={}", 
-                    missedRuns.size(), response.getDocumentId());
+    private void finishChunk(ReconciliationCheckpointStore.Chunk chunk, String documentId,
+                             ProcessingStatus logStatus, String reason) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!checkpointStore.complete(chunk.id(), owner, documentId)) {
+                log.warn("Lost lease on reconciliation chunk {}; discarding outcome", chunk.id());
+                return;
+            }
+            updateLogs(chunk, logStatus, documentId, reason);
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Catch-up process failed: {}", e.getMessage(), e);
+    private void updateLogs(ReconciliationCheckpointStore.Chunk chunk, ProcessingStatus status,
+                            String documentId, String reason) {
+        Set<Long> databaseIds = new HashSet<>(chunk.databaseIds());
+        LocalDateTime now = LocalDateTime.now();
+        List<AnalysisProcessingLog> logs = processingLogRepository.findByActivityIdIn(chunk.activityIds()).stream()
+                .filter(log -> databaseIds.contains(log.getDatabaseId()))
+                .filter(log -> log.getProcessingStatus() != ProcessingStatus.COMPLETED)
+                .toList();
+        for (AnalysisProcessingLog log : logs) {
+            log.setProcessingStatus(status);
+            log.setDocumentId(documentId);
+            log.setErrorMessage(reason);
+            log.setProcessedAt(now);
         }
+        processingLogRepository.saveAll(logs);
     }
 
-    private void cleanupOldLogs() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(lookbackDays * 2);
-        
-        log.debug("Cleaning up processing logs older than {}", cutoff);
+    /**
+     * Groups runs by athlete and ISO week (Monday start), oldest week first, and splits
+     * each group into chunks of at most {@code maxRuns}.
+     */
+    static List<ReconciliationCheckpointStore.PlannedChunk> planChunks(List<GarminRunDataDTO> runs, int maxRuns) {
+        Map<LocalDate, Map<String, List<GarminRunDataDTO>>> byWeek = new TreeMap<>();
+        for (GarminRunDataDTO run : runs) {
+            byWeek.computeIfAbsent(weekStart(run), week -> new TreeMap<>())
+                    .computeIfAbsent(PendingAnalysisQueue.athleteKey(run), athlete -> new ArrayList<>())
+                    .add(run);
+        }
+        List<ReconciliationCheckpointStore.PlannedChunk> chunks = new ArrayList<>();
+        byWeek.forEach((week, byAthlete) -> byAthlete.forEach((athlete, athleteRuns) -> {
+            for (int from = 0; from < athleteRuns.size(); from += maxRuns) {
+                List<GarminRunDataDTO> part = athleteRuns.subList(from, Math.min(from + maxRuns, athleteRuns.size()));
+                chunks.add(new ReconciliationCheckpointStore.PlannedChunk(athlete, week,
+                        part.stream().map(GarminRunDataDTO::getId).toList(),
+                        part.stream().map(GarminRunDataDTO::getActivityId).toList()));
+            }
+        }));
+        return chunks;
     }
 
-    private void logReconciliationStats() {
-        long pending = processingLogRepository.countByStatus(ProcessingStatus.PENDING);
-        long processing = processingLogRepository.countByStatus(ProcessingStatus.PROCESSING);
-        long completed = processingLogRepository.countByStatus(ProcessingStatus.COMPLETED);
-        long failed = processingLogRepository.countByStatus(ProcessingStatus.FAILED);
-        long skipped = processingLogRepository.countByStatus(ProcessingStatus.SKIPPED);
+    static LocalDate weekStart(GarminRunDataDTO run) {
+        // Undated runs are reconciled with the current week
+        return activityDay(run).orElseGet(LocalDate::now).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
 
-        log.info("Reconciliation stats - Pending: {}, Processing: {}, Completed: {}, Failed: {}, Skipped: {}",
-                pending, processing, completed, failed, skipped);
+    private static Optional<LocalDate> activityDay(GarminRunDataDTO run) {
+        String activityDate = run.getActivityDate();
+        if (activityDate == null || activityDate.length() < 10) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(activityDate.substring(0, 10)));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
     }
 
-    private List<GarminRunDataDTO> fetchRunsFromRunsApp(List<Long> dbIds) {
+    private void cleanupOldLogs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(lookbackDays * 2L);
+
+        log.debug("Cleaning up processing logs older than {}", cutoff);
+
         try {
-            String url = runsAppBaseUrl + "/api/garminRuns/batch?ids=" + 
-                    dbIds.stream().map(String::valueOf).collect(Collectors.joining(","));
-            
-            GarminRunDataDTO[] runs = restTemplate.getForObject(url, GarminRunDataDTO[].class);
-            return runs != null ? Arrays.asList(runs) : Collections.emptyList();
-            
+            List<String> dropped = partitionService.dropPartitionsBefore(cutoff);
+            if (!dropped.isEmpty()) {
+                log.info("Dropped {} expired processing log partitions: {}", dropped.size(), dropped);
+            }
+            int chunks = checkpointStore.deleteFinishedBefore(cutoff);
+            if (chunks > 0) {
+                log.info("Deleted {} finished reconciliation chunks", chunks);
+            }
         } catch (Exception e) {
-            log.error("Failed to fetch runs from runs-app: {}", e.getMessage());
-            return Collections.emptyList();
+            log.warn("Processing log retention failed: {}", e.getMessage());
         }
     }
 
+    private void logReconciliationStats() {
+        LocalDateTime since = LocalDateTime.now().minusDays(lookbackDays);
+
+        long pending = processingLogRepository.countByStatus(ProcessingStatus.PENDING, since);
+        long processing = processingLogRepository.countByStatus(ProcessingStatus.PROCESSING, since);
+        long completed = processingLogRepository.countByStatus(ProcessingStatus.COMPLETED, since);
+        long failed = processingLogRepository.countByStatus(ProcessingStatus.FAILED, since);
+        long skipped = processingLogRepository.countByStatus(ProcessingStatus.SKIPPED, since);
+
+        log.info("Reconciliation stats (last {} days) - Pending: {}, Processing: {}, Completed: {}, Failed: {}, Skipped: {}",
+                lookbackDays, pending, processing, completed, failed, skipped);
+    }
+
     private void markAsCompleted(AnalysisProcessingLog log, UUID documentId) {
         log.setProcessingStatus(ProcessingStatus.COMPLETED);
         log.setDocumentId(documentId != null ? documentId.toString() : null);
@@ -250,4 +520,12 @@ public class ReconciliationService {
         
         processingLogRepository.save(log);
     }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package me.sathish.runs_ai_analyzer.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
@@ -9,15 +12,16 @@ import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
 import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
 import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.net.InetAddress;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,12 +29,14 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RunAnalysisBatchService {
 
+    static final String BATCH_CALLS_METRIC = "analysis.batch.calls";
+
     private final AnalysisProcessingLogRepository processingLogRepository;
     private final RunAnalysisService analysisService;
-    private final RestTemplate restTemplate;
-
-    @Value("${runs-app.base-url:http://localhost:8080}")
-    private String runsAppBaseUrl;
+    private final RunsAppClient runsAppClient;
+    private final PendingAnalysisQueue pendingQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Value("${analysis.batch.size:5}")
     private int batchSize;
@@ -38,58 +44,123 @@ public class RunAnalysisBatchService {
     @Value("${analysis.batch.window-minutes:60}")
     private int batchWindowMinutes;
 
-    private final Map<String, GarminRunEvent> pendingEvents = new ConcurrentHashMap<>();
+    @Value("${analysis.batch.max-events-per-flush:50}")
+    private int maxEventsPerFlush;
+
+    @Value("${analysis.batch.flush-threads:2}")
+    private int flushThreads;
+
+    @Value("${analysis.batch.lease-seconds:900}")
+    private long leaseSeconds;
+
+    private final String owner = resolveHostName();
+
+    private DeadlineBatchAggregator aggregator;
 
-    @Async
+    @PostConstruct
+    void startAggregator() {
+        aggregator = new DeadlineBatchAggregator(batchSize, Duration.ofMinutes(batchWindowMinutes), flushThreads,
+                this::flushAthlete, meterRegistry);
+    }
+
+    @PreDestroy
+    void stopAggregator() {
+        aggregator.shutdown();
+    }
+
+    /**
+     * Adds the event to the durable pending set. Runs in the caller's transaction, so
+     * the event is persisted before the listener acks the message.
+     */
     public void queueForAnalysis(GarminRunEvent event) {
-        String key = event.getActivityId() + "_" + event.getDatabaseId();
-        pendingEvents.put(key, event);
-        log.debug("Added event to pending queue: key={}, queueSize={}", key, pendingEvents.size());
+        queueAllForAnalysis(List.of(event));
+    }
+
+    public void queueAllForAnalysis(List<GarminRunEvent> events) {
+        pendingQueue.enqueue(events);
+        log.debug("Added {} events to pending queue", events.size());
+
+        Map<String, Long> countsByAthlete = events.stream()
+                .collect(Collectors.groupingBy(PendingAnalysisQueue::athleteKey, Collectors.counting()));
+        // Only start the clock once the rows are visible to the flush transaction
+        runAfterCommit(() -> countsByAthlete.forEach((athleteKey, count) ->
+                aggregator.add(athleteKey, count.intValue())));
     }
 
-    @Scheduled(fixedDelayString = "${analysis.batch.interval-ms:30000}")
-    @Transactional
+    /**
+     * Safety sweep for pending events no local bucket knows about: events enqueued
+     * before a restart, or by a replica that went away. Normal flushes are driven by
+     * {@link DeadlineBatchAggregator}, so this runs at a coarse interval.
+     */
+    @Scheduled(fixedDelayString = "${analysis.batch.interval-ms:300000}")
     public void processBatch() {
-        if (pendingEvents.isEmpty()) {
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(batchWindowMinutes);
+        List<String> readyAthletes = pendingQueue.findReadyAthletes(batchSize, windowStart);
+        if (readyAthletes.isEmpty()) {
             return;
         }
 
-        log.info("Processing batch of {} pending events", pendingEvents.size());
-
-        List<GarminRunEvent> eventsToProcess = new ArrayList<>(pendingEvents.values());
-        pendingEvents.clear();
-
-        Map<String, List<GarminRunEvent>> groupedByUser = eventsToProcess.stream()
-                .collect(Collectors.groupingBy(e -> String.valueOf(e.getDatabaseId())));
+        log.info("Flushing pending events for {} athletes", readyAthletes.size());
 
-        for (Map.Entry<String, List<GarminRunEvent>> entry : groupedByUser.entrySet()) {
-            List<GarminRunEvent> userEvents = entry.getValue();
-            
-            if (userEvents.size() >= batchSize || shouldProcessNow(userEvents)) {
-                processEventsForUser(userEvents);
-            } else {
-                userEvents.forEach(this::queueForAnalysis);
+        for (String athleteKey : readyAthletes) {
+            try {
+                flushAthlete(athleteKey);
+            } catch (Exception e) {
+                log.error("Failed to flush pending events for athlete {}: {}", athleteKey, e.getMessage(), e);
             }
         }
     }
 
-    private boolean shouldProcessNow(List<GarminRunEvent> events) {
-        if (events.isEmpty()) return false;
-        
-        LocalDateTime oldestEvent = events.stream()
-                .map(e -> processingLogRepository
-                        .findByActivityIdAndDatabaseId(e.getActivityId(), e.getDatabaseId())
-                        .map(AnalysisProcessingLog::getCreatedAt)
-                        .orElse(LocalDateTime.now()))
-                .min(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now());
-        
-        return oldestEvent.isBefore(LocalDateTime.now().minusMinutes(batchWindowMinutes));
+    /**
+     * Flushes one athlete's pending events: leases them in a short transaction, fetches
+     * and analyzes with no transaction open, then records the outcome and deletes the
+     * leased rows in a second short transaction. Replicas flush different athletes in
+     * parallel, and a failure only affects one athlete.
+     */
+    void flushAthlete(String athleteKey) {
+        String leaseOwner = owner + "/" + UUID.randomUUID();
+        List<GarminRunEvent> events = transactionTemplate.execute(status -> {
+            List<GarminRunEvent> claimed = pendingQueue.claim(athleteKey, maxEventsPerFlush, leaseOwner,
+                    LocalDateTime.now().plusSeconds(leaseSeconds));
+            claimed.forEach(e -> markProcessingStatus(e, ProcessingStatus.PROCESSING, null));
+            return claimed;
+        });
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        FlushOutcome outcome = analyzeEvents(events);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (pendingQueue.complete(leaseOwner) == 0) {
+                log.warn("Lease on {} pending events of athlete {} expired during analysis; discarding outcome {}",
+                        events.size(), athleteKey, outcome.status());
+                return;
+            }
+            events.forEach(e -> {
+                if (outcome.status() == ProcessingStatus.COMPLETED) {
+                    markProcessingCompleted(e, outcome.documentId());
+                } else {
+                    markProcessingStatus(e, outcome.status(), outcome.message());
+                }
+            });
+        });
     }
 
-    private void processEventsForUser(List<GarminRunEvent> events) {
-        if (events.isEmpty()) return;
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
+    private FlushOutcome analyzeEvents(List<GarminRunEvent> events) {
         log.info("Processing {} events for batch analysis", events.size());
 
         List<Long> dbIds = events.stream()
@@ -98,13 +169,12 @@ public class RunAnalysisBatchService {
                 .collect(Collectors.toList());
 
         try {
-            List<GarminRunDataDTO> runs = fetchRunsFromRunsApp(dbIds);
+            // Always revalidate: the UPDATED event may have been consumed on another instance
+            List<GarminRunDataDTO> runs = runsAppClient.fetchRuns(dbIds, true);
             
             if (runs.isEmpty()) {
                 log.warn("No runs fetched from runs-app for dbIds: {}", dbIds);
-                events.forEach(e -> markProcessingStatus(e, ProcessingStatus.SKIPPED, 
-                        "No data found in runs-app"));
-                return;
+                return new FlushOutcome(ProcessingStatus.SKIPPED, null, "No data found in runs-app");
             }
 
             List<GarminRunDataDTO> runningActivities = runs.stream()
@@ -113,46 +183,21 @@ public class RunAnalysisBatchService {
 
             if (runningActivities.isEmpty()) {
                 log.info("No running activities found in batch, skipping analysis");
-                events.forEach(e -> markProcessingStatus(e, ProcessingStatus.SKIPPED, 
-                        "No running activities"));
-                return;
+                return new FlushOutcome(ProcessingStatus.SKIPPED, null, "No running activities");
             }
 
-            events.forEach(e -> markProcessingStatus(e, ProcessingStatus.PROCESSING, null));
-
-            RunAnalysisResponse response = analysisService.analyzeRuns(runningActivities, false);
-
-            events.forEach(e -> markProcessingCompleted(e, response.getDocumentId()));
+            RunAnalysisResponse response = analysisService.analyzeRuns(runningActivities, false, LlmLane.BATCH);
+            meterRegistry.summary("analysis.batch.runs.per.call").record(runningActivities.size());
+            meterRegistry.counter(BATCH_CALLS_METRIC, "outcome", "success").increment();
 
             log.info("Batch analysis completed: runs={}, documentId={}, cached={}", 
                     runningActivities.size(), response.getDocumentId(), response.isCachedResult());
+            return new FlushOutcome(ProcessingStatus.COMPLETED, response.getDocumentId(), null);
 
         } catch (Exception e) {
             log.error("Batch analysis failed: {}", e.getMessage(), e);
-            events.forEach(ev -> markProcessingStatus(ev, ProcessingStatus.FAILED, e.getMessage()));
-        }
-    }
-
-    private List<GarminRunDataDTO> fetchRunsFromRunsApp(List<Long> dbIds) {
-        try {
-            String url = runsAppBaseUrl + "/api/garminRuns/batch?ids=" + 
-                    dbIds.stream().map(String::valueOf).collect(Collectors.joining(","));
-            
-            log.debug("Fetching runs from runs-app: {}", url);
-            
-            GarminRunDataDTO[] runs = restTemplate.getForObject(url, GarminRunDataDTO[].class);
-            
-            if (runs == null) {
-                log.warn("Received null response from runs-app");
-                return Collections.emptyList();
-            }
-            
-            log.info("Fetched {} runs from runs-app", runs.length);
-            return Arrays.asList(runs);
-            
-        } catch (Exception e) {
-            log.error("Failed to fetch runs from runs-app: {}", e.getMessage(), e);
-            return Collections.emptyList();
+            meterRegistry.counter(BATCH_CALLS_METRIC, "outcome", "failure").increment();
+            return new FlushOutcome(ProcessingStatus.FAILED, null, e.getMessage());
         }
     }
 
@@ -182,4 +227,15 @@ public class RunAnalysisBatchService {
                     processingLogRepository.save(log);
                 });
     }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+
+    private record FlushOutcome(ProcessingStatus status, UUID documentId, String message) {
+    }
 }
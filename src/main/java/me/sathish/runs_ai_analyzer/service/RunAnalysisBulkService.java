@@ -0,0 +1,150 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.BulkRunAnalysisRequest;
+import me.sathish.runs_ai_analyzer.dto.BulkRunAnalysisResult;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Analyzes many independent run sets for one caller (e.g. a coaching dashboard) and
+ * reports each outcome as soon as it completes.
+ *
+ * <p>Every item goes through the normal {@link RunAnalysisService} pipeline (RAG
+ * cache, then the LLM via {@link LlmAdmissionScheduler}). At most
+ * {@code analysis.bulk.parallelism} items of one request run at a time. Items with
+ * identical runs and forceRefresh are analyzed once and the result is reported under
+ * each correlation id. A failing item produces a FAILED result and never affects the
+ * others.
+ */
+@Service
+@Slf4j
+public class RunAnalysisBulkService {
+
+    private final RunAnalysisService runAnalysisService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${analysis.bulk.parallelism:8}")
+    private int parallelism;
+
+    public RunAnalysisBulkService(RunAnalysisService runAnalysisService) {
+        this.runAnalysisService = runAnalysisService;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts every item and passes each result to {@code sink} in completion order.
+     * The sink is invoked by one thread at a time. The returned future completes after
+     * the last result has been passed to the sink. Cancelling it, or a sink that
+     * throws, stops every item that has not reached the LLM yet; those are reported as
+     * FAILED.
+     */
+    public CompletableFuture<Void> analyzeAll(List<BulkRunAnalysisRequest.Item> items,
+                                              Consumer<BulkRunAnalysisResult> sink) {
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Map<RunSetKey, CompletableFuture<RunAnalysisResponse>> distinct = new ConcurrentHashMap<>();
+        Runnable cancel = () -> {
+            if (cancelled.compareAndSet(false, true)) {
+                log.info("Bulk analysis cancelled; dropping items that have not started");
+                distinct.values().forEach(analysis -> analysis.cancel(false));
+            }
+        };
+        CompletableFuture<?>[] reported = new CompletableFuture<?>[items.size()];
+        ReentrantLock sinkLock = new ReentrantLock();
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkRunAnalysisRequest.Item item = items.get(i);
+            long startNanos = System.nanoTime();
+            CompletableFuture<RunAnalysisResponse> analysis = distinct.computeIfAbsent(
+                    new RunSetKey(new HashSet<>(item.getRuns()), item.isForceRefresh()),
+                    key -> CompletableFuture.supplyAsync(() -> analyze(item, permits, cancelled), executor));
+            reported[i] = analysis.handle((response, error) -> {
+                BulkRunAnalysisResult result = toResult(item.getCorrelationId(), response, error, startNanos);
+                sinkLock.lock();
+                try {
+                    sink.accept(result);
+                } catch (RuntimeException e) {
+                    log.debug("Bulk analysis sink failed: {}", e.getMessage());
+                    cancel.run();
+                } finally {
+                    sinkLock.unlock();
+                }
+                return null;
+            });
+        }
+        log.info("Bulk analysis of {} item(s), {} distinct run set(s), parallelism {}",
+                items.size(), distinct.size(), parallelism);
+        CompletableFuture<Void> all = CompletableFuture.allOf(reported);
+        all.whenComplete((done, error) -> {
+            if (all.isCancelled()) {
+                cancel.run();
+            }
+        });
+        return all;
+    }
+
+    private RunAnalysisResponse analyze(BulkRunAnalysisRequest.Item item, Semaphore permits, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            throw new CancellationException("Bulk analysis cancelled");
+        }
+        permits.acquireUninterruptibly();
+        try {
+            // Items queued behind the permits while the client went away must not
+            // reach the LLM either
+            if (cancelled.get()) {
+                throw new CancellationException("Bulk analysis cancelled");
+            }
+            // Bulk callers wait for the stream but tolerate more latency than a single
+            // interactive request, so they must not crowd out the interactive lane
+            return runAnalysisService.analyzeRuns(item.getRuns(), item.isForceRefresh(), LlmLane.ASYNC_JOB);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static BulkRunAnalysisResult toResult(String correlationId, RunAnalysisResponse response,
+                                                  Throwable error, long startNanos) {
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            log.warn("Bulk analysis item {} failed: {}", correlationId, cause.getMessage());
+            return BulkRunAnalysisResult.builder()
+                    .correlationId(correlationId)
+                    .status(BulkRunAnalysisResult.Status.FAILED)
+                    .error(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())
+                    .durationMs(durationMs)
+                    .build();
+        }
+        return BulkRunAnalysisResult.builder()
+                .correlationId(correlationId)
+                .status(BulkRunAnalysisResult.Status.OK)
+                .result(response)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    private record RunSetKey(Set<GarminRunDataDTO> runs, boolean forceRefresh) {
+    }
+}
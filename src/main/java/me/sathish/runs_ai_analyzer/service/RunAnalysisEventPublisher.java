@@ -8,7 +8,7 @@ import me.sathish.runs_ai_analyzer.config.RabbitMQConfiguration;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisEvent;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent.WireFormat;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -18,39 +18,50 @@ import java.util.List;
 @Slf4j
 public class RunAnalysisEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxService outboxService;
     private final ObjectMapper objectMapper;
 
+    /**
+     * Records the event in the outbox, inside the caller's transaction when there is
+     * one. {@link OutboxRelay} publishes it; the analyze path never waits on the broker.
+     * Failures propagate, so a caller's transaction rolls back instead of committing
+     * without its event.
+     */
     public void publishAnalysisCompleted(RunAnalysisResponse response, List<GarminRunDataDTO> runs) {
+        RunAnalysisEvent event = RunAnalysisEvent.builder()
+                .eventType(response.isCachedResult() ? "RUN_ANALYSIS_CACHE_HIT" : "RUN_ANALYSIS_COMPLETED")
+                .sourceService("runs-ai-analyzer")
+                .documentId(response.getDocumentId())
+                .cachedResult(response.isCachedResult())
+                .containsRunData(response.isContainsRunData())
+                .runCount(runs.size())
+                .activityIds(runs.stream().map(GarminRunDataDTO::getActivityId).toList())
+                .summary(response.getSummary())
+                .insights(response.getInsights())
+                .recommendations(response.getRecommendations())
+                .riskFlags(response.getRiskFlags())
+                .confidenceScore(response.getConfidenceScore())
+                .metrics(response.getMetrics())
+                .analyzedAt(response.getAnalyzedAt())
+                .build();
+
+        // CONVERTED keeps the existing wire format: the JSON string goes through
+        // the template's message converter, as convertAndSend always did here
+        outboxService.append(
+                RabbitMQConfiguration.GARMIN_EXCHANGE,
+                RabbitMQConfiguration.GARMIN_OPS_ROUTING_KEY,
+                WireFormat.CONVERTED,
+                serialize(event));
+
+        log.info("Recorded run analysis event. type={}, cached={}, runs={}",
+                event.getEventType(), event.isCachedResult(), runs.size());
+    }
+
+    private String serialize(RunAnalysisEvent event) {
         try {
-            RunAnalysisEvent event = RunAnalysisEvent.builder()
-                    .eventType(response.isCachedResult() ? "RUN_ANALYSIS_CACHE_HIT" : "RUN_ANALYSIS_COMPLETED")
-                    .sourceService("runs-ai-analyzer")
-                    .documentId(response.getDocumentId())
-                    .cachedResult(response.isCachedResult())
-                    .containsRunData(response.isContainsRunData())
-                    .runCount(runs.size())
-                    .activityIds(runs.stream().map(GarminRunDataDTO::getActivityId).toList())
-                    .summary(response.getSummary())
-                    .insights(response.getInsights())
-                    .recommendations(response.getRecommendations())
-                    .riskFlags(response.getRiskFlags())
-                    .confidenceScore(response.getConfidenceScore())
-                    .metrics(response.getMetrics())
-                    .analyzedAt(response.getAnalyzedAt())
-                    .build();
-
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfiguration.GARMIN_EXCHANGE,
-                    RabbitMQConfiguration.GARMIN_OPS_ROUTING_KEY,
-                    objectMapper.writeValueAsString(event));
-
-            log.info("Published run analysis event. type={}, cached={}, runs={}",
-                    event.getEventType(), event.isCachedResult(), runs.size());
+            return objectMapper.writeValueAsString(event);
         } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize run analysis event payload: {}", e.getMessage());
-        } catch (Exception e) {
-            log.warn("Failed to publish run analysis event: {}", e.getMessage());
+            throw new IllegalStateException("Failed to serialize run analysis event payload", e);
         }
     }
 }
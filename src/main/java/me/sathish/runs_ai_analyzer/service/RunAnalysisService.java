@@ -11,5 +11,10 @@ public interface RunAnalysisService {
 
     RunAnalysisResponse analyzeRuns(List<GarminRunDataDTO> runs, boolean forceRefresh);
 
+    /**
+     * Analyzes {@code runs}, queueing any LLM call on {@code lane} of the admission scheduler.
+     */
+    RunAnalysisResponse analyzeRuns(List<GarminRunDataDTO> runs, boolean forceRefresh, LlmLane lane);
+
     boolean containsRunData(List<GarminRunDataDTO> runs);
 }
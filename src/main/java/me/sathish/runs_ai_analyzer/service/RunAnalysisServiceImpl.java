@@ -10,14 +10,16 @@ import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse.PerformanceMetrics;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse.RunInsight;
 import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
 import me.sathish.runs_ai_analyzer.exception.AiAnalysisException;
+import me.sathish.runs_ai_analyzer.service.LlmAdmissionScheduler.Provider;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @Slf4j
@@ -55,18 +57,24 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
     private final RagStorageService ragStorageService;
     private final ObjectMapper objectMapper;
     private final RunAnalysisEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final LlmAdmissionScheduler admissionScheduler;
 
     public RunAnalysisServiceImpl(
             @Qualifier("anthropicChatClient") ChatClient anthropicChatClient,
             @Qualifier("ollamaChatClient") ChatClient ollamaChatClient,
             RagStorageService ragStorageService,
             ObjectMapper objectMapper,
-            RunAnalysisEventPublisher eventPublisher) {
+            RunAnalysisEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            LlmAdmissionScheduler admissionScheduler) {
         this.anthropicChatClient = anthropicChatClient;
         this.ollamaChatClient = ollamaChatClient;
         this.ragStorageService = ragStorageService;
         this.objectMapper = objectMapper;
         this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.admissionScheduler = admissionScheduler;
     }
 
     @Override
@@ -76,7 +84,12 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
 
     @Override
     public RunAnalysisResponse analyzeRuns(List<GarminRunDataDTO> runs, boolean forceRefresh) {
-        log.debug("Analyzing {} run(s), forceRefresh={}", runs.size(), forceRefresh);
+        return analyzeRuns(runs, forceRefresh, LlmLane.INTERACTIVE);
+    }
+
+    @Override
+    public RunAnalysisResponse analyzeRuns(List<GarminRunDataDTO> runs, boolean forceRefresh, LlmLane lane) {
+        log.debug("Analyzing {} run(s), forceRefresh={}, lane={}", runs.size(), forceRefresh, lane);
 
         if (!containsRunData(runs)) {
             RunAnalysisResponse response = RunAnalysisResponse.builder()
@@ -87,7 +100,7 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
                     .riskFlags(List.of())
                     .analyzedAt(Instant.now())
                     .build();
-            eventPublisher.publishAnalysisCompleted(response, List.of());
+            recordEvent(response, List.of());
             return response;
         }
 
@@ -101,13 +114,13 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
         if (!forceRefresh) {
             RunAnalysisResponse cachedResponse = tryGetCachedAnalysis(queryText, runningActivities);
             if (cachedResponse != null) {
-                eventPublisher.publishAnalysisCompleted(cachedResponse, runningActivities);
+                recordEvent(cachedResponse, runningActivities);
                 return cachedResponse;
             }
         }
 
         log.info("Generating fresh AI analysis for {} runs", runningActivities.size());
-        String aiAnalysis = getAiAnalysis(runningActivities, metrics);
+        String aiAnalysis = getAiAnalysis(runningActivities, metrics, lane);
         AiStructuredAnalysis structuredAnalysis = toStructuredAnalysis(aiAnalysis, metrics, runningActivities);
 
         RunAnalysisResponse response = RunAnalysisResponse.builder()
@@ -123,12 +136,7 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
                 .cachedResult(false)
                 .build();
 
-        RunAnalysisDocument savedDocument = storeAnalysisInRag(runningActivities, response, queryText);
-        if (savedDocument != null) {
-            response.setDocumentId(savedDocument.getDocumentId());
-        }
-
-        eventPublisher.publishAnalysisCompleted(response, runningActivities);
+        storeAnalysisAndRecordEvent(runningActivities, response, queryText);
         return response;
     }
 
@@ -146,25 +154,25 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
     }
 
     private RunAnalysisResponse convertCachedDocumentToResponse(RunAnalysisDocument cachedDoc, List<GarminRunDataDTO> runs) {
-        Map<String, Object> metadata = cachedDoc.getMetadata() != null ? cachedDoc.getMetadata() : Map.of();
-
-        PerformanceMetrics metrics = PerformanceMetrics.builder()
-                .totalRuns(readInt(metadata, "totalRuns", cachedDoc.getTotalRuns() != null ? cachedDoc.getTotalRuns() : runs.size()))
-                .totalDistanceKm(readDouble(metadata, "totalDistanceKm", cachedDoc.getTotalDistanceKm() != null ? cachedDoc.getTotalDistanceKm() : 0.0))
-                .totalDuration(readString(metadata, "totalDuration"))
-                .averagePaceMinPerKm(readNullableDouble(metadata, "averagePace"))
-                .averageHeartRate(readNullableInt(metadata, "averageHeartRate"))
-                .totalCalories(readNullableInt(metadata, "totalCalories"))
-                .build();
+        AiStructuredAnalysis analysis = cachedDoc.getStructuredAnalysis() != null
+                ? cachedDoc.getStructuredAnalysis()
+                : AiStructuredAnalysis.builder().summary(cachedDoc.getSummary()).build();
+
+        PerformanceMetrics metrics = cachedDoc.getPerformanceMetrics() != null
+                ? cachedDoc.getPerformanceMetrics()
+                : PerformanceMetrics.builder()
+                        .totalRuns(cachedDoc.getTotalRuns() != null ? cachedDoc.getTotalRuns() : runs.size())
+                        .totalDistanceKm(cachedDoc.getTotalDistanceKm() != null ? cachedDoc.getTotalDistanceKm() : 0.0)
+                        .build();
 
         return RunAnalysisResponse.builder()
                 .documentId(cachedDoc.getDocumentId())
                 .containsRunData(true)
-                .summary(readString(metadata, "structuredSummary", cachedDoc.getSummary()))
-                .insights(readInsights(metadata.get("insights")))
-                .recommendations(readStringList(metadata.get("recommendations")))
-                .riskFlags(readStringList(metadata.get("riskFlags")))
-                .confidenceScore(readNullableInt(metadata, "confidenceScore"))
+                .summary(analysis.getSummary())
+                .insights(analysis.getInsights() != null ? analysis.getInsights() : List.of())
+                .recommendations(analysis.getRecommendations() != null ? analysis.getRecommendations() : List.of())
+                .riskFlags(analysis.getRiskFlags() != null ? analysis.getRiskFlags() : List.of())
+                .confidenceScore(analysis.getConfidenceScore())
                 .metrics(metrics)
                 .rawAnalysis(cachedDoc.getAnalysisContent())
                 .analyzedAt(Instant.now())
@@ -172,14 +180,32 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
                 .build();
     }
 
-    private RunAnalysisDocument storeAnalysisInRag(List<GarminRunDataDTO> runs, RunAnalysisResponse response, String queryText) {
+    /**
+     * Saves the document and its completion event in one transaction, so the event is
+     * in the outbox exactly when the document exists. If either fails the transaction
+     * rolls back, the analysis is still returned, and the event is recorded on its own,
+     * without a document id.
+     */
+    private void storeAnalysisAndRecordEvent(List<GarminRunDataDTO> runs, RunAnalysisResponse response, String queryText) {
         try {
-            RunAnalysisDocument saved = ragStorageService.storeAnalysis(runs, response, queryText);
-            log.info("Stored analysis in RAG database for {} runs", runs.size());
-            return saved;
+            transactionTemplate.executeWithoutResult(status -> {
+                RunAnalysisDocument saved = ragStorageService.storeAnalysis(runs, response, queryText);
+                log.info("Stored analysis in RAG database for {} runs", runs.size());
+                response.setDocumentId(saved.getDocumentId());
+                eventPublisher.publishAnalysisCompleted(response, runs);
+            });
         } catch (Exception e) {
             log.warn("Failed to store analysis in RAG database: {}. Continuing without storage.", e.getMessage());
-            return null;
+            response.setDocumentId(null);
+            recordEvent(response, runs);
+        }
+    }
+
+    private void recordEvent(RunAnalysisResponse response, List<GarminRunDataDTO> runs) {
+        try {
+            eventPublisher.publishAnalysisCompleted(response, runs);
+        } catch (Exception e) {
+            log.warn("Failed to record run analysis event: {}", e.getMessage());
         }
     }
 
@@ -188,7 +214,7 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
         return runs.stream().anyMatch(run -> "running".equalsIgnoreCase(run.getActivityType()));
     }
 
-    private String getAiAnalysis(List<GarminRunDataDTO> runs, PerformanceMetrics metrics) {
+    private String getAiAnalysis(List<GarminRunDataDTO> runs, PerformanceMetrics metrics, LlmLane lane) {
         String runDataSummary = formatRunDataForAi(runs);
         String metricSummary = formatMetricsForPrompt(metrics);
         String userPrompt = """
@@ -203,11 +229,7 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
 
         try {
             log.debug("Calling Anthropic for AI analysis");
-            String response = anthropicChatClient.prompt()
-                    .system(SYSTEM_PROMPT)
-                    .user(userPrompt)
-                    .call()
-                    .content();
+            String response = callAdmitted(Provider.ANTHROPIC, anthropicChatClient, lane, userPrompt);
 
             if (response == null || response.isBlank()) {
                 throw new AiAnalysisException("Anthropic returned an empty response");
@@ -219,18 +241,14 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
             throw ex;
         } catch (Exception anthropicEx) {
             log.warn("Anthropic call failed ({}), falling back to Ollama", anthropicEx.getMessage());
-            return getAiAnalysisFromOllama(userPrompt);
+            return getAiAnalysisFromOllama(userPrompt, lane);
         }
     }
 
-    private String getAiAnalysisFromOllama(String userPrompt) {
+    private String getAiAnalysisFromOllama(String userPrompt, LlmLane lane) {
         try {
             log.info("Calling Ollama for AI analysis fallback");
-            String response = ollamaChatClient.prompt()
-                    .system(SYSTEM_PROMPT)
-                    .user(userPrompt)
-                    .call()
-                    .content();
+            String response = callAdmitted(Provider.OLLAMA, ollamaChatClient, lane, userPrompt);
 
             if (response == null || response.isBlank()) {
                 throw new AiAnalysisException("Ollama returned an empty response");
@@ -245,6 +263,19 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
         }
     }
 
+    private String callAdmitted(Provider provider, ChatClient chatClient, LlmLane lane, String userPrompt) {
+        ChatResponse chatResponse = admissionScheduler.execute(provider, lane, SYSTEM_PROMPT + userPrompt,
+                () -> chatClient.prompt()
+                        .system(SYSTEM_PROMPT)
+                        .user(userPrompt)
+                        .call()
+                        .chatResponse());
+        if (chatResponse == null || chatResponse.getResult() == null || chatResponse.getResult().getOutput() == null) {
+            return null;
+        }
+        return chatResponse.getResult().getOutput().getText();
+    }
+
     private AiStructuredAnalysis toStructuredAnalysis(String aiAnalysis, PerformanceMetrics metrics, List<GarminRunDataDTO> runs) {
         try {
             return sanitizeStructuredAnalysis(parseStructuredAnalysis(aiAnalysis), metrics, runs);
@@ -448,71 +479,6 @@ public class RunAnalysisServiceImpl implements RunAnalysisService {
         return Math.max(0, Math.min(confidenceScore, 100));
     }
 
-    private List<RunInsight> readInsights(Object rawValue) {
-        if (rawValue == null) {
-            return List.of();
-        }
-        return objectMapper.convertValue(
-                rawValue,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, RunInsight.class));
-    }
-
-    private List<String> readStringList(Object rawValue) {
-        if (rawValue == null) {
-            return List.of();
-        }
-        return objectMapper.convertValue(
-                rawValue,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
-    }
-
-    private String readString(Map<String, Object> metadata, String key) {
-        return readString(metadata, key, null);
-    }
-
-    private String readString(Map<String, Object> metadata, String key, String defaultValue) {
-        Object value = metadata.get(key);
-        return value != null ? String.valueOf(value) : defaultValue;
-    }
-
-    private Integer readInt(Map<String, Object> metadata, String key, Integer defaultValue) {
-        Object value = metadata.get(key);
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number number) {
-            return number.intValue();
-        }
-        try {
-            return Integer.parseInt(String.valueOf(value));
-        } catch (NumberFormatException ex) {
-            return defaultValue;
-        }
-    }
-
-    private Integer readNullableInt(Map<String, Object> metadata, String key) {
-        return readInt(metadata, key, null);
-    }
-
-    private Double readDouble(Map<String, Object> metadata, String key, Double defaultValue) {
-        Object value = metadata.get(key);
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
-        try {
-            return Double.parseDouble(String.valueOf(value));
-        } catch (NumberFormatException ex) {
-            return defaultValue;
-        }
-    }
-
-    private Double readNullableDouble(Map<String, Object> metadata, String key) {
-        return readDouble(metadata, key, null);
-    }
-
     private double parseDouble(String value) {
         try {
             return value != null ? Double.parseDouble(value) : 0.0;
@@ -0,0 +1,126 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.RunsAppClientProperties;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of runs-app run records, keyed by runs-app database id with a
+ * secondary index by Garmin activity id.
+ *
+ * <p>Each entry remembers when it was fetched and the validator (ETag and
+ * Last-Modified) of the response it came from, so {@link RunsAppClient} can serve it
+ * directly while fresh and revalidate it with a conditional request afterwards.
+ * {@link GarminEventListener} evicts a run as soon as an UPDATED event for it arrives.
+ */
+@Component
+@Slf4j
+public class RunDataCache {
+
+    static final String CACHE_METRIC = "runs.app.cache.requests";
+
+    private final RunsAppClientProperties.Cache properties;
+    private final MeterRegistry meterRegistry;
+    private final LinkedHashMap<Long, Entry> entries;
+    private final Map<String, Long> idsByActivity = new HashMap<>();
+
+    public RunDataCache(RunsAppClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getCache();
+        this.meterRegistry = meterRegistry;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= RunDataCache.this.properties.getMaxEntries()) {
+                    return false;
+                }
+                unindex(eldest.getValue());
+                return true;
+            }
+        };
+        meterRegistry.gauge("runs.app.cache.size", this, RunDataCache::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Returns the cached entry for {@code databaseId}, fresh or not, or null.
+     */
+    public synchronized Entry get(Long databaseId) {
+        return entries.get(databaseId);
+    }
+
+    public synchronized void put(GarminRunDataDTO run, String etag, String lastModified, Instant fetchedAt) {
+        if (!properties.isEnabled() || run == null || run.getId() == null) {
+            return;
+        }
+        Entry previous = entries.put(run.getId(), new Entry(run, etag, lastModified, fetchedAt));
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (run.getActivityId() != null) {
+            idsByActivity.put(run.getActivityId(), run.getId());
+        }
+    }
+
+    /**
+     * Marks entries as confirmed current by runs-app (a 304 answer).
+     */
+    public synchronized void touch(Collection<Long> databaseIds, Instant validatedAt) {
+        for (Long databaseId : databaseIds) {
+            entries.computeIfPresent(databaseId, (id, entry) ->
+                    new Entry(entry.run(), entry.etag(), entry.lastModified(), validatedAt));
+        }
+    }
+
+    /**
+     * Evicts the run identified by either key.
+     */
+    public synchronized void invalidate(Long databaseId, String activityId) {
+        Long id = databaseId != null ? databaseId : idsByActivity.get(activityId);
+        if (activityId != null && databaseId == null) {
+            idsByActivity.remove(activityId);
+        }
+        if (id != null) {
+            Entry removed = entries.remove(id);
+            if (removed != null) {
+                unindex(removed);
+                log.debug("Evicted cached run dbId={} activityId={}", id, activityId);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    boolean isFresh(Entry entry, Instant now) {
+        return entry.fetchedAt().plus(Duration.ofSeconds(properties.getFreshSeconds())).isAfter(now);
+    }
+
+    void record(String result, int count) {
+        if (count > 0) {
+            meterRegistry.counter(CACHE_METRIC, "result", result).increment(count);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        String activityId = entry.run().getActivityId();
+        if (activityId != null) {
+            idsByActivity.remove(activityId, entry.run().getId());
+        }
+    }
+
+    public record Entry(GarminRunDataDTO run, String etag, String lastModified, Instant fetchedAt) {
+    }
+}
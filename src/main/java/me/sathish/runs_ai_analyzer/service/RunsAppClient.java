@@ -0,0 +1,402 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.RunsAppClientProperties;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.exception.RunsAppClientException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP client for runs-app, shared by batch analysis and reconciliation.
+ *
+ * <p>Built on one JDK {@link HttpClient}, which keeps connections alive and reuses them
+ * across calls. Id lists are split into chunks of at most
+ * {@code runs-app.max-ids-per-request} ids and {@code runs-app.max-url-length}
+ * characters, fetched with at most {@code runs-app.parallelism} calls in flight.
+ * Every call has its own timeout and is retried on connection errors, timeouts, 429
+ * and 5xx with full-jitter exponential backoff. Other 4xx fail straight away.
+ *
+ * <p>Fetched runs are kept in {@link RunDataCache}; stale entries are revalidated
+ * with conditional requests rather than downloaded again.
+ *
+ * <p>A fetch either returns the runs of every chunk or throws
+ * {@link RunsAppClientException}, so callers never mistake an outage for "no data".
+ */
+@Component
+@Slf4j
+public class RunsAppClient {
+
+    static final String REQUESTS_METRIC = "runs.app.requests";
+    static final String RETRIES_METRIC = "runs.app.retries";
+    static final String BATCH_PATH = "/api/garminRuns/batch";
+    static final String RECENT_PATH = "/api/garminRuns/recent";
+
+    private final RunsAppClientProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final RunDataCache runDataCache;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private volatile RecentSnapshot recentSnapshot;
+
+    public RunsAppClient(RunsAppClientProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         RunDataCache runDataCache) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.runDataCache = runDataCache;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetches the runs with the given runs-app database ids, in input order. Fresh
+     * cached runs are served without a call.
+     */
+    public List<GarminRunDataDTO> fetchRuns(Collection<Long> dbIds) {
+        return fetchRuns(dbIds, false);
+    }
+
+    /**
+     * Fetches the runs with the given runs-app database ids, in input order.
+     *
+     * <p>Ids missing from the {@link RunDataCache} are fetched outright. Cached ids that
+     * are stale, or all cached ids when {@code revalidate} is set, are fetched with
+     * {@code If-None-Match}/{@code If-Modified-Since} so an unchanged set costs a 304.
+     */
+    public List<GarminRunDataDTO> fetchRuns(Collection<Long> dbIds, boolean revalidate) {
+        if (dbIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = dbIds.stream().distinct().toList();
+        if (!runDataCache.isEnabled()) {
+            List<GarminRunDataDTO> runs = fetchChunks(ids, false).stream()
+                    .flatMap(chunk -> chunk.runs().stream())
+                    .toList();
+            log.info("Fetched {} runs from runs-app for {} ids", runs.size(), ids.size());
+            return runs;
+        }
+
+        Instant now = Instant.now();
+        Map<Long, GarminRunDataDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        for (Long id : ids) {
+            RunDataCache.Entry entry = runDataCache.get(id);
+            if (entry == null) {
+                missing.add(id);
+            } else if (revalidate || !runDataCache.isFresh(entry, now)) {
+                stale.add(id);
+            } else {
+                found.put(id, entry.run());
+            }
+        }
+        runDataCache.record("hit", found.size());
+        runDataCache.record("miss", missing.size());
+
+        List<ChunkResult> fetched = new ArrayList<>(fetchChunks(missing, false));
+        fetched.addAll(fetchChunks(stale, true));
+        int notModified = 0;
+        for (ChunkResult chunk : fetched) {
+            if (chunk.response().notModified()) {
+                runDataCache.touch(chunk.ids(), now);
+                chunk.ids().forEach(id -> {
+                    RunDataCache.Entry entry = runDataCache.get(id);
+                    if (entry != null) {
+                        found.put(id, entry.run());
+                    }
+                });
+                notModified += chunk.ids().size();
+                continue;
+            }
+            // Ids runs-app no longer returns must not be served from the cache either
+            chunk.ids().forEach(id -> runDataCache.invalidate(id, null));
+            for (GarminRunDataDTO run : chunk.runs()) {
+                runDataCache.put(run, chunk.response().etag(), chunk.response().lastModified(), now);
+                if (run.getId() != null) {
+                    found.put(run.getId(), run);
+                }
+            }
+        }
+        runDataCache.record("not_modified", notModified);
+
+        List<GarminRunDataDTO> runs = ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+        log.info("Fetched {} runs for {} ids ({} cached, {} revalidated, {} not modified) in {} call(s)",
+                runs.size(), ids.size(), ids.size() - missing.size() - stale.size(), stale.size(),
+                notModified, fetched.size());
+        return runs;
+    }
+
+    /**
+     * Fetches one page of runs runs-app created or changed after the keyset
+     * ({@code since}, {@code afterId}), ordered by {@code updatedAt} then id, at most
+     * {@code limit} runs. The last answer is kept and revalidated, so polling with an
+     * unchanged keyset gets a 304 while nothing changed.
+     */
+    public List<GarminRunDataDTO> fetchRecentRuns(LocalDateTime since, long afterId, int limit) {
+        String url = properties.getBaseUrl() + RECENT_PATH + "?since="
+                + URLEncoder.encode(since.toString(), StandardCharsets.UTF_8)
+                + "&afterId=" + afterId + "&limit=" + limit;
+        RecentSnapshot snapshot = runDataCache.isEnabled() ? recentSnapshot : null;
+        if (snapshot != null && !snapshot.url().equals(url)) {
+            snapshot = null;
+        }
+        Response response = get(url, "recent", snapshot != null ? snapshot.etag() : null,
+                snapshot != null ? snapshot.lastModified() : null);
+        if (response.notModified() && snapshot != null) {
+            runDataCache.record("not_modified", 1);
+            return snapshot.runs();
+        }
+        if (runDataCache.isEnabled()) {
+            Instant now = Instant.now();
+            response.runs().forEach(run -> runDataCache.put(run, null, null, now));
+            if (response.etag() != null || response.lastModified() != null) {
+                recentSnapshot = new RecentSnapshot(url, response.etag(), response.lastModified(), response.runs());
+            }
+        }
+        return response.runs();
+    }
+
+    private List<ChunkResult> fetchChunks(List<Long> ids, boolean conditional) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Semaphore permits = new Semaphore(properties.getParallelism());
+        List<CompletableFuture<ChunkResult>> chunks = chunk(ids).stream()
+                .map(chunkIds -> CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return fetchChunk(chunkIds, conditional);
+                    } finally {
+                        permits.release();
+                    }
+                }, executor))
+                .toList();
+
+        List<ChunkResult> results = new ArrayList<>(chunks.size());
+        try {
+            for (CompletableFuture<ChunkResult> chunk : chunks) {
+                results.add(chunk.join());
+            }
+        } catch (CompletionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw e.getCause() instanceof RunsAppClientException clientException
+                    ? clientException
+                    : new RunsAppClientException("runs-app batch fetch failed", e.getCause());
+        }
+        return results;
+    }
+
+    private ChunkResult fetchChunk(List<Long> ids, boolean conditional) {
+        String ifNoneMatch = null;
+        String ifModifiedSince = null;
+        if (conditional) {
+            Set<String> etags = new LinkedHashSet<>();
+            Instant oldest = null;
+            String oldestHeader = null;
+            boolean allDated = true;
+            for (Long id : ids) {
+                RunDataCache.Entry entry = runDataCache.get(id);
+                if (entry == null) {
+                    // Evicted meanwhile: ask for the full chunk
+                    etags.clear();
+                    allDated = false;
+                    break;
+                }
+                if (entry.etag() != null) {
+                    etags.add(entry.etag());
+                }
+                Instant lastModified = parseHttpDate(entry.lastModified());
+                if (lastModified == null) {
+                    allDated = false;
+                } else if (oldest == null || lastModified.isBefore(oldest)) {
+                    oldest = lastModified;
+                    oldestHeader = entry.lastModified();
+                }
+            }
+            if (!etags.isEmpty()) {
+                ifNoneMatch = String.join(", ", etags);
+            }
+            if (allDated) {
+                // Echo runs-app's own value rather than reformatting it
+                ifModifiedSince = oldestHeader;
+            }
+        }
+        return new ChunkResult(ids, get(batchUrl(ids), "batch", ifNoneMatch, ifModifiedSince));
+    }
+
+    List<String> chunkUrls(Collection<Long> dbIds) {
+        return chunk(dbIds).stream().map(this::batchUrl).toList();
+    }
+
+    private List<List<Long>> chunk(Collection<Long> dbIds) {
+        int budget = properties.getMaxUrlLength() - (properties.getBaseUrl() + BATCH_PATH + "?ids=").length();
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> current = new ArrayList<>();
+        int length = 0;
+        for (Long id : dbIds) {
+            int added = (current.isEmpty() ? 0 : 1) + String.valueOf(id).length();
+            if (!current.isEmpty() && (current.size() >= properties.getMaxIdsPerRequest() || length + added > budget)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                length = 0;
+                added = String.valueOf(id).length();
+            }
+            current.add(id);
+            length += added;
+        }
+        chunks.add(current);
+        return chunks;
+    }
+
+    private String batchUrl(List<Long> ids) {
+        return properties.getBaseUrl() + BATCH_PATH + "?ids="
+                + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private Response get(String url, String endpoint, String ifNoneMatch, String ifModifiedSince) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(properties.getRequestTimeoutMs()))
+                .header("Accept", "application/json")
+                .GET();
+        if (ifNoneMatch != null) {
+            builder.header("If-None-Match", ifNoneMatch);
+        }
+        if (ifModifiedSince != null) {
+            builder.header("If-Modified-Since", ifModifiedSince);
+        }
+        HttpRequest request = builder.build();
+
+        for (int attempt = 1; ; attempt++) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                int status = response.statusCode();
+                outcome = status / 100 + "xx";
+                if (status == 304 && (ifNoneMatch != null || ifModifiedSince != null)) {
+                    return new Response(true, List.of(), ifNoneMatch, ifModifiedSince);
+                }
+                if (status == 200) {
+                    return new Response(false, decode(response.body(), endpoint),
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null));
+                }
+                if (status != 429 && status < 500) {
+                    throw new RunsAppClientException("runs-app " + endpoint + " returned HTTP " + status);
+                }
+                if (attempt >= properties.getMaxAttempts()) {
+                    throw new RunsAppClientException("runs-app " + endpoint + " returned HTTP " + status
+                            + " after " + attempt + " attempts");
+                }
+                log.debug("runs-app {} returned HTTP {}, retrying (attempt {})", endpoint, status, attempt);
+            } catch (IOException e) {
+                // Connection failures and HttpTimeoutException
+                outcome = e instanceof HttpTimeoutException ? "timeout" : "error";
+                if (attempt >= properties.getMaxAttempts()) {
+                    throw new RunsAppClientException("runs-app " + endpoint + " failed after " + attempt
+                            + " attempts: " + e.getMessage(), e);
+                }
+                log.debug("runs-app {} call failed, retrying (attempt {}): {}", endpoint, attempt, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RunsAppClientException("Interrupted calling runs-app " + endpoint, e);
+            } finally {
+                sample.stop(meterRegistry.timer(REQUESTS_METRIC, "endpoint", endpoint, "outcome", outcome));
+            }
+            meterRegistry.counter(RETRIES_METRIC, "endpoint", endpoint).increment();
+            backoff(attempt);
+        }
+    }
+
+    private List<GarminRunDataDTO> decode(byte[] body, String endpoint) {
+        try {
+            GarminRunDataDTO[] runs = objectMapper.readValue(body, GarminRunDataDTO[].class);
+            return runs != null ? Arrays.asList(runs) : List.of();
+        } catch (IOException e) {
+            // A malformed body will not improve on retry
+            throw new RunsAppClientException("Unreadable runs-app " + endpoint + " response: " + e.getMessage(), e);
+        }
+    }
+
+    private static Instant parseHttpDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void backoff(int attempt) {
+        long bound = Math.min(properties.getBackoffMaxMs(), properties.getBackoffBaseMs() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RunsAppClientException("Interrupted waiting to retry runs-app", e);
+        }
+    }
+
+    private record Response(boolean notModified, List<GarminRunDataDTO> runs, String etag, String lastModified) {
+    }
+
+    private record ChunkResult(List<Long> ids, Response response) {
+
+        List<GarminRunDataDTO> runs() {
+            return response.runs();
+        }
+    }
+
+    private record RecentSnapshot(String url, String etag, String lastModified, List<GarminRunDataDTO> runs) {
+    }
+}
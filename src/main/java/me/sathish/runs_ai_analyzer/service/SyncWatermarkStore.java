@@ -0,0 +1,43 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Named keyset watermarks for incremental syncs (migration V009). A watermark is the
+ * {@code updatedAt} and id of the last record consumed; the next sync asks only for
+ * records after it.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncWatermarkStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Watermark> find(String name) {
+        return jdbcTemplate.query("SELECT watermark, last_id FROM sync_watermark WHERE name = ?",
+                (rs, rowNum) -> new Watermark(rs.getTimestamp("watermark").toLocalDateTime(), rs.getLong("last_id")),
+                name).stream().findFirst();
+    }
+
+    /**
+     * Stores {@code watermark} under {@code name}. Commits with the caller's
+     * transaction, so it only moves forward together with the work it covers.
+     */
+    public void save(String name, Watermark watermark) {
+        jdbcTemplate.update("""
+                INSERT INTO sync_watermark (name, watermark, last_id, updated_at)
+                VALUES (?, ?, ?, NOW())
+                ON CONFLICT (name) DO UPDATE
+                    SET watermark = EXCLUDED.watermark, last_id = EXCLUDED.last_id, updated_at = NOW()
+                """, name, Timestamp.valueOf(watermark.since()), watermark.lastId());
+    }
+
+    public record Watermark(LocalDateTime since, long lastId) {
+    }
+}
@@ -0,0 +1,97 @@
+-- Range-partition analysis_processing_log by created_at month.
+-- Retention becomes DETACH + DROP of whole partitions (see ProcessingLogPartitionService)
+-- instead of row deletes, and status scans bounded by created_at only touch recent months.
+--
+-- Postgres requires the partition key in every unique constraint, so the old
+-- UNIQUE (activity_id, database_id) becomes UNIQUE (activity_id, database_id, created_at).
+-- Idempotency was always enforced by GarminEventListener's lookup, not by this constraint.
+
+ALTER TABLE analysis_processing_log RENAME TO analysis_processing_log_legacy;
+ALTER TABLE analysis_processing_log_legacy RENAME CONSTRAINT analysis_processing_log_pkey TO analysis_processing_log_legacy_pkey;
+ALTER TABLE analysis_processing_log_legacy RENAME CONSTRAINT uk_activity_database TO uk_activity_database_legacy;
+ALTER SEQUENCE analysis_processing_log_id_seq OWNED BY NONE;
+
+CREATE TABLE analysis_processing_log
+(
+    id                BIGINT       NOT NULL DEFAULT nextval('analysis_processing_log_id_seq'),
+    activity_id       VARCHAR(255) NOT NULL,
+    database_id       BIGINT       NOT NULL,
+    event_type        VARCHAR(100) NOT NULL,
+    processing_status VARCHAR(50)  NOT NULL,
+    document_id       VARCHAR(255),
+    retry_count       INTEGER DEFAULT 0,
+    error_message     TEXT,
+    created_at        TIMESTAMP    NOT NULL,
+    processed_at      TIMESTAMP,
+    last_retry_at     TIMESTAMP,
+    CONSTRAINT analysis_processing_log_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT uk_activity_database UNIQUE (activity_id, database_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside every monthly partition (clock skew, maintenance job not yet run).
+CREATE TABLE analysis_processing_log_default PARTITION OF analysis_processing_log DEFAULT;
+
+CREATE INDEX idx_processing_log_activity_id ON analysis_processing_log (activity_id);
+CREATE INDEX idx_processing_log_status_created_at ON analysis_processing_log (processing_status, created_at);
+CREATE INDEX idx_processing_log_created_at ON analysis_processing_log (created_at);
+
+-- Creates the monthly partition containing p_month, named analysis_processing_log_pYYYY_MM.
+-- Idempotent. Rows that already landed in the default partition for that month are moved in.
+CREATE OR REPLACE FUNCTION create_analysis_processing_log_partition(p_month DATE)
+    RETURNS TEXT
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_to   DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    v_name TEXT := 'analysis_processing_log_p' || to_char(v_from, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+
+    IF EXISTS (SELECT 1
+               FROM analysis_processing_log_default
+               WHERE created_at >= v_from
+                 AND created_at < v_to) THEN
+        ALTER TABLE analysis_processing_log DETACH PARTITION analysis_processing_log_default;
+        EXECUTE format('CREATE TABLE %I PARTITION OF analysis_processing_log FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_from, v_to);
+        EXECUTE format('INSERT INTO %I SELECT * FROM analysis_processing_log_default WHERE created_at >= %L AND created_at < %L',
+                       v_name, v_from, v_to);
+        DELETE FROM analysis_processing_log_default WHERE created_at >= v_from AND created_at < v_to;
+        ALTER TABLE analysis_processing_log ATTACH PARTITION analysis_processing_log_default DEFAULT;
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF analysis_processing_log FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_from, v_to);
+    END IF;
+
+    RETURN v_name;
+END;
+$$;
+
+-- Partitions for every month with existing data, plus the next three months.
+DO
+$$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM analysis_processing_log_legacy), NOW()))::DATE;
+    v_last  DATE := (date_trunc('month', NOW()) + INTERVAL '3 months')::DATE;
+BEGIN
+    WHILE v_month <= v_last
+        LOOP
+            PERFORM create_analysis_processing_log_partition(v_month);
+            v_month := (v_month + INTERVAL '1 month')::DATE;
+        END LOOP;
+END;
+$$;
+
+INSERT INTO analysis_processing_log (id, activity_id, database_id, event_type, processing_status, document_id,
+                                     retry_count, error_message, created_at, processed_at, last_retry_at)
+SELECT id, activity_id, database_id, event_type, processing_status, document_id,
+       retry_count, error_message, created_at, processed_at, last_retry_at
+FROM analysis_processing_log_legacy;
+
+ALTER SEQUENCE analysis_processing_log_id_seq OWNED BY analysis_processing_log.id;
+
+DROP TABLE analysis_processing_log_legacy;
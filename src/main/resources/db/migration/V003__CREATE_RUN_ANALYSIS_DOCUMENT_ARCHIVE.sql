@@ -0,0 +1,27 @@
+-- Cold tier for analyses older than rag.cache.ttl-days. They are never served from
+-- the RAG cache again, so AnalysisArchiveService moves them here: the large text
+-- columns are stored deflate-compressed and their vectors leave the hot ANN index.
+-- RagStorageService still resolves them by document id and activity id.
+
+CREATE TABLE run_analysis_document_archive
+(
+    id                          BIGINT                      NOT NULL,
+    document_id                 UUID                        NOT NULL,
+    activity_ids                TEXT                        NOT NULL,
+    query_text_compressed       BYTEA                       NOT NULL,
+    analysis_content_compressed BYTEA                       NOT NULL,
+    summary                     TEXT,
+    total_runs                  INTEGER,
+    total_distance_km           DOUBLE PRECISION,
+    metadata                    JSONB,
+    created_at                  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    archived_at                 TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    CONSTRAINT run_analysis_document_archive_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_run_analysis_document_archive_document_id UNIQUE (document_id)
+);
+
+-- Already-compressed payloads gain nothing from TOAST compression.
+ALTER TABLE run_analysis_document_archive ALTER COLUMN query_text_compressed SET STORAGE EXTERNAL;
+ALTER TABLE run_analysis_document_archive ALTER COLUMN analysis_content_compressed SET STORAGE EXTERNAL;
+
+CREATE INDEX idx_run_analysis_document_archive_created_at ON run_analysis_document_archive (created_at DESC);
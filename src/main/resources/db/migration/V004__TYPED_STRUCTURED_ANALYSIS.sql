@@ -0,0 +1,55 @@
+-- Store the structured AI analysis and performance metrics as typed JSONB documents
+-- that map straight onto AiStructuredAnalysis / PerformanceMetrics, instead of
+-- flattening them into the free-form metadata map and coercing them back on every
+-- cache hit. Existing rows are backfilled from metadata, and the moved keys are
+-- stripped from it; metadata keeps only descriptive fields (runCount, dates).
+
+ALTER TABLE run_analysis_document
+    ADD COLUMN structured_analysis JSONB,
+    ADD COLUMN performance_metrics JSONB;
+
+ALTER TABLE run_analysis_document_archive
+    ADD COLUMN structured_analysis JSONB,
+    ADD COLUMN performance_metrics JSONB;
+
+CREATE OR REPLACE FUNCTION pg_temp.structured_analysis_from_metadata(p_metadata JSONB, p_summary TEXT)
+    RETURNS JSONB
+    LANGUAGE sql
+AS
+$$
+SELECT jsonb_build_object(
+               'summary', COALESCE(p_metadata ->> 'structuredSummary', p_summary),
+               'insights', COALESCE(p_metadata -> 'insights', '[]'::JSONB),
+               'recommendations', COALESCE(p_metadata -> 'recommendations', '[]'::JSONB),
+               'riskFlags', COALESCE(p_metadata -> 'riskFlags', '[]'::JSONB),
+               'confidenceScore', p_metadata -> 'confidenceScore')
+$$;
+
+CREATE OR REPLACE FUNCTION pg_temp.performance_metrics_from_metadata(p_metadata JSONB, p_total_runs INTEGER,
+                                                                     p_total_distance_km DOUBLE PRECISION)
+    RETURNS JSONB
+    LANGUAGE sql
+AS
+$$
+SELECT jsonb_build_object(
+               'totalRuns', COALESCE((p_metadata ->> 'totalRuns')::INTEGER, p_total_runs, 0),
+               'totalDistanceKm', COALESCE((p_metadata ->> 'totalDistanceKm')::DOUBLE PRECISION, p_total_distance_km, 0),
+               'totalDuration', p_metadata -> 'totalDuration',
+               'averagePaceMinPerKm', p_metadata -> 'averagePace',
+               'averageHeartRate', p_metadata -> 'averageHeartRate',
+               'totalCalories', p_metadata -> 'totalCalories')
+$$;
+
+UPDATE run_analysis_document
+SET structured_analysis = pg_temp.structured_analysis_from_metadata(COALESCE(metadata, '{}'::JSONB), summary),
+    performance_metrics = pg_temp.performance_metrics_from_metadata(COALESCE(metadata, '{}'::JSONB), total_runs, total_distance_km),
+    metadata            = metadata - 'structuredSummary' - 'insights' - 'recommendations' - 'riskFlags'
+                              - 'confidenceScore' - 'totalRuns' - 'totalDistanceKm' - 'totalDuration'
+                              - 'averagePace' - 'averageHeartRate' - 'totalCalories';
+
+UPDATE run_analysis_document_archive
+SET structured_analysis = pg_temp.structured_analysis_from_metadata(COALESCE(metadata, '{}'::JSONB), summary),
+    performance_metrics = pg_temp.performance_metrics_from_metadata(COALESCE(metadata, '{}'::JSONB), total_runs, total_distance_km),
+    metadata            = metadata - 'structuredSummary' - 'insights' - 'recommendations' - 'riskFlags'
+                              - 'confidenceScore' - 'totalRuns' - 'totalDistanceKm' - 'totalDuration'
+                              - 'averagePace' - 'averageHeartRate' - 'totalCalories';
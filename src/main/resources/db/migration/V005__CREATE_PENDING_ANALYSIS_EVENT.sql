@@ -0,0 +1,20 @@
+-- Durable pending set for RunAnalysisBatchService. It replaces the in-memory map,
+-- which lost queued events on restart and split each athlete's events across
+-- replicas. Any replica can flush an athlete once the athlete has
+-- analysis.batch.size events or the oldest event has waited
+-- analysis.batch.window-minutes. Claims use a per-athlete advisory lock plus
+-- FOR UPDATE SKIP LOCKED (see PendingAnalysisQueue).
+
+CREATE TABLE pending_analysis_event
+(
+    id          BIGSERIAL                   NOT NULL,
+    athlete_key VARCHAR(255)                NOT NULL,
+    activity_id VARCHAR(255)                NOT NULL,
+    database_id BIGINT                      NOT NULL,
+    event_type  VARCHAR(100)                NOT NULL,
+    enqueued_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    CONSTRAINT pending_analysis_event_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_pending_analysis_event_activity_database UNIQUE (activity_id, database_id)
+);
+
+CREATE INDEX idx_pending_analysis_event_athlete_enqueued_at ON pending_analysis_event (athlete_key, enqueued_at);
@@ -0,0 +1,26 @@
+-- Transactional outbox for events bound for RabbitMQ. Rows are inserted in the same
+-- transaction as the analysis document or journal entry they describe. OutboxRelay
+-- claims unsent rows with FOR UPDATE SKIP LOCKED, publishes them with publisher
+-- confirms and sets sent_at, so a broker outage delays events instead of losing them.
+--
+-- wire_format records how the payload goes on the wire:
+--   RAW_JSON  - payload bytes as the message body (eventstracker's raw-Message consumers)
+--   CONVERTED - payload passed through RabbitTemplate's message converter
+
+CREATE TABLE outbox_event
+(
+    id              BIGSERIAL                   NOT NULL,
+    exchange        VARCHAR(255)                NOT NULL,
+    routing_key     VARCHAR(255)                NOT NULL,
+    wire_format     VARCHAR(20)                 NOT NULL,
+    payload         TEXT                        NOT NULL,
+    attempts        INTEGER                     NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    sent_at         TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT outbox_event_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_outbox_event_unsent ON outbox_event (next_attempt_at, id) WHERE sent_at IS NULL;
+CREATE INDEX idx_outbox_event_sent_at ON outbox_event (sent_at) WHERE sent_at IS NOT NULL;
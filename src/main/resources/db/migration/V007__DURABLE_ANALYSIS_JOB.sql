@@ -0,0 +1,22 @@
+-- Durable async analysis jobs. The request payload is stored with the job so any
+-- instance can run it, and AnalysisJobWorker claims PENDING rows with
+-- FOR UPDATE SKIP LOCKED under a time-limited lease. A job whose lease expires
+-- (instance crashed or restarted mid-call) goes back to PENDING until max attempts.
+
+ALTER TABLE analysis_job
+    ADD COLUMN request_payload  JSONB,
+    ADD COLUMN force_refresh    BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN attempts         INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN lease_owner      VARCHAR(100),
+    ADD COLUMN lease_expires_at TIMESTAMP;
+
+-- Jobs created before this migration never stored their runs and cannot be resumed.
+UPDATE analysis_job
+SET status        = 'FAILED',
+    error_message = 'Interrupted by restart before durable jobs; please resubmit',
+    updated_at    = NOW()
+WHERE status IN ('PENDING', 'PROCESSING');
+
+DROP INDEX IF EXISTS idx_analysis_job_status;
+CREATE INDEX idx_analysis_job_pending ON analysis_job (created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_analysis_job_lease ON analysis_job (lease_expires_at) WHERE status = 'PROCESSING';
@@ -0,0 +1,31 @@
+-- Persisted checkpoint for ReconciliationService catch-up. Missed runs are planned
+-- into chunks of one athlete and one ISO week, capped at
+-- reconciliation.chunk.max-runs runs. Each chunk is claimed with FOR UPDATE SKIP LOCKED
+-- under a lease, analyzed with no transaction open and completed in a second short
+-- transaction, so a crash resumes at the first unfinished chunk.
+--
+-- A run is planned at most once: planning skips database ids already present in any
+-- chunk (see ReconciliationCheckpointStore.findMissed).
+
+CREATE TABLE reconciliation_chunk
+(
+    id               BIGSERIAL                   NOT NULL,
+    athlete_key      VARCHAR(255)                NOT NULL,
+    week_start       DATE                        NOT NULL,
+    database_ids     BIGINT[]                    NOT NULL,
+    activity_ids     TEXT[]                      NOT NULL,
+    status           VARCHAR(20)                 NOT NULL,
+    attempts         INTEGER                     NOT NULL DEFAULT 0,
+    lease_owner      VARCHAR(100),
+    lease_expires_at TIMESTAMP WITHOUT TIME ZONE,
+    document_id      VARCHAR(255),
+    error_message    TEXT,
+    created_at       TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    updated_at       TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    CONSTRAINT reconciliation_chunk_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_reconciliation_chunk_claimable ON reconciliation_chunk (week_start, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+CREATE INDEX idx_reconciliation_chunk_database_ids ON reconciliation_chunk USING GIN (database_ids);
+CREATE INDEX idx_reconciliation_chunk_updated_at ON reconciliation_chunk (updated_at);
@@ -0,0 +1,13 @@
+-- Persisted keyset watermark for incremental syncs with runs-app. ReconciliationService
+-- pages through runs changed after (watermark, last_id) instead of re-downloading the
+-- whole lookback window, and advances the row in the same transaction that plans the
+-- page's missed runs, so a crash resumes from the last planned page.
+
+CREATE TABLE sync_watermark
+(
+    name       VARCHAR(100)                NOT NULL,
+    watermark  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    last_id    BIGINT                      NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT NOW(),
+    CONSTRAINT sync_watermark_pkey PRIMARY KEY (name)
+);
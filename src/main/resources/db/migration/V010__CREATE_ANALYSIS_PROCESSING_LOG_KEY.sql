@@ -0,0 +1,21 @@
+-- Database-level idempotency for analysis_processing_log. Partitioning (V002) had to
+-- widen the unique constraint to (activity_id, database_id, created_at), so two inserts
+-- of the same run at different times both succeeded. This small unpartitioned table
+-- holds the real key; AnalysisProcessingLogRepositoryImpl.insertAll claims the key with
+-- ON CONFLICT DO NOTHING and only inserts a log row when the claim succeeded.
+-- ProcessingLogPartitionService releases keys whose log rows were dropped by retention.
+
+CREATE TABLE analysis_processing_log_key
+(
+    activity_id VARCHAR(255)                NOT NULL,
+    database_id BIGINT                      NOT NULL,
+    created_at  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT analysis_processing_log_key_pkey PRIMARY KEY (activity_id, database_id)
+);
+
+CREATE INDEX idx_processing_log_key_created_at ON analysis_processing_log_key (created_at);
+
+INSERT INTO analysis_processing_log_key (activity_id, database_id, created_at)
+SELECT activity_id, database_id, MIN(created_at)
+FROM analysis_processing_log
+GROUP BY activity_id, database_id;
@@ -0,0 +1,13 @@
+-- Flushes used to delete an athlete's pending events in the same transaction that ran
+-- the runs-app fetch and the LLM call, holding a connection, the athlete's advisory
+-- lock and the row locks for the whole analysis. Now a flush leases the rows in a short
+-- transaction, analyzes with no transaction open, and deletes its leased rows together
+-- with the outcome in a second short transaction. Rows of a crashed flush become
+-- claimable again once their lease expires.
+
+ALTER TABLE pending_analysis_event
+    ADD COLUMN lease_owner      VARCHAR(100),
+    ADD COLUMN lease_expires_at TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX idx_pending_analysis_event_lease ON pending_analysis_event (athlete_key, lease_expires_at)
+    WHERE lease_owner IS NOT NULL;
@@ -0,0 +1,96 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisAdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_shouldRejectAnalysesBeyondTheInFlightLimit() throws Exception {
+        AnalysisAdmissionFilter filter = new AnalysisAdmissionFilter(1, meterRegistry);
+        ReflectionTestUtils.setField(filter, "maxWaitMs", 50L);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 15);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowAnalysis = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(analyzeRequest("/api/v1/analysis/analyze"), new MockHttpServletResponse(), slowAnalysis);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("analysis.admission.in.flight").gauge().value()).isEqualTo(1);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(analyzeRequest("/api/v1/analysis/analyze/single"), rejected, (request, response) -> { });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("15");
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(analyzeRequest("/api/v1/analysis/analyze"), admitted, (request, response) -> { });
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_shouldHoldBulkPermitUntilTheStreamEnds() throws Exception {
+        AnalysisAdmissionFilter filter = new AnalysisAdmissionFilter(1, meterRegistry);
+        ReflectionTestUtils.setField(filter, "maxWaitMs", 50L);
+        MockHttpServletRequest bulk = analyzeRequest("/api/v1/analysis/analyze/bulk");
+        bulk.setAsyncSupported(true);
+
+        filter.doFilter(bulk, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(analyzeRequest("/api/v1/analysis/analyze"), rejected, (request, response) -> { });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        ((MockAsyncContext) bulk.getAsyncContext()).complete();
+        assertThat(meterRegistry.get("analysis.admission.in.flight").gauge().value()).isZero();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(analyzeRequest("/api/v1/analysis/analyze"), admitted, (request, response) -> { });
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_shouldNotGuardAsyncSubmissionOrReads() throws Exception {
+        AnalysisAdmissionFilter filter = new AnalysisAdmissionFilter(0, meterRegistry);
+
+        MockHttpServletResponse async = new MockHttpServletResponse();
+        filter.doFilter(analyzeRequest("/api/v1/analysis/analyze/async"), async, (request, response) -> { });
+        MockHttpServletRequest status = new MockHttpServletRequest("GET", "/api/v1/analysis/analyze");
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(status, read, (request, response) -> { });
+
+        assertThat(async.getStatus()).isEqualTo(200);
+        assertThat(read.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletRequest analyzeRequest(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+}
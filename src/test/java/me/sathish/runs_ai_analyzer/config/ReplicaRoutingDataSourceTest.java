@@ -0,0 +1,94 @@
+package me.sathish.runs_ai_analyzer.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    @AfterEach
+    void clearTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void shouldRouteReplicaReadTransactionsToHealthyReplica() {
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+
+        assertThat(replicaReads(routing).replicaRead()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+    }
+
+    @Test
+    void shouldKeepUnmarkedReadOnlyTransactionsOnPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+
+        assertThat(replicaReads(routing).unmarkedRead()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+
+    @Test
+    void shouldRouteReplicaReadTransactionsToPrimaryWhenReplicaLags() {
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+
+        assertThat(replicaReads(routing).replicaRead()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+
+    @Test
+    void shouldRouteWritesToPrimary() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+
+        assertThat(replicaReads(routing).replicaRead()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+    }
+
+    private static RoutedReads replicaReads(ReplicaRoutingDataSource routing) {
+        ProxyFactory proxyFactory = new ProxyFactory(new RoutedReads(routing));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(ReadReplicaDataSourceConfiguration.replicaReadAdvisor());
+        return (RoutedReads) proxyFactory.getProxy();
+    }
+
+    static class RoutedReads {
+
+        private final ReplicaRoutingDataSource routing;
+
+        RoutedReads(ReplicaRoutingDataSource routing) {
+            this.routing = routing;
+        }
+
+        @ReplicaRead
+        public Object replicaRead() {
+            return routing.determineCurrentLookupKey();
+        }
+
+        public Object unmarkedRead() {
+            return routing.determineCurrentLookupKey();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.sathish.runs_ai_analyzer.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import me.sathish.runs_ai_analyzer.dto.RagSearchRequest;
 import me.sathish.runs_ai_analyzer.dto.RagSearchResponse;
 import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
@@ -7,7 +8,6 @@ import me.sathish.runs_ai_analyzer.service.RagStorageService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.document.Document;
@@ -23,6 +23,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +32,7 @@ class RagSearchControllerTest {
     @Mock
     private RagStorageService ragStorageService;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private RagSearchController ragSearchController;
 
     private RunAnalysisDocument testDocument;
@@ -39,6 +40,8 @@ class RagSearchControllerTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ragSearchController = new RagSearchController(ragStorageService, meterRegistry, 365);
         testDocumentId = UUID.randomUUID();
         testDocument = RunAnalysisDocument.builder()
                 .id(1L)
@@ -109,7 +112,7 @@ class RagSearchControllerTest {
     void getRecentAnalyses_shouldReturnDocuments() {
         when(ragStorageService.getRecentAnalyses(10)).thenReturn(List.of(testDocument));
 
-        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.getRecentAnalyses(10);
+        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.getRecentAnalyses(10, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).hasSize(1);
@@ -120,7 +123,7 @@ class RagSearchControllerTest {
     void getAnalysisByDocumentId_shouldReturnDocument() {
         when(ragStorageService.findByDocumentId(testDocumentId)).thenReturn(Optional.of(testDocument));
 
-        ResponseEntity<RunAnalysisDocument> response = ragSearchController.getAnalysisByDocumentId(testDocumentId);
+        ResponseEntity<RunAnalysisDocument> response = ragSearchController.getAnalysisByDocumentId(testDocumentId, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
@@ -132,7 +135,7 @@ class RagSearchControllerTest {
         UUID randomId = UUID.randomUUID();
         when(ragStorageService.findByDocumentId(randomId)).thenReturn(Optional.empty());
 
-        ResponseEntity<RunAnalysisDocument> response = ragSearchController.getAnalysisByDocumentId(randomId);
+        ResponseEntity<RunAnalysisDocument> response = ragSearchController.getAnalysisByDocumentId(randomId, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -151,7 +154,7 @@ class RagSearchControllerTest {
 
         when(ragStorageService.findAnalysesByActivityId("ACT001")).thenReturn(List.of(doc));
 
-        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.findByActivityId("ACT001");
+        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.findByActivityId("ACT001", null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).hasSize(1);
@@ -173,10 +176,98 @@ class RagSearchControllerTest {
 
         when(ragStorageService.findAnalysesByMinimumDistance(10.0)).thenReturn(List.of(doc));
 
-        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.findByMinimumDistance(10.0);
+        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.findByMinimumDistance(10.0, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).hasSize(1);
         assertThat(response.getBody().get(0).getTotalDistanceKm()).isEqualTo(15.0);
     }
+
+    @Test
+    void getAnalysisByDocumentId_shouldSendStrongETagAndImmutableCacheControl() {
+        when(ragStorageService.findByDocumentId(testDocumentId)).thenReturn(Optional.of(testDocument));
+
+        ResponseEntity<RunAnalysisDocument> response = ragSearchController.getAnalysisByDocumentId(testDocumentId, null, null);
+
+        assertThat(response.getHeaders().getETag())
+                .isEqualTo(RagSearchController.documentETag(testDocumentId, testDocument.getCreatedAt()))
+                .startsWith("\"" + testDocumentId + "-");
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable", "private", "max-age=31536000");
+    }
+
+    @Test
+    void getAnalysisByDocumentId_shouldAnswerNotModifiedWithoutDatabaseAccess() {
+        String etag = RagSearchController.documentETag(testDocumentId, testDocument.getCreatedAt());
+
+        ResponseEntity<RunAnalysisDocument> response =
+                ragSearchController.getAnalysisByDocumentId(testDocumentId, null, "\"other\", W/" + etag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(response.getBody()).isNull();
+        verifyNoInteractions(ragStorageService);
+        assertThat(meterRegistry.counter(RagSearchController.NOT_MODIFIED_METRIC,
+                "resource", "document", "database", "skipped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getAnalysisByDocumentId_shouldIgnoreETagOfAnotherDocument() {
+        String otherTag = RagSearchController.documentETag(UUID.randomUUID(), testDocument.getCreatedAt());
+        when(ragStorageService.findByDocumentId(testDocumentId)).thenReturn(Optional.of(testDocument));
+
+        ResponseEntity<RunAnalysisDocument> response =
+                ragSearchController.getAnalysisByDocumentId(testDocumentId, null, otherTag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(testDocument);
+    }
+
+    @Test
+    void getAnalysisByDocumentId_shouldMatchOnlyTheRequestedFieldset() {
+        String etag = RagSearchController.documentETag(testDocumentId, testDocument.getCreatedAt());
+        String summaryTag = SparseFieldsetAdvice.fieldsetTag(etag, "summary");
+        when(ragStorageService.findByDocumentId(testDocumentId)).thenReturn(Optional.of(testDocument));
+
+        assertThat(ragSearchController.getAnalysisByDocumentId(testDocumentId, "summary", summaryTag)
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(ragSearchController.getAnalysisByDocumentId(testDocumentId, null, summaryTag)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(ragSearchController.getAnalysisByDocumentId(testDocumentId, "metrics", summaryTag)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(ragSearchController.getAnalysisByDocumentId(testDocumentId, "summary", etag)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getAnalysisByDocumentId_shouldIgnoreMalformedCreatedAt() {
+        when(ragStorageService.findByDocumentId(testDocumentId)).thenReturn(Optional.of(testDocument));
+
+        ResponseEntity<RunAnalysisDocument> response =
+                ragSearchController.getAnalysisByDocumentId(testDocumentId, null, "\"" + testDocumentId + "-x.y\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getRecentAnalyses_shouldNotMatchATrimmedListForTheFullList() {
+        when(ragStorageService.getRecentAnalyses(10)).thenReturn(List.of(testDocument));
+        String etag = ragSearchController.getRecentAnalyses(10, null, null).getHeaders().getETag();
+
+        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.getRecentAnalyses(10, null,
+                SparseFieldsetAdvice.fieldsetTag(etag, "summary"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void getRecentAnalyses_shouldAnswerNotModifiedWhenListIsUnchanged() {
+        when(ragStorageService.getRecentAnalyses(10)).thenReturn(List.of(testDocument));
+        String etag = ragSearchController.getRecentAnalyses(10, null, null).getHeaders().getETag();
+
+        ResponseEntity<List<RunAnalysisDocument>> response = ragSearchController.getRecentAnalyses(10, null, etag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache");
+    }
 }
@@ -0,0 +1,88 @@
+package me.sathish.runs_ai_analyzer.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SparseFieldsetAdviceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SparseFieldsetAdvice advice = new SparseFieldsetAdvice(objectMapper);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void beforeBodyWrite_shouldKeepOnlyRequestedPathsAndTagTheRepresentation() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/analysis/analyze/result/1");
+        request.setParameter("fields", "summary, metrics.totalRuns");
+        ServletServerHttpResponse response = new ServletServerHttpResponse(new MockHttpServletResponse());
+        response.getHeaders().setETag("\"abc\"");
+
+        Object body = advice.beforeBodyWrite(analysis(), mock(MethodParameter.class), MediaType.APPLICATION_JSON,
+                JacksonJsonHttpMessageConverter.class, new ServletServerHttpRequest(request), response);
+
+        Map<String, Object> trimmed = (Map<String, Object>) body;
+        assertThat(trimmed).containsOnlyKeys("summary", "metrics");
+        assertThat((Map<String, Object>) trimmed.get("metrics")).containsOnly(Map.entry("totalRuns", 3));
+        String etag = response.getHeaders().getETag();
+        assertThat(etag).startsWith("\"abc.f").endsWith("\"");
+        assertThat(SparseFieldsetAdvice.baseTag(etag)).isEqualTo("\"abc\"");
+        assertThat(SparseFieldsetAdvice.fieldsetTag("\"abc\"", "metrics.totalRuns,summary")).isEqualTo(etag);
+        assertThat(SparseFieldsetAdvice.fieldsetTag("\"abc\"", null)).isEqualTo("\"abc\"");
+    }
+
+    @Test
+    void beforeBodyWrite_shouldLeaveBodyAloneWithoutFieldsOrOnErrors() {
+        RunAnalysisResponse analysis = analysis();
+        MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/api/v1/rag/recent");
+        assertThat(advice.beforeBodyWrite(analysis, mock(MethodParameter.class), MediaType.APPLICATION_JSON,
+                JacksonJsonHttpMessageConverter.class, new ServletServerHttpRequest(plain),
+                new ServletServerHttpResponse(new MockHttpServletResponse()))).isSameAs(analysis);
+
+        MockHttpServletRequest filtered = new MockHttpServletRequest("GET", "/api/v1/rag/recent");
+        filtered.setParameter("fields", "summary");
+        MockHttpServletResponse notFound = new MockHttpServletResponse();
+        notFound.setStatus(404);
+        assertThat(advice.beforeBodyWrite(analysis, mock(MethodParameter.class), MediaType.APPLICATION_JSON,
+                JacksonJsonHttpMessageConverter.class, new ServletServerHttpRequest(filtered),
+                new ServletServerHttpResponse(notFound))).isSameAs(analysis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void trim_shouldApplyToEveryElementOfAList() {
+        Object trimmed = SparseFieldsetAdvice.trim(objectMapper, List.of(analysis(), analysis()), "summary");
+
+        assertThat((List<Map<String, Object>>) trimmed)
+                .hasSize(2)
+                .allSatisfy(element -> assertThat(element).containsOnlyKeys("summary"));
+    }
+
+    @Test
+    void includes_shouldMatchTopLevelProperty() {
+        assertThat(SparseFieldsetAdvice.includes(null, "rawAnalysis")).isTrue();
+        assertThat(SparseFieldsetAdvice.includes("summary,metrics", "rawAnalysis")).isFalse();
+        assertThat(SparseFieldsetAdvice.includes("summary,rawAnalysis", "rawAnalysis")).isTrue();
+    }
+
+    private RunAnalysisResponse analysis() {
+        return RunAnalysisResponse.builder()
+                .summary("Solid week")
+                .rawAnalysis("x".repeat(4000))
+                .recommendations(List.of("Rest"))
+                .metrics(RunAnalysisResponse.PerformanceMetrics.builder().totalRuns(3).totalDistanceKm(21.5).build())
+                .build();
+    }
+}
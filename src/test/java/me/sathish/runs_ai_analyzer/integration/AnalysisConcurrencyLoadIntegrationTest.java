@@ -0,0 +1,149 @@
+package me.sathish.runs_ai_analyzer.integration;
+
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.service.RunAnalysisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load check for synchronous {@code /analyze}: fires more concurrent requests than
+ * Tomcat has platform worker threads while every analysis blocks for a fixed LLM-like
+ * latency, and logs the peak number of analyses in flight with and without virtual
+ * threads. The LLM is replaced by a sleeping stub so only request handling is measured.
+ * Tagged {@code load} and excluded from the default suite; run it with
+ * {@code -Pload-tests}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+class AnalysisConcurrencyLoadIntegrationTest {
+
+    private static final int CONCURRENT_REQUESTS = 400;
+    private static final int PLATFORM_THREADS = 100;
+    private static final Duration LLM_LATENCY = Duration.ofSeconds(2);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:3.13-management");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+        registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+        registry.add("reconciliation.enabled", () -> "false");
+        registry.add("server.tomcat.threads.max", () -> String.valueOf(PLATFORM_THREADS));
+        registry.add("analysis.admission.max-in-flight", () -> String.valueOf(CONCURRENT_REQUESTS));
+        registry.add("analysis.admission.max-wait-ms", () -> "60000");
+    }
+
+    @MockitoBean
+    private RunAnalysisService runAnalysisService;
+
+    @LocalServerPort
+    private int port;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void stubSlowAnalysis() {
+        when(runAnalysisService.analyzeRuns(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LLM_LATENCY);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return RunAnalysisResponse.builder().containsRunData(true).summary("stub").build();
+        });
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads {
+
+        @Test
+        void peakInFlightIsCappedByTomcatWorkerThreads() throws Exception {
+            int peak = runLoad("platform threads");
+            assertThat(peak).isLessThanOrEqualTo(PLATFORM_THREADS);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads {
+
+        @Test
+        void peakInFlightIsBoundedOnlyByTheAdmissionLimit() throws Exception {
+            int peak = runLoad("virtual threads");
+            assertThat(peak).isGreaterThan(PLATFORM_THREADS);
+        }
+    }
+
+    private int runLoad(String mode) throws Exception {
+        String body = """
+                {"runs":[{"activityId":"load-1","activityDate":"2026-01-01","activityType":"running",
+                "activityName":"Load Run","distance":"5.0","elapsedTime":"00:25:00"}]}""";
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/analysis/analyze"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        Instant start = Instant.now();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        Duration elapsed = Duration.between(start, Instant.now());
+
+        long ok = responses.stream().filter(r -> r.join().statusCode() == 200).count();
+        log.info("{}: {}/{} requests OK in {}ms, peak in-flight analyses={} ({} platform worker threads, {}s LLM latency)",
+                mode, ok, CONCURRENT_REQUESTS, elapsed.toMillis(), peakInFlight.get(),
+                PLATFORM_THREADS, LLM_LATENCY.toSeconds());
+        assertThat(ok).isEqualTo(CONCURRENT_REQUESTS);
+        return peakInFlight.get();
+    }
+}
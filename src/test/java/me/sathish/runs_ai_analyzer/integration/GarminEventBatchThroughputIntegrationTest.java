@@ -0,0 +1,158 @@
+package me.sathish.runs_ai_analyzer.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.config.RabbitMQListenerConfiguration;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Batch consumption of a burst of distinct events plus duplicates: every distinct
+ * event gets exactly one processing log row. The regular suite checks this with a
+ * small burst. The CSV-import-sized throughput check is tagged {@code load} and runs
+ * with {@code -Pload-tests}. It logs the elapsed time and events/second so runs with
+ * different {@code rabbitmq.listener.batch-size} values can be compared.
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers
+class GarminEventBatchThroughputIntegrationTest {
+
+    private static final int BULK_EVENT_COUNT = 2000;
+    private static final int BULK_DUPLICATE_COUNT = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("pgvector/pgvector:pg16")
+            .withDatabaseName("test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:3.13-management");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+        registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+        registry.add("runs-app.base-url", () -> "http://localhost:9999");
+        registry.add("reconciliation.enabled", () -> "false");
+        registry.add("analysis.batch.interval-ms", () -> "3600000");
+        registry.add("rabbitmq.listener.batch-size", () -> "100");
+        registry.add("rabbitmq.listener.receive-timeout-ms", () -> "200");
+    }
+
+    @TestConfiguration
+    static class GarminTopology {
+
+        // eventstracker provisions these in production; a fresh broker needs them declared
+        @Bean
+        TopicExchange garminExchange() {
+            return new TopicExchange(RabbitMQListenerConfiguration.GARMIN_EXCHANGE);
+        }
+
+        @Bean
+        Queue analyzerQueue() {
+            return new Queue(RabbitMQListenerConfiguration.ANALYZER_QUEUE);
+        }
+
+        @Bean
+        Binding analyzerBinding(Queue analyzerQueue, TopicExchange garminExchange) {
+            return BindingBuilder.bind(analyzerQueue).to(garminExchange)
+                    .with(RabbitMQListenerConfiguration.GARMIN_OPS_ROUTING_KEY);
+        }
+    }
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AnalysisProcessingLogRepository processingLogRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        processingLogRepository.deleteAll();
+    }
+
+    @Test
+    void shouldLogEachDistinctEventOnceDespiteDuplicates() throws Exception {
+        publish(20, 10);
+
+        await().atMost(15, SECONDS).pollInterval(100, MILLISECONDS)
+                .until(() -> processingLogRepository.count() >= 20);
+        assertNoDuplicateRows(20);
+    }
+
+    @Test
+    @Tag("load")
+    void shouldLogEveryDistinctEventOfABulkImport() throws Exception {
+        long start = System.nanoTime();
+        publish(BULK_EVENT_COUNT, BULK_DUPLICATE_COUNT);
+
+        await().atMost(60, SECONDS).pollInterval(100, MILLISECONDS)
+                .until(() -> processingLogRepository.count() >= BULK_EVENT_COUNT);
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("Consumed {} messages ({} distinct) in {}s: {} events/s",
+                BULK_EVENT_COUNT + BULK_DUPLICATE_COUNT, BULK_EVENT_COUNT, "%.2f".formatted(elapsedSeconds),
+                Math.round(BULK_EVENT_COUNT / elapsedSeconds));
+        assertNoDuplicateRows(BULK_EVENT_COUNT);
+    }
+
+    private void publish(int distinct, int duplicates) throws Exception {
+        for (int i = 0; i < distinct + duplicates; i++) {
+            int n = i % distinct;
+            rabbitTemplate.convertAndSend(
+                    RabbitMQListenerConfiguration.GARMIN_EXCHANGE,
+                    "sathishprojects.garmin.ops.event",
+                    message("bulk-activity-" + n, 10_000L + n));
+        }
+    }
+
+    private void assertNoDuplicateRows(int distinct) {
+        // Duplicates still in flight must not add rows
+        await().during(1, SECONDS).atMost(5, SECONDS).pollInterval(100, MILLISECONDS)
+                .untilAsserted(() -> assertThat(processingLogRepository.count()).isEqualTo(distinct));
+    }
+
+    private String message(String activityId, long databaseId) throws Exception {
+        GarminRunEvent event = new GarminRunEvent();
+        event.setEventType("GARMIN_CSV_RUN");
+        event.setActivityId(activityId);
+        event.setActivityName("Bulk Import Run");
+        event.setDatabaseId(databaseId);
+        event.setStatus("SUCCESS");
+        event.setActivityType("running");
+        return objectMapper.writeValueAsString(event);
+    }
+}
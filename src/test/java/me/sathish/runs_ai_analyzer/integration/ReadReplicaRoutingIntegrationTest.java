@@ -0,0 +1,167 @@
+package me.sathish.runs_ai_analyzer.integration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import me.sathish.runs_ai_analyzer.config.ReadReplicaDataSourceConfiguration;
+import me.sathish.runs_ai_analyzer.config.ReplicaLagMonitor;
+import me.sathish.runs_ai_analyzer.config.ReplicaRead;
+import me.sathish.runs_ai_analyzer.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exercises read/write routing against two real Postgres servers. Each server holds a
+ * marker row naming itself, so a query reveals which pool served it. The second
+ * container stands in for a streaming replica; it reports zero lag because it is not
+ * in recovery, and the lag guard is exercised by tightening the threshold instead.
+ */
+@Testcontainers
+class ReadReplicaRoutingIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("pgvector/pgvector:pg16")
+            .withDatabaseName("primary")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("pgvector/pgvector:pg16")
+            .withDatabaseName("replica")
+            .withUsername("test")
+            .withPassword("test");
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @BeforeAll
+    static void seedMarkers() {
+        seed(primary, "primary");
+        seed(replica, "replica");
+    }
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(HikariDataSource::close);
+        pools.clear();
+    }
+
+    @Test
+    void replicaReadTransactionsShouldUseReplicaAndWritesPrimary() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(pool(replica), 5.0);
+        monitor.checkLag();
+        DataSource routing = routing(monitor);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routing);
+
+        assertThat(monitor.isReplicaUsable()).isTrue();
+        assertThat(reads(routing).replicaRead()).isEqualTo("replica");
+        assertThat(source(routing, false)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("SELECT source FROM marker", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void unmarkedReadOnlyTransactionsShouldStayOnPrimary() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(pool(replica), 5.0);
+        monitor.checkLag();
+        DataSource routing = routing(monitor);
+
+        assertThat(monitor.isReplicaUsable()).isTrue();
+        assertThat(source(routing, true)).isEqualTo("primary");
+        assertThat(reads(routing).unmarkedRead()).isEqualTo("primary");
+    }
+
+    @Test
+    void readsShouldFallBackToPrimaryWhenReplicaLagExceedsThreshold() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(pool(replica), -1.0);
+        monitor.checkLag();
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(reads(routing(monitor)).replicaRead()).isEqualTo("primary");
+    }
+
+    @Test
+    void readsShouldFallBackToPrimaryWhenReplicaIsUnreachable() {
+        HikariDataSource replicaPool = pool(replica);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaPool, 5.0);
+        monitor.checkLag();
+        assertThat(monitor.isReplicaUsable()).isTrue();
+
+        replicaPool.close();
+        monitor.checkLag();
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(reads(routing(monitor)).replicaRead()).isEqualTo("primary");
+    }
+
+    private DataSource routing(ReplicaLagMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(pool(primary), pool(replica), monitor));
+    }
+
+    private static String source(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT source FROM marker", String.class));
+    }
+
+    /** Proxied with the same advisor the application registers for {@link ReplicaRead}. */
+    private static MarkerReads reads(DataSource dataSource) {
+        ProxyFactory proxyFactory = new ProxyFactory(new MarkerReads(dataSource));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(ReadReplicaDataSourceConfiguration.replicaReadAdvisor());
+        return (MarkerReads) proxyFactory.getProxy();
+    }
+
+    static class MarkerReads {
+
+        private final DataSource dataSource;
+
+        MarkerReads(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @ReplicaRead
+        public String replicaRead() {
+            return source(dataSource, true);
+        }
+
+        public String unmarkedRead() {
+            return source(dataSource, true);
+        }
+    }
+
+    private HikariDataSource pool(PostgreSQLContainer<?> container) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        dataSource.setMaximumPoolSize(2);
+        pools.add(dataSource);
+        return dataSource;
+    }
+
+    private static void seed(PostgreSQLContainer<?> container, String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        try (dataSource) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE marker (source TEXT NOT NULL)");
+            jdbcTemplate.update("INSERT INTO marker (source) VALUES (?)", name);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocumentArchive;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisArchiveServiceTest {
+
+    @Test
+    void archiveRoundTrip_shouldPreserveDocumentAndShrinkText() {
+        String analysis = "Steady aerobic block with consistent pacing. ".repeat(200);
+        RunAnalysisDocument document = RunAnalysisDocument.builder()
+                .id(42L)
+                .documentId(UUID.randomUUID())
+                .activityIds("ACT001,ACT002")
+                .queryText("=== Running Activities ===\n\nRun #1:\n  - Distance: 5.0 km\n")
+                .analysisContent(analysis)
+                .summary("Two easy runs")
+                .totalRuns(2)
+                .totalDistanceKm(12.5)
+                .metadata(Map.of("confidenceScore", 80))
+                .createdAt(LocalDateTime.now().minusDays(30))
+                .build();
+
+        RunAnalysisDocumentArchive archive = AnalysisArchiveService.toArchive(document);
+        RunAnalysisDocument restored = AnalysisArchiveService.fromArchive(archive);
+
+        assertThat(archive.getAnalysisContentCompressed().length).isLessThan(analysis.length() / 10);
+        assertThat(restored).isEqualTo(document);
+    }
+
+    @Test
+    void decompress_shouldTreatEmptyPayloadAsEmptyText() {
+        assertThat(AnalysisArchiveService.decompress(new byte[0])).isEmpty();
+        assertThat(AnalysisArchiveService.decompress(AnalysisArchiveService.compress(null))).isEmpty();
+    }
+}
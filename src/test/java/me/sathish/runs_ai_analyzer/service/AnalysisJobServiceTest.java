@@ -0,0 +1,137 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob.Status;
+import me.sathish.runs_ai_analyzer.entity.RunAnalysisDocument;
+import me.sathish.runs_ai_analyzer.repository.AnalysisJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobServiceTest {
+
+    @Mock
+    private AnalysisJobRepository jobRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private RagStorageService ragStorageService;
+
+    private AnalysisJobCompletionNotifier notifier;
+    private AnalysisJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        notifier = new AnalysisJobCompletionNotifier(jdbcTemplate);
+        jobService = new AnalysisJobService(jobRepository, notifier, ragStorageService);
+        ReflectionTestUtils.setField(jobService, "recheckMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void awaitCompletion_shouldReloadOnlyWhenSignalled() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        AnalysisJob running = job(jobId, Status.PROCESSING);
+        AnalysisJob done = job(jobId, Status.DONE);
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(running), Optional.of(done));
+
+        CompletableFuture<AnalysisJob> completion = jobService.awaitCompletion(jobId, Duration.ofMinutes(5));
+        await().atMost(Duration.ofSeconds(2)).until(() -> notifier.waiting() == 1);
+        assertThat(completion).isNotDone();
+
+        notifier.jobCompleted(jobId);
+
+        assertThat(completion.get(2, TimeUnit.SECONDS)).isSameAs(done);
+        verify(jobRepository, times(2)).findById(jobId);
+        // The waiter deregisters in a completion callback that may run after get() returns
+        await().atMost(Duration.ofSeconds(2)).until(() -> notifier.waiting() == 0);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void awaitCompletion_shouldTimeOutWhileJobIsStillRunning() {
+        UUID jobId = UUID.randomUUID();
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job(jobId, Status.PENDING)));
+
+        CompletableFuture<AnalysisJob> completion = jobService.awaitCompletion(jobId, Duration.ofMillis(200));
+
+        assertThatThrownBy(() -> completion.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        await().atMost(Duration.ofSeconds(2)).until(() -> notifier.waiting() == 0);
+    }
+
+    @Test
+    void awaitCompletion_shouldKeepOneCancelHookAcrossRechecksAndDeregisterOnCancel() {
+        UUID jobId = UUID.randomUUID();
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job(jobId, Status.PROCESSING)));
+        ReflectionTestUtils.setField(jobService, "recheckMs", 20L);
+
+        CompletableFuture<AnalysisJob> completion = jobService.awaitCompletion(jobId, Duration.ofMinutes(5));
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() ->
+                verify(jobRepository, atLeast(5)).findById(jobId));
+
+        assertThat(completion.getNumberOfDependents()).isEqualTo(1);
+        completion.cancel(false);
+        await().atMost(Duration.ofSeconds(2)).until(() -> notifier.waiting() == 0);
+    }
+
+    @Test
+    void jobCompleted_shouldNotifyOtherReplicasWhenEnabled() {
+        ReflectionTestUtils.setField(notifier, "postgresNotifyEnabled", true);
+        UUID jobId = UUID.randomUUID();
+
+        notifier.jobCompleted(jobId);
+
+        verify(jdbcTemplate).execute("NOTIFY analysis_job_done, '" + jobId + "'");
+    }
+
+    private AnalysisJob job(UUID id, Status status) {
+        return AnalysisJob.builder()
+                .id(id)
+                .status(status)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void resolveResult_shouldRestoreRawAnalysisFromDocumentOnlyWhenWanted() {
+        UUID documentId = UUID.randomUUID();
+        AnalysisJob job = job(UUID.randomUUID(), Status.DONE);
+        job.setResult(RunAnalysisResponse.builder().documentId(documentId).summary("ok").build());
+
+        assertThat(jobService.resolveResult(job, false).getRawAnalysis()).isNull();
+        verifyNoInteractions(ragStorageService);
+
+        when(ragStorageService.findByDocumentId(documentId)).thenReturn(Optional.of(
+                RunAnalysisDocument.builder().documentId(documentId).analysisContent("full LLM text").build()));
+        assertThat(jobService.resolveResult(job, true).getRawAnalysis()).isEqualTo("full LLM text");
+    }
+}
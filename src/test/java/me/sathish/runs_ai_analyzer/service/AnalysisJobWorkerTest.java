@@ -0,0 +1,168 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob;
+import me.sathish.runs_ai_analyzer.entity.AnalysisJob.Status;
+import me.sathish.runs_ai_analyzer.repository.AnalysisJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobWorkerTest {
+
+    @Mock
+    private AnalysisJobRepository jobRepository;
+
+    @Mock
+    private RunAnalysisService runAnalysisService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private AnalysisJobCompletionNotifier completionNotifier;
+
+    private AnalysisJobWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new AnalysisJobWorker(jobRepository, runAnalysisService, transactionTemplate, completionNotifier,
+                "");
+        ReflectionTestUtils.setField(worker, "workers", 2);
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 600L);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(transactionStatus);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void run_shouldStoreResultOnlyWhileHoldingTheLease() {
+        AnalysisJob job = job(Status.PROCESSING, 1);
+        String owner = (String) ReflectionTestUtils.getField(worker, "owner");
+        job.setLeaseOwner(owner);
+        RunAnalysisResponse response = RunAnalysisResponse.builder()
+                .summary("ok")
+                .documentId(UUID.randomUUID())
+                .rawAnalysis("full LLM text")
+                .build();
+        when(runAnalysisService.analyzeRuns(any(), anyBoolean(), eq(LlmLane.ASYNC_JOB))).thenReturn(response);
+        when(jobRepository.lockById(job.getId())).thenReturn(Optional.of(job));
+
+        worker.run(job);
+
+        assertThat(job.getStatus()).isEqualTo(Status.DONE);
+        assertThat(job.getResult()).isSameAs(response);
+        assertThat(job.getResult().getRawAnalysis()).as("stored by reference to the document").isNull();
+        assertThat(job.getLeaseOwner()).isNull();
+        assertThat(job.getCompletedAt()).isNotNull();
+        verify(completionNotifier).jobCompleted(job.getId());
+    }
+
+    @Test
+    void run_shouldDiscardOutcomeWhenLeaseWasTakenOver() {
+        AnalysisJob job = job(Status.PROCESSING, 1);
+        job.setLeaseOwner("other-host/123");
+        when(runAnalysisService.analyzeRuns(any(), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenThrow(new IllegalStateException("boom"));
+        when(jobRepository.lockById(job.getId())).thenReturn(Optional.of(job));
+
+        worker.run(job);
+
+        assertThat(job.getStatus()).isEqualTo(Status.PROCESSING);
+        assertThat(job.getLeaseOwner()).isEqualTo("other-host/123");
+        assertThat(job.getErrorMessage()).isNull();
+        verifyNoInteractions(completionNotifier);
+    }
+
+    @Test
+    void claimAndDispatch_shouldLeaseClaimedJobs() {
+        AnalysisJob job = job(Status.PENDING, 0);
+        when(jobRepository.lockPendingBatch(2)).thenReturn(List.of(job));
+        when(runAnalysisService.analyzeRuns(any(), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenReturn(RunAnalysisResponse.builder().build());
+        when(jobRepository.lockById(job.getId())).thenReturn(Optional.of(job));
+        worker.start();
+
+        worker.claimAndDispatch();
+
+        verify(jobRepository, timeout(2000)).lockById(job.getId());
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getCompletedAt()).isNotNull();
+    }
+
+    @Test
+    void recoverOrphans_shouldRequeueOrFailExpiredJobs() {
+        AnalysisJob retryable = job(Status.PROCESSING, 1);
+        retryable.setLeaseOwner("dead-host/1");
+        AnalysisJob exhausted = job(Status.PROCESSING, 3);
+        exhausted.setLeaseOwner("dead-host/1");
+        when(jobRepository.lockExpiredBatch(any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(retryable, exhausted));
+
+        worker.recoverOrphans(true);
+
+        assertThat(retryable.getStatus()).isEqualTo(Status.PENDING);
+        assertThat(retryable.getLeaseOwner()).isNull();
+        assertThat(exhausted.getStatus()).isEqualTo(Status.FAILED);
+        assertThat(exhausted.getErrorMessage()).contains("3 interrupted attempts");
+        verify(completionNotifier).jobCompleted(exhausted.getId());
+        verify(completionNotifier, never()).jobCompleted(retryable.getId());
+        verify(jobRepository, never()).lockLeasedByInstanceBatch(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void recoverOrphans_shouldReclaimOnlyThisInstancesLeasesOnStartup() {
+        worker = new AnalysisJobWorker(jobRepository, runAnalysisService, transactionTemplate, completionNotifier,
+                "analyzer-0");
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        AnalysisJob previousRun = job(Status.PROCESSING, 1);
+        previousRun.setLeaseOwner("analyzer-0/old");
+        when(jobRepository.lockExpiredBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of());
+        when(jobRepository.lockLeasedByInstanceBatch(eq("analyzer-0/"), startsWith("analyzer-0/"), anyInt()))
+                .thenReturn(List.of(previousRun));
+
+        worker.recoverOrphans(true);
+        worker.recoverOrphans(false);
+
+        assertThat(previousRun.getStatus()).isEqualTo(Status.PENDING);
+        verify(jobRepository, times(1)).lockLeasedByInstanceBatch(anyString(), anyString(), anyInt());
+    }
+
+    private AnalysisJob job(Status status, int attempts) {
+        return AnalysisJob.builder()
+                .id(UUID.randomUUID())
+                .status(status)
+                .runs(List.of())
+                .attempts(attempts)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class AthleteShardRouterTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AthleteShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new AthleteShardRouter(rabbitTemplate, new GarminEventDecoder(objectMapper));
+        ReflectionTestUtils.setField(router, "shards", 4);
+    }
+
+    @Test
+    void routingKeyFor_shouldSendSameAthleteToSameShardWhateverTheEncoding() throws Exception {
+        String json = "{\"activityId\":\"A1\",\"databaseId\":1001,\"status\":\"SUCCESS\"}";
+        String doubleEncoded = objectMapper.writeValueAsString(json);
+        String otherRun = "{\"activityId\":\"A2\",\"databaseId\":1001,\"status\":\"UPDATED\"}";
+
+        String expected = "shard." + AthleteShardRouter.shardFor("1001", 4);
+        assertThat(router.routingKeyFor(message(json))).isEqualTo(expected);
+        assertThat(router.routingKeyFor(message(doubleEncoded))).isEqualTo(expected);
+        assertThat(router.routingKeyFor(message(otherRun))).isEqualTo(expected);
+    }
+
+    @Test
+    void routingKeyFor_shouldSendUnreadableMessagesToShardZero() {
+        assertThat(router.routingKeyFor(message("not json"))).isEqualTo("shard.0");
+    }
+
+    @Test
+    void shardFor_shouldSpreadAthletesAcrossAllShards() {
+        boolean[] used = new boolean[4];
+        for (int i = 0; i < 100; i++) {
+            int shard = AthleteShardRouter.shardFor(String.valueOf(1000 + i), 4);
+            assertThat(shard).isBetween(0, 3);
+            used[shard] = true;
+        }
+        assertThat(used).containsOnly(true);
+    }
+
+    private Message message(String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+    }
+}
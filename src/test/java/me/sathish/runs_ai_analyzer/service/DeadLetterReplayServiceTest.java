@@ -0,0 +1,142 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import me.sathish.runs_ai_analyzer.config.RabbitMQListenerConfiguration;
+import me.sathish.runs_ai_analyzer.dto.DeadLetterReplayStatus;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayServiceTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private AnalysisProcessingLogRepository processingLogRepository;
+
+    @Mock
+    private PendingAnalysisQueue pendingQueue;
+
+    @Mock
+    private Channel channel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DeadLetterReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        replayService = new DeadLetterReplayService(rabbitTemplate, processingLogRepository, pendingQueue,
+                new GarminEventDecoder(objectMapper));
+        ReflectionTestUtils.setField(replayService, "confirmTimeoutMs", 1000L);
+    }
+
+    @Test
+    void replayBatch_shouldRequeueOnlyUnfinishedEventsAndAckAfterSending() throws Exception {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(false);
+        when(channel.basicGet(RabbitMQListenerConfiguration.DLQ_QUEUE, false)).thenReturn(
+                delivery(1, event("done", 1L, "SUCCESS")),
+                delivery(2, event("retry", 2L, "SUCCESS")),
+                delivery(3, event("ignored", 3L, "FAILED")),
+                delivery(4, "not json"),
+                null);
+        when(processingLogRepository.findByActivityIdIn(anyList())).thenReturn(List.of(
+                processingLog("done", 1L, ProcessingStatus.COMPLETED),
+                processingLog("retry", 2L, ProcessingStatus.FAILED)));
+
+        DeadLetterReplayService.Replay replay = new DeadLetterReplayService.Replay(UUID.randomUUID(), 10, 5);
+        DeadLetterReplayService.BatchResult result = replayService.replayBatch(channel, replay, 10);
+
+        assertThat(result.received()).isEqualTo(4);
+        assertThat(result.requeued()).isEqualTo(1);
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQListenerConfiguration.ANALYZER_QUEUE),
+                argThat((Message m) -> new String(m.getBody(), StandardCharsets.UTF_8).contains("retry")),
+                any(CorrelationData.class));
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQListenerConfiguration.DLQ_QUEUE),
+                any(Message.class), any(CorrelationData.class));
+        verify(channel).basicAck(4, true);
+
+        DeadLetterReplayStatus status = replay.snapshot();
+        assertThat(status.getExamined()).isEqualTo(4);
+        assertThat(status.getSkippedCompleted()).isEqualTo(1);
+        assertThat(status.getSkippedNotProcessable()).isEqualTo(1);
+        assertThat(status.getKeptUnreadable()).isEqualTo(1);
+    }
+
+    @Test
+    void replayBatch_shouldNackWholeBatchBackToDlqWhenRepublishFails() throws Exception {
+        when(channel.basicGet(RabbitMQListenerConfiguration.DLQ_QUEUE, false)).thenReturn(
+                delivery(7, event("retry", 2L, "SUCCESS")), null);
+        when(processingLogRepository.findByActivityIdIn(anyList())).thenReturn(List.of());
+        doThrow(new IllegalStateException("broker down")).when(rabbitTemplate)
+                .send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        DeadLetterReplayService.Replay replay = new DeadLetterReplayService.Replay(UUID.randomUUID(), 10, 5);
+
+        assertThatThrownBy(() -> replayService.replayBatch(channel, replay, 10))
+                .hasMessageContaining("DLQ replay batch failed");
+        verify(channel).basicNack(7, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertThat(replay.snapshot().getExamined()).isZero();
+    }
+
+    private GetResponse delivery(long tag, String body) {
+        return new GetResponse(new Envelope(tag, false, "", RabbitMQListenerConfiguration.DLQ_QUEUE),
+                new AMQP.BasicProperties.Builder().contentType("application/json").build(),
+                body.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    private String event(String activityId, Long databaseId, String status) throws Exception {
+        GarminRunEvent event = new GarminRunEvent();
+        event.setEventType("GARMIN_CSV_RUN");
+        event.setActivityId(activityId);
+        event.setDatabaseId(databaseId);
+        event.setStatus(status);
+        // Publishers send the event JSON as a JSON string
+        return objectMapper.writeValueAsString(objectMapper.writeValueAsString(event));
+    }
+
+    private AnalysisProcessingLog processingLog(String activityId, Long databaseId, ProcessingStatus status) {
+        return AnalysisProcessingLog.builder()
+                .activityId(activityId)
+                .databaseId(databaseId)
+                .eventType("GARMIN_CSV_RUN")
+                .processingStatus(status)
+                .retryCount(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
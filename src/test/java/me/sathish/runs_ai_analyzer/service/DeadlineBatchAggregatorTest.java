@@ -0,0 +1,54 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DeadlineBatchAggregatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> flushed = new CopyOnWriteArrayList<>();
+    private DeadlineBatchAggregator aggregator;
+
+    @AfterEach
+    void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Test
+    void add_shouldFlushAsSoonAsBucketIsFull() {
+        aggregator = new DeadlineBatchAggregator(3, Duration.ofHours(1), 1, flushed::add, meterRegistry);
+
+        aggregator.add("athlete-1", 2);
+        aggregator.add("athlete-2", 1);
+        aggregator.add("athlete-1", 1);
+
+        await().atMost(5, SECONDS).until(() -> flushed.contains("athlete-1"));
+        assertThat(flushed).containsExactly("athlete-1");
+        assertThat(aggregator.openBuckets()).isEqualTo(1);
+        assertThat(meterRegistry.get(DeadlineBatchAggregator.FLUSH_LATENCY_METRIC)
+                .tag("trigger", "size").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void add_shouldFlushPartialBucketWhenWindowExpires() {
+        aggregator = new DeadlineBatchAggregator(10, Duration.ofMillis(100), 1, flushed::add, meterRegistry);
+
+        aggregator.add("athlete-1", 1);
+        aggregator.add("athlete-1", 1);
+
+        await().atMost(5, SECONDS).until(() -> flushed.contains("athlete-1"));
+        assertThat(flushed).containsExactly("athlete-1");
+        assertThat(aggregator.openBuckets()).isZero();
+        assertThat(meterRegistry.get(DeadlineBatchAggregator.FLUSH_LATENCY_METRIC)
+                .tag("trigger", "deadline").timer().totalTime(SECONDS)).isGreaterThanOrEqualTo(0.1);
+    }
+}
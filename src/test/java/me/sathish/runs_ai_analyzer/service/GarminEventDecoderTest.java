@@ -0,0 +1,118 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class GarminEventDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final GarminEventDecoder decoder = new GarminEventDecoder(objectMapper);
+
+    @Test
+    void decodeProcessable_shouldBindSuccessEventsAndUnwrapStringBodies() throws Exception {
+        byte[] plain = objectMapper.writeValueAsBytes(event("SUCCESS"));
+        byte[] doubleEncoded = objectMapper.writeValueAsBytes(new String(plain, StandardCharsets.UTF_8));
+
+        assertThat(decoder.decodeProcessable(plain).getActivityId()).isEqualTo("20384512345");
+        GarminRunEvent unwrapped = decoder.decodeProcessable(doubleEncoded);
+        assertThat(unwrapped.getDatabaseId()).isEqualTo(42L);
+        assertThat(unwrapped.getStatus()).isEqualTo("SUCCESS");
+        assertThat(decoder.readDatabaseId(doubleEncoded)).isEqualTo(42L);
+    }
+
+    @Test
+    void decodeProcessable_shouldRejectOtherStatusesAndIgnoreNestedStatusFields() throws Exception {
+        assertThat(decoder.decodeProcessable(objectMapper.writeValueAsBytes(event("FAILED")))).isNull();
+        assertThat(decoder.decodeProcessable(
+                "{\"meta\":{\"status\":\"SUCCESS\"},\"activityId\":\"1\"}".getBytes(StandardCharsets.UTF_8))).isNull();
+        assertThatThrownBy(() -> decoder.decodeProcessable("[1,2]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void decodeProcessable_shouldMatchStringPayloadPathForDoubleEncodedBodies() throws Exception {
+        byte[] success = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(event("SUCCESS")));
+        byte[] failed = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(event("FAILED")));
+
+        assertThat(decoder.decodeProcessable(success)).usingRecursiveComparison().isEqualTo(legacyDecode(success));
+        assertThat(legacyDecode(failed)).isNull();
+        assertThat(decoder.decodeProcessable(failed)).isNull();
+    }
+
+    /**
+     * Allocation per message of the old String path versus the byte[] decoder, for the
+     * double-encoded bodies runs-app publishes, plus plain bodies. Rejected events stop
+     * at {@code status}; accepted ones are bound from the same single tokenization.
+     * Tagged {@code load}: run with {@code -Pload-tests -Dtest=GarminEventDecoderTest}.
+     */
+    @Test
+    @Tag("load")
+    void decodeProcessable_shouldAllocateLessThanStringPayloadPath() throws Exception {
+        byte[] success = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(event("SUCCESS")));
+        byte[] failed = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(event("FAILED")));
+        byte[] plainSuccess = objectMapper.writeValueAsBytes(event("SUCCESS"));
+
+        long legacySuccess = bytesPerMessage(() -> legacyDecode(success));
+        long legacyFailed = bytesPerMessage(() -> legacyDecode(failed));
+        long leanSuccess = bytesPerMessage(() -> decoder.decodeProcessable(success));
+        long leanFailed = bytesPerMessage(() -> decoder.decodeProcessable(failed));
+        long leanPlainSuccess = bytesPerMessage(() -> decoder.decodeProcessable(plainSuccess));
+
+        log.info("Garmin event decode, bytes/message: legacy success={} failed={}, lean success={} failed={} plain={}",
+                legacySuccess, legacyFailed, leanSuccess, leanFailed, leanPlainSuccess);
+        assertThat(leanFailed).isLessThan(legacyFailed);
+        assertThat(leanSuccess).isLessThan(legacySuccess);
+    }
+
+    // What the String @Payload listener did: converter decodes the body to a String, then it is parsed again
+    private GarminRunEvent legacyDecode(byte[] body) throws IOException {
+        String payload = objectMapper.readValue(body, String.class);
+        GarminRunEvent event = objectMapper.readValue(payload, GarminRunEvent.class);
+        return GarminEventDecoder.isProcessable(event.getStatus()) ? event : null;
+    }
+
+    private static long bytesPerMessage(Decode decode) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int iterations = 20_000;
+        for (int i = 0; i < iterations; i++) {
+            decode.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            decode.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / iterations;
+    }
+
+    private GarminRunEvent event(String status) {
+        GarminRunEvent event = new GarminRunEvent();
+        event.setEventType("GARMIN_CSV_RUN");
+        event.setActivityId("20384512345");
+        event.setActivityName("Morning Run");
+        event.setDistance("10.02");
+        event.setElapsedTime("00:52:11");
+        event.setDatabaseId(42L);
+        event.setStatus(status);
+        event.setFileName("activities.csv");
+        event.setActivityType("running");
+        event.setMaxHeartRate("171");
+        event.setCalories("712");
+        return event;
+    }
+
+    @FunctionalInterface
+    private interface Decode {
+        Object run() throws Exception;
+    }
+}
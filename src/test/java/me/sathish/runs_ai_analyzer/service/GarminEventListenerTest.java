@@ -0,0 +1,129 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GarminEventListenerTest {
+
+    @Mock
+    private AnalysisProcessingLogRepository processingLogRepository;
+
+    @Mock
+    private RunAnalysisBatchService batchService;
+
+    @Mock
+    private RunDataCache runDataCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GarminEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new GarminEventListener(processingLogRepository, batchService, new GarminEventDecoder(objectMapper),
+                runDataCache);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleGarminRunMessages_shouldDeduplicateAndInsertOnceForWholeBatch() throws Exception {
+        when(processingLogRepository.findByActivityIdIn(anyList())).thenReturn(List.of(
+                existingLog("done", 2L, ProcessingStatus.COMPLETED),
+                existingLog("retry", 3L, ProcessingStatus.FAILED)));
+        when(processingLogRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        listener.handleGarminRunMessages(List.of(
+                message("new", 1L, "SUCCESS"),
+                message("new", 1L, "UPDATED"),
+                message("done", 2L, "SUCCESS"),
+                message("retry", 3L, "SUCCESS"),
+                message("skipped", 4L, "FAILED"),
+                new Message("not json".getBytes(StandardCharsets.UTF_8))));
+
+        verify(processingLogRepository, times(1)).findByActivityIdIn(anyList());
+        verify(runDataCache).invalidate(1L, "new");
+        verifyNoMoreInteractions(runDataCache);
+
+        ArgumentCaptor<List<AnalysisProcessingLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(processingLogRepository).insertAll(inserted.capture());
+        assertThat(inserted.getValue())
+                .extracting(AnalysisProcessingLog::getActivityId)
+                .containsExactly("new");
+        assertThat(inserted.getValue().get(0).getProcessingStatus()).isEqualTo(ProcessingStatus.PENDING);
+
+        ArgumentCaptor<List<GarminRunEvent>> queued = ArgumentCaptor.forClass(List.class);
+        verify(batchService).queueAllForAnalysis(queued.capture());
+        assertThat(queued.getValue())
+                .extracting(GarminRunEvent::getActivityId)
+                .containsExactly("new", "retry");
+        assertThat(queued.getValue().get(0).getStatus()).isEqualTo("UPDATED");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleGarminRunMessages_shouldNotQueueEventsWhoseLogWasClaimedByAnotherConsumer() throws Exception {
+        when(processingLogRepository.findByActivityIdIn(anyList())).thenReturn(List.of(
+                existingLog("retry", 3L, ProcessingStatus.FAILED)));
+        when(processingLogRepository.insertAll(anyList())).thenAnswer(invocation ->
+                ((List<AnalysisProcessingLog>) invocation.getArgument(0)).stream()
+                        .filter(log -> !"lost".equals(log.getActivityId()))
+                        .toList());
+
+        listener.handleGarminRunMessages(List.of(
+                message("lost", 1L, "SUCCESS"),
+                message("won", 2L, "SUCCESS"),
+                message("retry", 3L, "SUCCESS")));
+
+        ArgumentCaptor<List<GarminRunEvent>> queued = ArgumentCaptor.forClass(List.class);
+        verify(batchService).queueAllForAnalysis(queued.capture());
+        assertThat(queued.getValue())
+                .extracting(GarminRunEvent::getActivityId)
+                .containsExactly("won", "retry");
+    }
+
+    @Test
+    void handleGarminRunMessages_shouldSkipRepositoryWhenNothingIsProcessable() throws Exception {
+        listener.handleGarminRunMessages(List.of(message("skipped", 4L, "FAILED"), message("no-db", null, "SUCCESS")));
+
+        verifyNoInteractions(processingLogRepository, batchService);
+    }
+
+    private Message message(String activityId, Long databaseId, String status) throws Exception {
+        GarminRunEvent event = new GarminRunEvent();
+        event.setEventType("GARMIN_CSV_RUN");
+        event.setActivityId(activityId);
+        event.setDatabaseId(databaseId);
+        event.setStatus(status);
+        return new Message(objectMapper.writeValueAsBytes(event));
+    }
+
+    private AnalysisProcessingLog existingLog(String activityId, Long databaseId, ProcessingStatus status) {
+        return AnalysisProcessingLog.builder()
+                .activityId(activityId)
+                .databaseId(databaseId)
+                .eventType("GARMIN_CSV_RUN")
+                .processingStatus(status)
+                .retryCount(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
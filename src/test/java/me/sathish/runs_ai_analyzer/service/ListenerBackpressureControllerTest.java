@@ -0,0 +1,101 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.sathish.runs_ai_analyzer.config.ListenerBackpressureProperties;
+import me.sathish.runs_ai_analyzer.service.ListenerBackpressureController.Action;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ListenerBackpressureControllerTest {
+
+    @Mock
+    private RabbitListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private PendingAnalysisQueue pendingQueue;
+
+    @Mock
+    private LlmAdmissionScheduler admissionScheduler;
+
+    @Mock
+    private SimpleMessageListenerContainer container;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ListenerBackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new ListenerBackpressureController(listenerRegistry, pendingQueue, admissionScheduler,
+                new ListenerBackpressureProperties(), meterRegistry);
+        ReflectionTestUtils.setField(controller, "basePrefetch", 10);
+        ReflectionTestUtils.setField(controller, "baseConcurrency", 2);
+        ReflectionTestUtils.setField(controller, "maxConcurrency", 5);
+        ReflectionTestUtils.setField(controller, "batchSize", 50);
+        controller.init();
+
+        when(listenerRegistry.getListenerContainer(GarminEventListener.GARMIN_EVENTS_LISTENER_ID)).thenReturn(container);
+        when(container.getListenerId()).thenReturn(GarminEventListener.GARMIN_EVENTS_LISTENER_ID);
+        when(admissionScheduler.longestWait()).thenReturn(Duration.ZERO);
+    }
+
+    @Test
+    void decide_shouldPauseAtHighWaterAndResumeOnlyBelowLowWater() {
+        assertThat(controller.decide(5000, Duration.ZERO, 0, false)).isEqualTo(Action.PAUSE);
+        assertThat(controller.decide(2000, Duration.ZERO, 0, true)).isEqualTo(Action.HOLD);
+        assertThat(controller.decide(400, Duration.ofMinutes(1), 0, true)).isEqualTo(Action.HOLD);
+        assertThat(controller.decide(400, Duration.ZERO, 0, true)).isEqualTo(Action.RESUME);
+        assertThat(controller.decide(2000, Duration.ofMinutes(1), 0, false)).isEqualTo(Action.SCALE_DOWN);
+        assertThat(controller.decide(2000, Duration.ZERO, 0.5, false)).isEqualTo(Action.SCALE_DOWN);
+        assertThat(controller.decide(2000, Duration.ZERO, 0, false)).isEqualTo(Action.HOLD);
+        assertThat(controller.decide(100, Duration.ZERO, 0, false)).isEqualTo(Action.SCALE_UP);
+    }
+
+    @Test
+    void adjust_shouldStepDownWhenBatchesFailAndReorderConcurrencyCalls() {
+        when(pendingQueue.countPending()).thenReturn(1000L);
+        meterRegistry.counter(RunAnalysisBatchService.BATCH_CALLS_METRIC, "outcome", "failure").increment(2);
+        meterRegistry.counter(RunAnalysisBatchService.BATCH_CALLS_METRIC, "outcome", "success").increment(2);
+
+        controller.adjust();
+
+        InOrder inOrder = inOrder(container);
+        inOrder.verify(container).setPrefetchCount(50);
+        inOrder.verify(container).setConcurrentConsumers(2);
+        inOrder.verify(container).setMaxConcurrentConsumers(4);
+        assertThat(meterRegistry.get("listener.backpressure.consumer.limit").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void adjust_shouldStopListenersAtHighWaterAndRestartThemWhenDrained() {
+        when(container.isRunning()).thenReturn(true);
+        when(pendingQueue.countPending()).thenReturn(6000L, 3000L, 100L);
+
+        controller.adjust();
+        verify(container).stop();
+        assertThat(meterRegistry.get("listener.backpressure.paused").gauge().value()).isEqualTo(1);
+
+        controller.adjust();
+        verify(container, never()).start();
+
+        controller.adjust();
+        verify(container).start();
+        verify(container).setMaxConcurrentConsumers(1);
+        assertThat(meterRegistry.get("listener.backpressure.paused").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,127 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.sathish.runs_ai_analyzer.config.LlmAdmissionProperties;
+import me.sathish.runs_ai_analyzer.config.LlmAdmissionProperties.ProviderLimits;
+import me.sathish.runs_ai_analyzer.exception.AiAnalysisException;
+import me.sathish.runs_ai_analyzer.service.LlmAdmissionScheduler.Provider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class LlmAdmissionSchedulerTest {
+
+    private LlmAdmissionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LlmAdmissionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LlmAdmissionProperties();
+        properties.setAnthropic(new ProviderLimits(1, 0, 0));
+        properties.setMaxWaitSeconds(5);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new LlmAdmissionScheduler(properties, meterRegistry);
+    }
+
+    @Test
+    void execute_shouldAdmitWaitingCallsByLaneNotArrival() throws Exception {
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        List<LlmLane> admitted = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            executor.submit(() -> scheduler.execute(Provider.ANTHROPIC, LlmLane.BATCH, "blocker", () -> {
+                blockerStarted.countDown();
+                awaitLatch(releaseBlocker);
+                return null;
+            }));
+            assertThat(blockerStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            executor.submit(() -> recordLane(LlmLane.RECONCILIATION, admitted));
+            await().until(() -> scheduler.waiting(Provider.ANTHROPIC) == 1);
+            executor.submit(() -> recordLane(LlmLane.INTERACTIVE, admitted));
+            await().until(() -> scheduler.waiting(Provider.ANTHROPIC) == 2);
+
+            releaseBlocker.countDown();
+            await().until(() -> admitted.size() == 2);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(admitted).containsExactly(LlmLane.INTERACTIVE, LlmLane.RECONCILIATION);
+        assertThat(meterRegistry.find("llm.admission.queue.wait")
+                .tags("provider", "ANTHROPIC", "lane", "RECONCILIATION").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_shouldPauseProviderForRetryAfterOn429() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("retry-after", "7");
+        HttpClientErrorException tooManyRequests = HttpClientErrorException.create(
+                HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, new byte[0], StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> scheduler.execute(Provider.ANTHROPIC, LlmLane.BATCH, "prompt", () -> {
+            throw new RuntimeException("wrapped", tooManyRequests);
+        })).isInstanceOf(RuntimeException.class);
+
+        assertThat(meterRegistry.counter("llm.admission.rate.limited", "provider", "ANTHROPIC").count()).isEqualTo(1);
+
+        properties.setMaxWaitSeconds(1);
+        assertThatThrownBy(() -> scheduler.execute(Provider.ANTHROPIC, LlmLane.INTERACTIVE, "prompt", () -> null))
+                .isInstanceOf(AiAnalysisException.class);
+        // Other providers are unaffected
+        assertThat(scheduler.execute(Provider.OLLAMA, LlmLane.INTERACTIVE, "prompt", () -> null)).isNull();
+    }
+
+    @Test
+    void rateLimitBackoff_shouldFallBackToDefaultWithoutRetryAfter() {
+        properties.setDefaultRetryAfterSeconds(12);
+
+        assertThat(scheduler.rateLimitBackoff(new RuntimeException("HTTP 429 - rate_limit_error")))
+                .isEqualTo(Duration.ofSeconds(12));
+        assertThat(scheduler.rateLimitBackoff(new RuntimeException("connection refused"))).isNull();
+    }
+
+    @Test
+    void tokenBucket_shouldWaitForRefillOnceBudgetIsSpent() {
+        LlmAdmissionScheduler.TokenBucket bucket = new LlmAdmissionScheduler.TokenBucket(60);
+        long now = System.nanoTime();
+
+        bucket.take(60, now);
+
+        assertThat(bucket.nanosUntil(1, now)).isBetween(TimeUnit.MILLISECONDS.toNanos(900), TimeUnit.SECONDS.toNanos(1));
+        assertThat(new LlmAdmissionScheduler.TokenBucket(0).nanosUntil(1_000_000, now)).isZero();
+    }
+
+    private ChatResponse recordLane(LlmLane lane, List<LlmLane> admitted) {
+        return scheduler.execute(Provider.ANTHROPIC, lane, "prompt", () -> {
+            admitted.add(lane);
+            return null;
+        });
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
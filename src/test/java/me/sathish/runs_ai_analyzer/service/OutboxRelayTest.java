@@ -0,0 +1,125 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent;
+import me.sathish.runs_ai_analyzer.entity.OutboxEvent.WireFormat;
+import me.sathish.runs_ai_analyzer.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, rabbitTemplate, transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "confirmTimeoutMs", 200L);
+        ReflectionTestUtils.setField(relay, "maxBackoffSeconds", 300L);
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+    }
+
+    @Test
+    void relayBatch_shouldSendRawJsonBytesAndMarkAckedRowsSent() {
+        OutboxEvent event = event(1L, WireFormat.RAW_JSON, "{\"eventType\":\"JOURNAL_ENTRY_CREATED\"}");
+        when(outboxRepository.lockDueBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(event));
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        relay.relayBatch();
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("exchange"), eq("key"), message.capture(), any(CorrelationData.class));
+        assertThat(new String(message.getValue().getBody(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"eventType\":\"JOURNAL_ENTRY_CREATED\"}");
+        assertThat(message.getValue().getMessageProperties().getHeaders()).doesNotContainKey("__TypeId__");
+        assertThat(message.getValue().getMessageProperties().getMessageId()).isEqualTo("outbox-1");
+        assertThat(event.getSentAt()).isNotNull();
+    }
+
+    @Test
+    void relayBatch_shouldKeepNackedRowUnsentAndBackOff() {
+        OutboxEvent event = event(2L, WireFormat.CONVERTED, "{\"eventType\":\"RUN_ANALYSIS_COMPLETED\"}");
+        when(outboxRepository.lockDueBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(event));
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(4).getFuture().complete(new CorrelationData.Confirm(false, "no route"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+
+        boolean more = relay.relayBatch();
+
+        assertThat(more).isFalse();
+        assertThat(event.getSentAt()).isNull();
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLastError()).contains("no route");
+        assertThat(event.getNextAttemptAt()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void relayBatch_shouldKeepRowWhenBrokerIsUnreachable() {
+        OutboxEvent event = event(3L, WireFormat.RAW_JSON, "{}");
+        when(outboxRepository.lockDueBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(event));
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        relay.relayBatch();
+
+        assertThat(event.getSentAt()).isNull();
+        assertThat(event.getAttempts()).isEqualTo(1);
+    }
+
+    private OutboxEvent event(Long id, WireFormat format, String payload) {
+        return OutboxEvent.builder()
+                .id(id)
+                .exchange("exchange")
+                .routingKey("key")
+                .wireFormat(format)
+                .payload(payload)
+                .attempts(0)
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
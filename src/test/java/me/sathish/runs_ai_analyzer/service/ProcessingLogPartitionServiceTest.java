@@ -0,0 +1,57 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessingLogPartitionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ProcessingLogPartitionService partitionService;
+
+    @Test
+    void dropPartitionsBefore_shouldDropOnlyFullyExpiredMonthlyPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("analysis_processing_log")))
+                .thenReturn(List.of(
+                        "analysis_processing_log_default",
+                        "analysis_processing_log_p2026_08",
+                        "analysis_processing_log_p2026_09",
+                        "analysis_processing_log_p2026_10"));
+
+        List<String> dropped = partitionService.dropPartitionsBefore(LocalDateTime.of(2026, 10, 4, 0, 0));
+
+        assertThat(dropped).containsExactly("analysis_processing_log_p2026_08", "analysis_processing_log_p2026_09");
+        verify(jdbcTemplate).execute("ALTER TABLE analysis_processing_log DETACH PARTITION analysis_processing_log_p2026_08");
+        verify(jdbcTemplate).execute("DROP TABLE analysis_processing_log_p2026_08");
+        verify(jdbcTemplate, never()).execute("DROP TABLE analysis_processing_log_p2026_10");
+        verify(jdbcTemplate, never()).execute("DROP TABLE analysis_processing_log_default");
+        verify(jdbcTemplate).update(contains("DELETE FROM analysis_processing_log_key"), any(Timestamp.class));
+    }
+
+    @Test
+    void parseMonth_shouldIgnoreNonMonthlyPartitions() {
+        assertThat(ProcessingLogPartitionService.parseMonth("analysis_processing_log_p2026_01"))
+                .isEqualTo(YearMonth.of(2026, 1));
+        assertThat(ProcessingLogPartitionService.parseMonth("analysis_processing_log_default")).isNull();
+        assertThat(ProcessingLogPartitionService.parseMonth("analysis_processing_log_pbogus")).isNull();
+    }
+}
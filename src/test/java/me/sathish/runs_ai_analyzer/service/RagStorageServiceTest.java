@@ -1,6 +1,5 @@
 package me.sathish.runs_ai_analyzer.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import me.sathish.runs_ai_analyzer.config.RagCacheProperties;
 import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
 import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
@@ -15,6 +14,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 
@@ -27,7 +27,11 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,9 +43,15 @@ class RagStorageServiceTest {
     @Mock
     private VectorStore vectorStore;
 
+    @Mock
+    private EmbeddingModel embeddingModel;
+
     @Mock
     private RagCacheProperties cacheProperties;
 
+    @Mock
+    private AnalysisArchiveService archiveService;
+
     private RagStorageServiceImpl ragStorageService;
 
     @Captor
@@ -55,7 +65,7 @@ class RagStorageServiceTest {
 
     @BeforeEach
     void setUp() {
-        ragStorageService = new RagStorageServiceImpl(documentRepository, vectorStore, cacheProperties, new ObjectMapper());
+        ragStorageService = new RagStorageServiceImpl(documentRepository, vectorStore, embeddingModel, cacheProperties, archiveService);
         
         testRuns = List.of(
                 GarminRunDataDTO.builder()
@@ -126,10 +136,13 @@ class RagStorageServiceTest {
         assertThat(capturedDoc.getActivityIds()).isEqualTo("ACT001,ACT002");
         assertThat(capturedDoc.getTotalRuns()).isEqualTo(2);
         assertThat(capturedDoc.getTotalDistanceKm()).isEqualTo(12.5);
-        assertThat(capturedDoc.getMetadata()).containsEntry("structuredSummary", "Analysis of 2 runs covering 12.5 km");
-        assertThat(capturedDoc.getMetadata()).containsEntry("confidenceScore", 84);
-        assertThat(capturedDoc.getMetadata()).containsKey("insights");
-        assertThat(capturedDoc.getMetadata()).containsKey("recommendations");
+        assertThat(capturedDoc.getStructuredAnalysis().getSummary()).isEqualTo("Analysis of 2 runs covering 12.5 km");
+        assertThat(capturedDoc.getStructuredAnalysis().getConfidenceScore()).isEqualTo(84);
+        assertThat(capturedDoc.getStructuredAnalysis().getInsights()).isEmpty();
+        assertThat(capturedDoc.getStructuredAnalysis().getRecommendations()).containsExactly("Recover well", "Keep easy runs easy");
+        assertThat(capturedDoc.getPerformanceMetrics()).isEqualTo(testResponse.getMetrics());
+        assertThat(capturedDoc.getMetadata()).containsEntry("runCount", 2);
+        assertThat(capturedDoc.getMetadata()).containsEntry("dateRange", "2024-01-15 to 2024-01-17");
 
         verify(vectorStore).add(vectorDocumentCaptor.capture());
         List<Document> vectorDocs = vectorDocumentCaptor.getValue();
@@ -201,6 +214,24 @@ class RagStorageServiceTest {
         assertThat(result.get().getDocumentId()).isEqualTo(documentId);
     }
 
+    @Test
+    void findByDocumentId_shouldFallBackToArchive() {
+        UUID documentId = UUID.randomUUID();
+        RunAnalysisDocument archived = RunAnalysisDocument.builder()
+                .id(1L)
+                .documentId(documentId)
+                .analysisContent("Archived analysis")
+                .build();
+
+        when(documentRepository.findByDocumentId(documentId)).thenReturn(Optional.empty());
+        when(archiveService.findByDocumentId(documentId)).thenReturn(Optional.of(archived));
+
+        Optional<RunAnalysisDocument> result = ragStorageService.findByDocumentId(documentId);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getAnalysisContent()).isEqualTo("Archived analysis");
+    }
+
     @Test
     void getRecentAnalyses_shouldReturnTop10() {
         List<RunAnalysisDocument> recentDocs = List.of(
@@ -230,6 +261,23 @@ class RagStorageServiceTest {
         verify(documentRepository).findByActivityIdContaining("ACT001");
     }
 
+    @Test
+    void findAnalysesByActivityId_shouldMergeArchivedDocumentsNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        RunAnalysisDocument hotOld = RunAnalysisDocument.builder().id(1L).documentId(UUID.randomUUID())
+                .activityIds("ACT001").createdAt(now.minusDays(3)).build();
+        RunAnalysisDocument hotNew = RunAnalysisDocument.builder().id(2L).documentId(UUID.randomUUID())
+                .activityIds("ACT001").createdAt(now).build();
+        RunAnalysisDocument archived = RunAnalysisDocument.builder().id(3L).documentId(UUID.randomUUID())
+                .activityIds("ACT001").createdAt(now.minusDays(1)).build();
+        when(documentRepository.findByActivityIdContaining("ACT001")).thenReturn(List.of(hotOld, hotNew));
+        when(archiveService.findByActivityId("ACT001")).thenReturn(List.of(archived));
+
+        List<RunAnalysisDocument> results = ragStorageService.findAnalysesByActivityId("ACT001");
+
+        assertThat(results).containsExactly(hotNew, archived, hotOld);
+    }
+
     @Test
     void findAnalysesByMinimumDistance_shouldReturnMatchingDocuments() {
         List<RunAnalysisDocument> matchingDocs = List.of(
@@ -260,9 +308,7 @@ class RagStorageServiceTest {
         when(cacheProperties.isEnabled()).thenReturn(true);
         when(cacheProperties.getSimilarityThreshold()).thenReturn(0.85);
         when(cacheProperties.getTtlDays()).thenReturn(7);
-
-        Document vectorDoc = new Document("doc-id", "content", Map.of("documentId", documentId.toString()));
-        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(vectorDoc));
+        when(embeddingModel.embed("test query")).thenReturn(new float[]{0.25f, -0.5f, 1.0f});
 
         RunAnalysisDocument cachedDoc = RunAnalysisDocument.builder()
                 .id(1L)
@@ -270,42 +316,25 @@ class RagStorageServiceTest {
                 .summary("Cached summary")
                 .createdAt(LocalDateTime.now().minusDays(1))
                 .build();
-        when(documentRepository.findByDocumentId(documentId)).thenReturn(Optional.of(cachedDoc));
+        when(documentRepository.findMostSimilarFresh(eq("[0.25,-0.5,1.0]"), doubleThat(d -> Math.abs(d - 0.15) < 1e-9), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(cachedDoc));
 
         Optional<RunAnalysisDocument> result = ragStorageService.findCachedAnalysis("test query");
 
         assertThat(result).isPresent();
         assertThat(result.get().getDocumentId()).isEqualTo(documentId);
+        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+        verify(documentRepository, never()).findByDocumentId(any());
     }
 
     @Test
     void findCachedAnalysis_shouldReturnEmptyWhenNoSimilarDocuments() {
-        when(cacheProperties.isEnabled()).thenReturn(true);
-        when(cacheProperties.getSimilarityThreshold()).thenReturn(0.85);
-        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
-
-        Optional<RunAnalysisDocument> result = ragStorageService.findCachedAnalysis("test query");
-
-        assertThat(result).isEmpty();
-    }
-
-    @Test
-    void findCachedAnalysis_shouldReturnEmptyWhenDocumentIsStale() {
-        UUID documentId = UUID.randomUUID();
         when(cacheProperties.isEnabled()).thenReturn(true);
         when(cacheProperties.getSimilarityThreshold()).thenReturn(0.85);
         when(cacheProperties.getTtlDays()).thenReturn(7);
-
-        Document vectorDoc = new Document("doc-id", "content", Map.of("documentId", documentId.toString()));
-        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(vectorDoc));
-
-        RunAnalysisDocument staleDoc = RunAnalysisDocument.builder()
-                .id(1L)
-                .documentId(documentId)
-                .summary("Stale summary")
-                .createdAt(LocalDateTime.now().minusDays(10))
-                .build();
-        when(documentRepository.findByDocumentId(documentId)).thenReturn(Optional.of(staleDoc));
+        when(embeddingModel.embed(anyString())).thenReturn(new float[]{0.1f});
+        when(documentRepository.findMostSimilarFresh(anyString(), anyDouble(), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
 
         Optional<RunAnalysisDocument> result = ragStorageService.findCachedAnalysis("test query");
 
@@ -313,27 +342,31 @@ class RagStorageServiceTest {
     }
 
     @Test
-    void findCachedAnalysis_shouldReturnEmptyOnVectorStoreError() {
+    void findCachedAnalysis_shouldOnlyConsiderDocumentsWithinTtl() {
         when(cacheProperties.isEnabled()).thenReturn(true);
         when(cacheProperties.getSimilarityThreshold()).thenReturn(0.85);
-        when(vectorStore.similaritySearch(any(SearchRequest.class)))
-                .thenThrow(new RuntimeException("Vector store error"));
+        when(cacheProperties.getTtlDays()).thenReturn(7);
+        when(embeddingModel.embed(anyString())).thenReturn(new float[]{0.1f});
+        when(documentRepository.findMostSimilarFresh(anyString(), anyDouble(), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
 
-        Optional<RunAnalysisDocument> result = ragStorageService.findCachedAnalysis("test query");
+        ragStorageService.findCachedAnalysis("test query");
 
-        assertThat(result).isEmpty();
+        ArgumentCaptor<LocalDateTime> createdAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(documentRepository).findMostSimilarFresh(anyString(), anyDouble(), createdAfter.capture());
+        assertThat(createdAfter.getValue())
+                .isBetween(LocalDateTime.now().minusDays(7).minusMinutes(1), LocalDateTime.now().minusDays(7));
     }
 
     @Test
-    void findCachedAnalysis_shouldReturnEmptyWhenDocumentIdMissingInMetadata() {
+    void findCachedAnalysis_shouldReturnEmptyOnEmbeddingError() {
         when(cacheProperties.isEnabled()).thenReturn(true);
         when(cacheProperties.getSimilarityThreshold()).thenReturn(0.85);
-
-        Document vectorDoc = new Document("doc-id", "content", Map.of("otherKey", "value"));
-        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(vectorDoc));
+        when(embeddingModel.embed(anyString())).thenThrow(new RuntimeException("Embedding error"));
 
         Optional<RunAnalysisDocument> result = ragStorageService.findCachedAnalysis("test query");
 
         assertThat(result).isEmpty();
+        verifyNoInteractions(documentRepository);
     }
 }
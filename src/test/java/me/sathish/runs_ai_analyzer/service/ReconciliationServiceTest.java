@@ -0,0 +1,263 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    @Mock
+    private AnalysisProcessingLogRepository processingLogRepository;
+
+    @Mock
+    private ProcessingLogPartitionService partitionService;
+
+    @Mock
+    private RunAnalysisService analysisService;
+
+    @Mock
+    private RunsAppClient runsAppClient;
+
+    @Mock
+    private ReconciliationCheckpointStore checkpointStore;
+
+    @Mock
+    private SyncWatermarkStore watermarkStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ReconciliationService reconciliationService;
+
+    private final ReconciliationCheckpointStore.Chunk chunk = new ReconciliationCheckpointStore.Chunk(
+            42L, "1", LocalDate.of(2026, 9, 28), List.of(1L, 2L), List.of("A1", "A2"), 1);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        reconciliationService = new ReconciliationService(processingLogRepository, partitionService,
+                analysisService, runsAppClient, checkpointStore, watermarkStore, transactionTemplate);
+        ReflectionTestUtils.setField(reconciliationService, "maxRetries", 3);
+        ReflectionTestUtils.setField(reconciliationService, "maxRunsPerChunk", 20);
+        ReflectionTestUtils.setField(reconciliationService, "syncPageSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "syncMaxPages", 10);
+        ReflectionTestUtils.setField(reconciliationService, "lookbackDays", 7);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+    }
+
+    @Test
+    void planChunks_shouldSplitByWeekOldestFirst() {
+        List<ReconciliationCheckpointStore.PlannedChunk> chunks = ReconciliationService.planChunks(List.of(
+                run(3L, "2026-10-07T07:00:00"),
+                run(1L, "2026-09-29"),
+                run(2L, "2026-10-05 18:30")), 20);
+
+        assertThat(chunks).extracting(ReconciliationCheckpointStore.PlannedChunk::weekStart)
+                .containsExactly(LocalDate.of(2026, 9, 28), LocalDate.of(2026, 10, 5), LocalDate.of(2026, 10, 5));
+        assertThat(chunks).extracting(ReconciliationCheckpointStore.PlannedChunk::databaseIds)
+                .containsExactly(List.of(1L), List.of(2L), List.of(3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void planCatchUp_shouldPageFromWatermarkAndAdvanceItWithEachPlannedPage() {
+        LocalDateTime start = LocalDateTime.of(2026, 10, 1, 0, 0);
+        when(watermarkStore.find(ReconciliationService.SYNC_WATERMARK))
+                .thenReturn(Optional.of(new SyncWatermarkStore.Watermark(start, 0)));
+        when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(checkpointStore.tryLockPlanning()).thenReturn(true);
+        when(runsAppClient.fetchRecentRuns(start, 0, 2)).thenReturn(List.of(
+                changed(run(5L, daysAgo(2)), "2026-10-02T08:00:00"),
+                changed(run(3L, daysAgo(30)), "2026-10-02T09:00:00")));
+        when(runsAppClient.fetchRecentRuns(LocalDateTime.of(2026, 10, 2, 9, 0), 3L, 2)).thenReturn(List.of(
+                changed(run(8L, daysAgo(1)), "2026-10-03T10:00:00")));
+        when(checkpointStore.findMissed(anyList())).thenReturn(
+                List.of(new ReconciliationCheckpointStore.MissedRun("A5", 5L, true)),
+                List.of());
+
+        reconciliationService.planCatchUp();
+
+        ArgumentCaptor<SyncWatermarkStore.Watermark> saved = ArgumentCaptor.forClass(SyncWatermarkStore.Watermark.class);
+        verify(watermarkStore, times(2)).save(eq(ReconciliationService.SYNC_WATERMARK), saved.capture());
+        assertThat(saved.getAllValues()).containsExactly(
+                new SyncWatermarkStore.Watermark(LocalDateTime.of(2026, 10, 2, 9, 0), 3L),
+                new SyncWatermarkStore.Watermark(LocalDateTime.of(2026, 10, 3, 10, 0), 8L));
+        ArgumentCaptor<List<ReconciliationCheckpointStore.PlannedChunk>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(checkpointStore).insertChunks(chunks.capture());
+        assertThat(chunks.getValue()).singleElement()
+                .extracting(ReconciliationCheckpointStore.PlannedChunk::databaseIds).isEqualTo(List.of(5L));
+        verify(processingLogRepository).insertAll(List.of());
+        verify(runsAppClient, times(2)).fetchRecentRuns(any(LocalDateTime.class), anyLong(), anyInt());
+        // Run 3 was edited recently but is dated before the lookback window
+        ArgumentCaptor<List<GarminRunDataDTO>> diffed = ArgumentCaptor.forClass(List.class);
+        verify(checkpointStore, times(2)).findMissed(diffed.capture());
+        assertThat(diffed.getAllValues().getFirst()).extracting(GarminRunDataDTO::getId).containsExactly(5L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void planCatchUp_shouldPageLookbackWindowByIdWithoutWatermarkWhenRunsAppOmitsUpdatedAt() {
+        LocalDateTime windowStart = LocalDate.now().minusDays(7).atStartOfDay();
+        when(watermarkStore.find(ReconciliationService.SYNC_WATERMARK)).thenReturn(Optional.empty());
+        when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(checkpointStore.tryLockPlanning()).thenReturn(true);
+        when(runsAppClient.fetchRecentRuns(windowStart, 0, 2)).thenReturn(List.of(
+                run(5L, daysAgo(2)), run(6L, daysAgo(3))));
+        when(runsAppClient.fetchRecentRuns(windowStart, 6L, 2)).thenReturn(List.of(run(9L, daysAgo(1))));
+
+        reconciliationService.planCatchUp();
+
+        verify(checkpointStore, times(2)).findMissed(anyList());
+        verify(watermarkStore, never()).save(anyString(), any());
+        verify(runsAppClient, times(2)).fetchRecentRuns(any(LocalDateTime.class), anyLong(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void planCatchUp_shouldStopAfterOneFetchWhenRunsAppIgnoresTheLimit() {
+        LocalDateTime windowStart = LocalDate.now().minusDays(7).atStartOfDay();
+        when(watermarkStore.find(ReconciliationService.SYNC_WATERMARK)).thenReturn(Optional.empty());
+        when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(checkpointStore.tryLockPlanning()).thenReturn(true);
+        when(runsAppClient.fetchRecentRuns(windowStart, 0, 2)).thenReturn(List.of(
+                run(5L, daysAgo(2)), run(6L, daysAgo(3)), run(7L, daysAgo(4))));
+
+        reconciliationService.planCatchUp();
+
+        ArgumentCaptor<List<GarminRunDataDTO>> diffed = ArgumentCaptor.forClass(List.class);
+        verify(checkpointStore).findMissed(diffed.capture());
+        assertThat(diffed.getValue()).hasSize(3);
+        verify(runsAppClient, times(1)).fetchRecentRuns(any(LocalDateTime.class), anyLong(), anyInt());
+    }
+
+    @Test
+    void advance_shouldGiveNoWatermarkWhenRunsAppOmitsUpdatedAt() {
+        SyncWatermarkStore.Watermark current = new SyncWatermarkStore.Watermark(LocalDateTime.of(2026, 10, 1, 0, 0), 4L);
+
+        assertThat(ReconciliationService.advance(current, List.of(run(1L, "2026-10-04")))).isEmpty();
+        assertThat(ReconciliationService.advance(current, List.of())).contains(current);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processChunk_shouldAnalyzeChunkAndCompleteItsLogsInOneShortTransaction() {
+        UUID documentId = UUID.randomUUID();
+        when(runsAppClient.fetchRuns(List.of(1L, 2L))).thenReturn(List.of(run(1L, "2026-09-29"), run(2L, "2026-09-30")));
+        when(analysisService.analyzeRuns(anyList(), eq(false), eq(LlmLane.RECONCILIATION)))
+                .thenReturn(RunAnalysisResponse.builder().documentId(documentId).build());
+        when(checkpointStore.complete(eq(42L), anyString(), eq(documentId.toString()))).thenReturn(true);
+        when(processingLogRepository.findByActivityIdIn(List.of("A1", "A2"))).thenReturn(List.of(
+                log("A1", 1L, ProcessingStatus.PENDING),
+                log("A2", 2L, ProcessingStatus.FAILED),
+                log("A2", 99L, ProcessingStatus.PENDING)));
+
+        reconciliationService.processChunk(chunk);
+
+        ArgumentCaptor<List<AnalysisProcessingLog>> saved = ArgumentCaptor.forClass(List.class);
+        verify(processingLogRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(AnalysisProcessingLog::getDatabaseId).containsExactly(1L, 2L);
+        assertThat(saved.getValue()).allSatisfy(log -> {
+            assertThat(log.getProcessingStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+            assertThat(log.getDocumentId()).isEqualTo(documentId.toString());
+        });
+        verify(transactionTemplate, times(1)).executeWithoutResult(any(Consumer.class));
+    }
+
+    @Test
+    void processChunk_shouldLeaveLogsAloneWhenLeaseWasLost() {
+        when(runsAppClient.fetchRuns(List.of(1L, 2L))).thenReturn(List.of(run(1L, "2026-09-29")));
+        when(analysisService.analyzeRuns(anyList(), eq(false), eq(LlmLane.RECONCILIATION)))
+                .thenReturn(RunAnalysisResponse.builder().documentId(UUID.randomUUID()).build());
+        when(checkpointStore.complete(eq(42L), anyString(), anyString())).thenReturn(false);
+
+        reconciliationService.processChunk(chunk);
+
+        verify(processingLogRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processChunk_shouldReleaseChunkAndFailLogsOnlyAfterLastAttempt() {
+        when(runsAppClient.fetchRuns(List.of(1L, 2L))).thenReturn(List.of(run(1L, "2026-09-29")));
+        when(analysisService.analyzeRuns(anyList(), eq(false), eq(LlmLane.RECONCILIATION)))
+                .thenThrow(new IllegalStateException("LLM unavailable"));
+        when(checkpointStore.release(eq(42L), anyString(), eq("LLM unavailable"), eq(3)))
+                .thenReturn("PENDING", "FAILED");
+        when(processingLogRepository.findByActivityIdIn(List.of("A1", "A2")))
+                .thenReturn(List.of(log("A1", 1L, ProcessingStatus.PENDING)));
+
+        reconciliationService.processChunk(chunk);
+        verify(processingLogRepository, never()).saveAll(anyList());
+
+        reconciliationService.processChunk(chunk);
+        ArgumentCaptor<List<AnalysisProcessingLog>> saved = ArgumentCaptor.forClass(List.class);
+        verify(processingLogRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement()
+                .extracting(AnalysisProcessingLog::getProcessingStatus).isEqualTo(ProcessingStatus.FAILED);
+        verify(checkpointStore, never()).complete(anyLong(), anyString(), any());
+        verify(checkpointStore, never()).claim(anyInt(), anyString(), any(LocalDateTime.class), anyList());
+    }
+
+    private static GarminRunDataDTO run(Long id, String activityDate) {
+        return GarminRunDataDTO.builder()
+                .id(id)
+                .activityId("A" + id)
+                .activityType("running")
+                .activityDate(activityDate)
+                .build();
+    }
+
+    private static String daysAgo(int days) {
+        return LocalDate.now().minusDays(days).toString();
+    }
+
+    private static GarminRunDataDTO changed(GarminRunDataDTO run, String updatedAt) {
+        run.setUpdatedAt(updatedAt);
+        return run;
+    }
+
+    private static AnalysisProcessingLog log(String activityId, Long databaseId, ProcessingStatus status) {
+        return AnalysisProcessingLog.builder()
+                .activityId(activityId)
+                .databaseId(databaseId)
+                .eventType("RECONCILIATION_CATCHUP")
+                .processingStatus(status)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.dto.GarminRunEvent;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog;
+import me.sathish.runs_ai_analyzer.entity.AnalysisProcessingLog.ProcessingStatus;
+import me.sathish.runs_ai_analyzer.repository.AnalysisProcessingLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RunAnalysisBatchServiceTest {
+
+    @Mock
+    private AnalysisProcessingLogRepository processingLogRepository;
+
+    @Mock
+    private RunAnalysisService analysisService;
+
+    @Mock
+    private RunsAppClient runsAppClient;
+
+    @Mock
+    private PendingAnalysisQueue pendingQueue;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RunAnalysisBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        batchService = new RunAnalysisBatchService(processingLogRepository, analysisService, runsAppClient,
+                pendingQueue, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(batchService, "batchSize", 5);
+        ReflectionTestUtils.setField(batchService, "batchWindowMinutes", 60);
+        ReflectionTestUtils.setField(batchService, "maxEventsPerFlush", 50);
+        ReflectionTestUtils.setField(batchService, "flushThreads", 1);
+        batchService.startAggregator();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.stopAggregator();
+    }
+
+    @Test
+    void processBatch_shouldAnalyzeEachClaimedAthleteBatchInOneCallOutsideAnyTransaction() {
+        when(pendingQueue.findReadyAthletes(eq(5), any(LocalDateTime.class))).thenReturn(List.of("athlete-1"));
+        when(pendingQueue.claim(eq("athlete-1"), eq(50), anyString(), any(LocalDateTime.class)))
+                .thenReturn(List.of(event("A1", 1L), event("A2", 2L)));
+        when(pendingQueue.complete(anyString())).thenReturn(2);
+        runTransactionsInline();
+        when(runsAppClient.fetchRuns(List.of(1L, 2L), true)).thenReturn(List.of(
+                GarminRunDataDTO.builder().id(1L).activityId("A1").activityType("running").build(),
+                GarminRunDataDTO.builder().id(2L).activityId("A2").activityType("running").build()));
+        UUID documentId = UUID.randomUUID();
+        when(analysisService.analyzeRuns(anyList(), eq(false), eq(LlmLane.BATCH)))
+                .thenReturn(RunAnalysisResponse.builder().documentId(documentId).build());
+        AnalysisProcessingLog log = AnalysisProcessingLog.builder().activityId("A1").databaseId(1L)
+                .processingStatus(ProcessingStatus.PENDING).build();
+        when(processingLogRepository.findByActivityIdAndDatabaseId("A1", 1L)).thenReturn(Optional.of(log));
+
+        batchService.processBatch();
+
+        verify(analysisService, times(1)).analyzeRuns(argThat(runs -> runs.size() == 2), eq(false), eq(LlmLane.BATCH));
+        assertThat(meterRegistry.summary("analysis.batch.runs.per.call").totalAmount()).isEqualTo(2.0);
+        InOrder inOrder = inOrder(transactionTemplate, analysisService, pendingQueue);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(analysisService).analyzeRuns(anyList(), eq(false), eq(LlmLane.BATCH));
+        inOrder.verify(transactionTemplate).executeWithoutResult(any());
+        inOrder.verify(pendingQueue).complete(anyString());
+        assertThat(log.getProcessingStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+        assertThat(log.getDocumentId()).isEqualTo(documentId.toString());
+    }
+
+    @Test
+    void flushAthlete_shouldDiscardOutcomeWhenLeaseWasLost() {
+        when(pendingQueue.claim(eq("athlete-1"), eq(50), anyString(), any(LocalDateTime.class)))
+                .thenReturn(List.of(event("A1", 1L)));
+        when(pendingQueue.complete(anyString())).thenReturn(0);
+        runTransactionsInline();
+        when(runsAppClient.fetchRuns(List.of(1L), true)).thenReturn(List.of(
+                GarminRunDataDTO.builder().id(1L).activityId("A1").activityType("running").build()));
+        when(analysisService.analyzeRuns(anyList(), eq(false), eq(LlmLane.BATCH)))
+                .thenReturn(RunAnalysisResponse.builder().documentId(UUID.randomUUID()).build());
+
+        batchService.flushAthlete("athlete-1");
+
+        // Only the PROCESSING mark made while claiming
+        verify(processingLogRepository, times(1)).findByActivityIdAndDatabaseId("A1", 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+    }
+
+    @Test
+    void processBatch_shouldDoNothingWhenNoAthleteIsReady() {
+        when(pendingQueue.findReadyAthletes(anyInt(), any(LocalDateTime.class))).thenReturn(List.of());
+
+        batchService.processBatch();
+
+        verifyNoInteractions(transactionTemplate, runsAppClient, analysisService);
+        verify(pendingQueue, never()).claim(anyString(), anyInt(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void queueAllForAnalysis_shouldPersistToPendingQueue() {
+        List<GarminRunEvent> events = List.of(event("A1", 1L));
+
+        batchService.queueAllForAnalysis(events);
+
+        verify(pendingQueue).enqueue(events);
+    }
+
+    private GarminRunEvent event(String activityId, Long databaseId) {
+        GarminRunEvent event = new GarminRunEvent();
+        event.setActivityId(activityId);
+        event.setDatabaseId(databaseId);
+        event.setEventType("GARMIN_CSV_RUN");
+        return event;
+    }
+}
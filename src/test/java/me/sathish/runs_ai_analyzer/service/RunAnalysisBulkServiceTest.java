@@ -0,0 +1,167 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import me.sathish.runs_ai_analyzer.dto.BulkRunAnalysisRequest;
+import me.sathish.runs_ai_analyzer.dto.BulkRunAnalysisResult;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.dto.RunAnalysisResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RunAnalysisBulkServiceTest {
+
+    @Mock
+    private RunAnalysisService runAnalysisService;
+
+    private RunAnalysisBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        bulkService = new RunAnalysisBulkService(runAnalysisService);
+        ReflectionTestUtils.setField(bulkService, "parallelism", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkService.shutdown();
+    }
+
+    @Test
+    void analyzeAll_shouldIsolateFailuresAndTagResultsWithCorrelationIds() throws Exception {
+        GarminRunDataDTO good = run("1");
+        GarminRunDataDTO bad = run("2");
+        RunAnalysisResponse response = RunAnalysisResponse.builder().summary("ok").build();
+        when(runAnalysisService.analyzeRuns(eq(List.of(good)), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenReturn(response);
+        when(runAnalysisService.analyzeRuns(eq(List.of(bad)), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenThrow(new IllegalStateException("LLM unavailable"));
+        List<BulkRunAnalysisResult> results = new CopyOnWriteArrayList<>();
+
+        bulkService.analyzeAll(List.of(item("athlete-a", good), item("athlete-b", bad)), results::add)
+                .get(5, TimeUnit.SECONDS);
+
+        Map<String, BulkRunAnalysisResult> byId = results.stream()
+                .collect(Collectors.toMap(BulkRunAnalysisResult::getCorrelationId, r -> r));
+        assertThat(byId.get("athlete-a").getStatus()).isEqualTo(BulkRunAnalysisResult.Status.OK);
+        assertThat(byId.get("athlete-a").getResult()).isSameAs(response);
+        assertThat(byId.get("athlete-b").getStatus()).isEqualTo(BulkRunAnalysisResult.Status.FAILED);
+        assertThat(byId.get("athlete-b").getError()).isEqualTo("LLM unavailable");
+    }
+
+    @Test
+    void analyzeAll_shouldAnalyzeIdenticalRunSetsOnce() throws Exception {
+        when(runAnalysisService.analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenReturn(RunAnalysisResponse.builder().build());
+        List<BulkRunAnalysisResult> results = new CopyOnWriteArrayList<>();
+
+        bulkService.analyzeAll(List.of(item("a", run("1")), item("b", run("1")), item("c", run("2"))),
+                results::add).get(5, TimeUnit.SECONDS);
+
+        assertThat(results).extracting(BulkRunAnalysisResult::getCorrelationId)
+                .containsExactlyInAnyOrder("a", "b", "c");
+        verify(runAnalysisService, times(2)).analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB));
+    }
+
+    @Test
+    void analyzeAll_shouldBoundParallelism() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        Map<String, Integer> peak = new ConcurrentHashMap<>();
+        when(runAnalysisService.analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB))).thenAnswer(invocation -> {
+            peak.merge("max", inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return RunAnalysisResponse.builder().build();
+        });
+        List<BulkRunAnalysisRequest.Item> items = IntStream.range(0, 10)
+                .mapToObj(i -> item("item-" + i, run(String.valueOf(i))))
+                .toList();
+        AtomicInteger reported = new AtomicInteger();
+
+        bulkService.analyzeAll(items, result -> reported.incrementAndGet()).get(5, TimeUnit.SECONDS);
+
+        assertThat(reported.get()).isEqualTo(10);
+        assertThat(peak.get("max")).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void analyzeAll_shouldNotStartQueuedItemsAfterCancellation() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        when(runAnalysisService.analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return RunAnalysisResponse.builder().build();
+        });
+        List<BulkRunAnalysisRequest.Item> items = IntStream.range(0, 10)
+                .mapToObj(i -> item("item-" + i, run(String.valueOf(i))))
+                .toList();
+        List<BulkRunAnalysisResult> results = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> analysis = bulkService.analyzeAll(items, results::add);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        analysis.cancel(false);
+        release.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> results.size() == 10);
+        Thread.sleep(100);
+        verify(runAnalysisService, times(2)).analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB));
+        assertThat(results).extracting(BulkRunAnalysisResult::getStatus)
+                .containsOnly(BulkRunAnalysisResult.Status.FAILED);
+    }
+
+    @Test
+    void analyzeAll_shouldCancelRemainingItemsWhenTheSinkFails() throws Exception {
+        ReflectionTestUtils.setField(bulkService, "parallelism", 1);
+        when(runAnalysisService.analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB)))
+                .thenReturn(RunAnalysisResponse.builder().build());
+        List<BulkRunAnalysisRequest.Item> items = IntStream.range(0, 10)
+                .mapToObj(i -> item("item-" + i, run(String.valueOf(i))))
+                .toList();
+        AtomicInteger sinkCalls = new AtomicInteger();
+
+        bulkService.analyzeAll(items, result -> {
+            sinkCalls.incrementAndGet();
+            throw new IllegalStateException("client went away");
+        }).get(5, TimeUnit.SECONDS);
+
+        assertThat(sinkCalls.get()).isEqualTo(10);
+        verify(runAnalysisService, atMost(2)).analyzeRuns(anyList(), anyBoolean(), eq(LlmLane.ASYNC_JOB));
+    }
+
+    private BulkRunAnalysisRequest.Item item(String correlationId, GarminRunDataDTO run) {
+        return BulkRunAnalysisRequest.Item.builder()
+                .correlationId(correlationId)
+                .runs(List.of(run))
+                .build();
+    }
+
+    private GarminRunDataDTO run(String activityId) {
+        return GarminRunDataDTO.builder()
+                .activityId(activityId)
+                .activityType("running")
+                .build();
+    }
+}
@@ -0,0 +1,258 @@
+package me.sathish.runs_ai_analyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import me.sathish.runs_ai_analyzer.config.RunsAppClientProperties;
+import me.sathish.runs_ai_analyzer.dto.GarminRunDataDTO;
+import me.sathish.runs_ai_analyzer.exception.RunsAppClientException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link RunsAppClient} against a local stub runs-app on an ephemeral port.
+ */
+class RunsAppClientTest {
+
+    private static final String LAST_MODIFIED = "Thu, 01 Oct 2026 06:00:00 GMT";
+
+    private HttpServer server;
+    private RunsAppClientProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RunsAppClient client;
+    private RunDataCache runDataCache;
+    private final Queue<String> ifModifiedSinceHeaders = new ConcurrentLinkedQueue<>();
+    private final Queue<String> requestedQueries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger failuresToSend = new AtomicInteger();
+    private volatile int failureStatus = 503;
+    private volatile long responseDelayMs;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/garminRuns/batch", this::handleBatch);
+        server.createContext("/api/garminRuns/recent", exchange -> {
+            requestedQueries.add(exchange.getRequestURI().getRawQuery());
+            if ("\"recent-1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"recent-1\"");
+            respond(exchange, 200, "[{\"id\":7,\"activityId\":\"A7\",\"activityType\":\"running\"}]");
+        });
+        server.start();
+
+        properties = new RunsAppClientProperties();
+        properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setMaxIdsPerRequest(10);
+        properties.setParallelism(2);
+        properties.setBackoffBaseMs(5);
+        properties.setBackoffMaxMs(20);
+        properties.setRequestTimeoutMs(2000);
+        meterRegistry = new SimpleMeterRegistry();
+        client = newClient();
+    }
+
+    private RunsAppClient newClient() {
+        runDataCache = new RunDataCache(properties, meterRegistry);
+        return new RunsAppClient(properties, new ObjectMapper(), meterRegistry, runDataCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchRuns_shouldSplitIdsIntoChunksFetchedInParallelInOrder() {
+        responseDelayMs = 50;
+        List<Long> ids = LongStream.rangeClosed(1, 35).boxed().toList();
+
+        List<GarminRunDataDTO> runs = client.fetchRuns(ids);
+
+        assertThat(runs).extracting(GarminRunDataDTO::getId).containsExactlyElementsOf(ids);
+        assertThat(requestedQueries).hasSize(4);
+        assertThat(peakInFlight.get()).isEqualTo(2);
+        assertThat(meterRegistry.timer(RunsAppClient.REQUESTS_METRIC, "endpoint", "batch", "outcome", "2xx").count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void chunkUrls_shouldRespectMaximumUrlLength() {
+        properties.setMaxIdsPerRequest(1000);
+        properties.setMaxUrlLength(properties.getBaseUrl().length() + 60);
+        List<Long> ids = LongStream.rangeClosed(1_000_000_000L, 1_000_000_050L).boxed().toList();
+
+        List<String> urls = client.chunkUrls(ids);
+
+        assertThat(urls).allSatisfy(url -> assertThat(url.length()).isLessThanOrEqualTo(properties.getMaxUrlLength()));
+        assertThat(urls.stream()
+                .flatMap(url -> Arrays.stream(url.substring(url.indexOf("ids=") + 4).split(",")))
+                .map(Long::valueOf)
+                .toList()).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void fetchRuns_shouldRetryServerErrorsWithBackoff() {
+        failuresToSend.set(2);
+
+        List<GarminRunDataDTO> runs = client.fetchRuns(List.of(1L, 2L));
+
+        assertThat(runs).hasSize(2);
+        assertThat(requestedQueries).hasSize(3);
+        assertThat(meterRegistry.counter(RunsAppClient.RETRIES_METRIC, "endpoint", "batch").count()).isEqualTo(2);
+    }
+
+    @Test
+    void fetchRuns_shouldFailWithoutRetryOnClientError() {
+        failuresToSend.set(1);
+        failureStatus = 400;
+
+        assertThatThrownBy(() -> client.fetchRuns(List.of(1L)))
+                .isInstanceOf(RunsAppClientException.class)
+                .hasMessageContaining("HTTP 400");
+        assertThat(requestedQueries).hasSize(1);
+    }
+
+    @Test
+    void fetchRuns_shouldTimeOutSlowCallsAndGiveUpAfterMaxAttempts() {
+        properties.setRequestTimeoutMs(100);
+        client.shutdown();
+        client = newClient();
+        responseDelayMs = 1000;
+
+        assertThatThrownBy(() -> client.fetchRuns(List.of(1L)))
+                .isInstanceOf(RunsAppClientException.class)
+                .hasMessageContaining("after 3 attempts");
+        assertThat(meterRegistry.timer(RunsAppClient.REQUESTS_METRIC, "endpoint", "batch", "outcome", "timeout").count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void fetchRecentRuns_shouldEncodeKeysetParameters() {
+        List<GarminRunDataDTO> runs = client.fetchRecentRuns(LocalDateTime.of(2026, 10, 1, 6, 30), 41L, 500);
+
+        assertThat(runs).extracting(GarminRunDataDTO::getActivityId).containsExactly("A7");
+        assertThat(requestedQueries).containsExactly("since=2026-10-01T06%3A30&afterId=41&limit=500");
+    }
+
+    @Test
+    void fetchRuns_shouldServeFreshRunsFromCacheWithoutCallingRunsApp() {
+        client.fetchRuns(List.of(1L, 2L));
+        requestedQueries.clear();
+
+        List<GarminRunDataDTO> runs = client.fetchRuns(List.of(2L, 3L, 1L));
+
+        assertThat(runs).extracting(GarminRunDataDTO::getId).containsExactly(2L, 3L, 1L);
+        assertThat(requestedQueries).containsExactly("ids=3");
+        assertThat(meterRegistry.counter(RunDataCache.CACHE_METRIC, "result", "hit").count()).isEqualTo(2);
+    }
+
+    @Test
+    void fetchRuns_shouldRevalidateStaleRunsWithConditionalRequest() {
+        properties.getCache().setFreshSeconds(0);
+        client.fetchRuns(List.of(1L, 2L));
+        requestedQueries.clear();
+
+        List<GarminRunDataDTO> runs = client.fetchRuns(List.of(1L, 2L));
+
+        assertThat(runs).extracting(GarminRunDataDTO::getActivityId).containsExactly("A1", "A2");
+        assertThat(requestedQueries).containsExactly("ids=1,2");
+        assertThat(ifModifiedSinceHeaders).containsExactly(LAST_MODIFIED);
+        assertThat(meterRegistry.counter(RunDataCache.CACHE_METRIC, "result", "not_modified").count()).isEqualTo(2);
+        assertThat(meterRegistry.timer(RunsAppClient.REQUESTS_METRIC, "endpoint", "batch", "outcome", "3xx").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void fetchRuns_shouldRefetchInvalidatedRunUnconditionally() {
+        client.fetchRuns(List.of(1L, 2L));
+        requestedQueries.clear();
+
+        runDataCache.invalidate(null, "A2");
+        List<GarminRunDataDTO> runs = client.fetchRuns(List.of(1L, 2L));
+
+        assertThat(runs).extracting(GarminRunDataDTO::getId).containsExactly(1L, 2L);
+        assertThat(requestedQueries).containsExactly("ids=2");
+        assertThat(ifModifiedSinceHeaders).isEmpty();
+    }
+
+    @Test
+    void fetchRecentRuns_shouldReuseLastAnswerWhenNotModified() {
+        LocalDateTime since = LocalDateTime.of(2026, 10, 1, 0, 0);
+        client.fetchRecentRuns(since, 0, 500);
+
+        List<GarminRunDataDTO> runs = client.fetchRecentRuns(since, 0, 500);
+
+        assertThat(runs).extracting(GarminRunDataDTO::getActivityId).containsExactly("A7");
+        assertThat(requestedQueries).hasSize(2);
+        assertThat(runDataCache.get(7L)).isNotNull();
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        requestedQueries.add(query);
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            ifModifiedSinceHeaders.add(ifModifiedSince);
+            if (ifModifiedSince.equals(LAST_MODIFIED)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (failuresToSend.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                respond(exchange, failureStatus, "{}");
+                return;
+            }
+            if (responseDelayMs > 0) {
+                Thread.sleep(responseDelayMs);
+            }
+            String body = Arrays.stream(query.substring("ids=".length()).split(","))
+                    .map(id -> "{\"id\":" + id + ",\"activityId\":\"A" + id + "\",\"activityType\":\"running\"}")
+                    .collect(Collectors.joining(",", "[", "]"));
+            exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+            respond(exchange, 200, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Client gave up (timeout test)
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}